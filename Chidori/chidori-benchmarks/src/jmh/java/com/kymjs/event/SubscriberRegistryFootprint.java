@@ -0,0 +1,82 @@
+package com.kymjs.event;
+
+import com.kymjs.event.benchmarks.BenchmarkEvents;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 比较10000个订阅者(每个订阅5个事件类型)时,订阅者到事件类型映射占用的堆内存:
+ * 原来的ConcurrentHashMap&lt;Object, List&lt;Class&gt;&gt;与{@link SubscriberRegistry}。
+ * 放在com.kymjs.event包中以访问包内可见的SubscriberRegistry。
+ * <p>
+ * ./gradlew :chidori-benchmarks:registryFootprint
+ */
+public final class SubscriberRegistryFootprint {
+
+    private static final int SUBSCRIBERS = 10000;
+    private static final Class<?>[] EVENT_TYPES = {BenchmarkEvents.EventA.class,
+            BenchmarkEvents.EventB.class, BenchmarkEvents.EventC.class, BenchmarkEvents.EventD
+            .class, BenchmarkEvents.EventE.class};
+
+    private SubscriberRegistryFootprint() {
+    }
+
+    public static void main(String[] args) {
+        Object[] subscribers = new Object[SUBSCRIBERS];
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            subscribers[i] = new Object();
+        }
+
+        long before = usedHeap();
+        Map<Object, List<Class<?>>> hashMap = new ConcurrentHashMap<Object, List<Class<?>>>();
+        for (Object subscriber : subscribers) {
+            List<Class<?>> types = new ArrayList<Class<?>>();
+            for (Class<?> eventType : EVENT_TYPES) {
+                types.add(eventType);
+            }
+            hashMap.put(subscriber, types);
+        }
+        long hashMapBytes = usedHeap() - before;
+        // 保证测量期间仍然可达
+        if (hashMap.size() != SUBSCRIBERS) {
+            throw new AssertionError();
+        }
+        print("ConcurrentHashMap<Object, List<Class>>", hashMapBytes);
+        hashMap = null;
+
+        before = usedHeap();
+        SubscriberRegistry registry = new SubscriberRegistry();
+        for (Object subscriber : subscribers) {
+            registry.put(subscriber, EVENT_TYPES.clone());
+        }
+        long registryBytes = usedHeap() - before;
+        if (registry.get(subscribers[SUBSCRIBERS - 1]) == null) {
+            throw new AssertionError();
+        }
+        print("SubscriberRegistry", registryBytes);
+    }
+
+    private static void print(String name, long bytes) {
+        System.out.println(String.format("%-40s %,10d bytes  %6.1f bytes/subscriber", name, bytes,
+                (double) bytes / SUBSCRIBERS));
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // 多次GC直到使用量稳定
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
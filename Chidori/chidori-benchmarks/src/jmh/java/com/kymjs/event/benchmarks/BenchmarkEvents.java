@@ -0,0 +1,64 @@
+package com.kymjs.event.benchmarks;
+
+/**
+ * 基准测试使用的事件类型
+ */
+public final class BenchmarkEvents {
+
+    private BenchmarkEvents() {
+    }
+
+    /**
+     * 订阅者每收到一次就加一,由发送线程独享时多线程测试之间没有共享写
+     */
+    public static class CountingEvent {
+        public long count;
+    }
+
+    // 继承层级,LevelN继承自Level(N-1)
+    public static class Level0 {
+    }
+
+    public static class Level1 extends Level0 {
+    }
+
+    public static class Level2 extends Level1 {
+    }
+
+    public static class Level3 extends Level2 {
+    }
+
+    public static class Level4 extends Level3 {
+    }
+
+    public static class Level5 extends Level4 {
+    }
+
+    public static class Level6 extends Level5 {
+    }
+
+    public static class Level7 extends Level6 {
+    }
+
+    public static class Level8 extends Level7 {
+    }
+
+    static final Object[] LEVELS = {new Level0(), new Level1(), new Level2(), new Level3(), new Level4(),
+            new Level5(), new Level6(), new Level7(), new Level8()};
+
+    // 注册测试中订阅者的多个事件类型
+    public static class EventA {
+    }
+
+    public static class EventB {
+    }
+
+    public static class EventC {
+    }
+
+    public static class EventD {
+    }
+
+    public static class EventE {
+    }
+}
@@ -0,0 +1,14 @@
+package com.kymjs.event.benchmarks;
+
+import com.kymjs.event.EventLoop;
+
+/**
+ * 跨线程测试使用的主线程,相当于Android的主线程
+ */
+public final class BenchmarkMainThread {
+
+    public static final EventLoop LOOP = new EventLoop("main");
+
+    private BenchmarkMainThread() {
+    }
+}
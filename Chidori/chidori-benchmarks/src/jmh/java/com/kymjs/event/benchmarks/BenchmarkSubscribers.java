@@ -0,0 +1,158 @@
+package com.kymjs.event.benchmarks;
+
+import com.kymjs.event.ThreadMode;
+
+/**
+ * 每种ThreadMode一个订阅者
+ */
+public final class BenchmarkSubscribers {
+
+    private BenchmarkSubscribers() {
+    }
+
+    public static Object forThreadMode(ThreadMode threadMode, DeliveryCounter counter) {
+        switch (threadMode) {
+            case PostThread:
+                return new PostThreadSubscriber(counter);
+            case MainThread:
+                return new MainThreadSubscriber(counter);
+            case BackgroundThread:
+                return new BackgroundThreadSubscriber(counter);
+            case Async:
+                return new AsyncSubscriber(counter);
+            default:
+                throw new IllegalArgumentException("Unknown thread mode: " + threadMode);
+        }
+    }
+
+    public static final class PostThreadSubscriber {
+        private final DeliveryCounter counter;
+
+        public PostThreadSubscriber(DeliveryCounter counter) {
+            this.counter = counter;
+        }
+
+        public void onEvent(BenchmarkEvents.CountingEvent event) {
+            counter.increment();
+        }
+    }
+
+    public static final class MainThreadSubscriber {
+        private final DeliveryCounter counter;
+
+        public MainThreadSubscriber(DeliveryCounter counter) {
+            this.counter = counter;
+        }
+
+        public void onEventMainThread(BenchmarkEvents.CountingEvent event) {
+            counter.increment();
+        }
+    }
+
+    public static final class BackgroundThreadSubscriber {
+        private final DeliveryCounter counter;
+
+        public BackgroundThreadSubscriber(DeliveryCounter counter) {
+            this.counter = counter;
+        }
+
+        public void onEventBackgroundThread(BenchmarkEvents.CountingEvent event) {
+            counter.increment();
+        }
+    }
+
+    public static final class AsyncSubscriber {
+        private final DeliveryCounter counter;
+
+        public AsyncSubscriber(DeliveryCounter counter) {
+            this.counter = counter;
+        }
+
+        public void onEventAsync(BenchmarkEvents.CountingEvent event) {
+            counter.increment();
+        }
+    }
+
+    /**
+     * 事件自己计数,多个发送线程之间没有共享写
+     */
+    public static final class EventCountingSubscriber {
+        public void onEvent(BenchmarkEvents.CountingEvent event) {
+            event.count++;
+        }
+    }
+
+    /**
+     * 订阅继承层级中的每一层
+     */
+    public static final class LevelSubscriber {
+        public long received;
+
+        public void onEvent(BenchmarkEvents.Level0 event) {
+            received++;
+        }
+
+        public void onEvent(BenchmarkEvents.Level1 event) {
+            received++;
+        }
+
+        public void onEvent(BenchmarkEvents.Level2 event) {
+            received++;
+        }
+
+        public void onEvent(BenchmarkEvents.Level3 event) {
+            received++;
+        }
+
+        public void onEvent(BenchmarkEvents.Level4 event) {
+            received++;
+        }
+
+        public void onEvent(BenchmarkEvents.Level5 event) {
+            received++;
+        }
+
+        public void onEvent(BenchmarkEvents.Level6 event) {
+            received++;
+        }
+
+        public void onEvent(BenchmarkEvents.Level7 event) {
+            received++;
+        }
+
+        public void onEvent(BenchmarkEvents.Level8 event) {
+            received++;
+        }
+    }
+
+    /**
+     * 只订阅继承层级的根类型
+     */
+    public static final class RootSubscriber {
+        public long received;
+
+        public void onEvent(BenchmarkEvents.Level0 event) {
+            received++;
+        }
+    }
+
+    /**
+     * 订阅五个事件类型,用于注册测试
+     */
+    public static final class MultiEventSubscriber {
+        public void onEvent(BenchmarkEvents.EventA event) {
+        }
+
+        public void onEventMainThread(BenchmarkEvents.EventB event) {
+        }
+
+        public void onEventBackgroundThread(BenchmarkEvents.EventC event) {
+        }
+
+        public void onEventAsync(BenchmarkEvents.EventD event) {
+        }
+
+        public void onEvent(BenchmarkEvents.EventE event) {
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.kymjs.event.benchmarks;
+
+import com.kymjs.event.EventBus;
+import com.kymjs.event.EventBusBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一次发送events个Async事件,每次响应阻塞10ms(相当于一次I/O):比较默认线程池和虚拟线程全部送达的时间。
+ * 不支持虚拟线程的JVM(Java 21以前)上virtual回退到线程池,两者结果相同。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class BlockingAsyncBenchmark {
+
+    static final long BLOCK_MILLIS = 10;
+
+    @Param({"pool", "virtual"})
+    public String backend;
+
+    @Param({"1000", "10000"})
+    public int events;
+
+    private EventBus eventBus;
+    private DeliveryCounter counter;
+    private BlockingSubscriber subscriber;
+    private final BenchmarkEvents.CountingEvent event = new BenchmarkEvents.CountingEvent();
+
+    @Setup
+    public void setUp() {
+        EventBusBuilder builder = EventBus.builder().logNoSubscriberMessages(false).sendNoSubscriberEvent(false);
+        if ("virtual".equals(backend)) {
+            builder.virtualThreads(false);
+        }
+        eventBus = builder.build();
+        counter = new DeliveryCounter();
+        subscriber = new BlockingSubscriber(counter);
+        eventBus.register(subscriber);
+    }
+
+    @TearDown
+    public void tearDown() {
+        eventBus.unregister(subscriber);
+    }
+
+    @Benchmark
+    public void postBlocking() {
+        long expected = counter.get() + events;
+        for (int i = 0; i < events; i++) {
+            eventBus.post(event);
+        }
+        counter.awaitAtLeast(expected);
+    }
+
+    public static final class BlockingSubscriber {
+        private final DeliveryCounter counter;
+
+        public BlockingSubscriber(DeliveryCounter counter) {
+            this.counter = counter;
+        }
+
+        public void onEventAsync(BenchmarkEvents.CountingEvent event) throws InterruptedException {
+            Thread.sleep(BLOCK_MILLIS);
+            counter.increment();
+        }
+    }
+}
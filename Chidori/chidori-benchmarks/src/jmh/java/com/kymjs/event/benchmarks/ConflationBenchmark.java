@@ -0,0 +1,89 @@
+package com.kymjs.event.benchmarks;
+
+import com.kymjs.event.EventBus;
+import com.kymjs.event.EventBusBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 从后台线程连续发送进度事件,MainThread订阅者每次响应都有一些工作:
+ * 从发送第一个事件到主线程看到最后一个事件的时间,conflate时中间的事件直接被替换。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ConflationBenchmark {
+
+    static final int BATCH = 1000;
+    static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    @Param({"false", "true"})
+    public boolean conflate;
+
+    private EventBus eventBus;
+    private ProgressSubscriber subscriber;
+    private long nextValue;
+
+    @Setup
+    public void setUp() {
+        EventBusBuilder builder = EventBus.builder().mainThreadSupport(BenchmarkMainThread.LOOP)
+                .logNoSubscriberMessages(false).sendNoSubscriberEvent(false);
+        if (conflate) {
+            builder.conflateEvents(ProgressEvent.class);
+        }
+        eventBus = builder.build();
+        subscriber = new ProgressSubscriber();
+        eventBus.register(subscriber);
+    }
+
+    @TearDown
+    public void tearDown() {
+        eventBus.unregister(subscriber);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void postProgress() {
+        long last = nextValue + BATCH - 1;
+        for (int i = 0; i < BATCH; i++) {
+            eventBus.post(new ProgressEvent(nextValue++));
+        }
+        long deadline = System.nanoTime() + TIMEOUT_NANOS;
+        while (subscriber.latest != last) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException("Timed out: latest " + subscriber.latest + " of " + last);
+            }
+            Thread.yield();
+        }
+    }
+
+    public static final class ProgressEvent {
+        final long value;
+
+        ProgressEvent(long value) {
+            this.value = value;
+        }
+    }
+
+    public static final class ProgressSubscriber {
+        volatile long latest = -1;
+
+        public void onEventMainThread(ProgressEvent event) {
+            //相当于刷新一次进度条
+            Blackhole.consumeCPU(2000);
+            latest = event.value;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.kymjs.event.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 统计已响应的事件数,发送线程据此等待跨线程的事件全部送达
+ */
+public final class DeliveryCounter {
+
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final AtomicLong delivered = new AtomicLong();
+
+    public void increment() {
+        delivered.incrementAndGet();
+    }
+
+    public long get() {
+        return delivered.get();
+    }
+
+    public void awaitAtLeast(long expected) {
+        if (delivered.get() >= expected) {
+            return;
+        }
+        long deadline = System.nanoTime() + TIMEOUT_NANOS;
+        while (delivered.get() < expected) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException("Timed out: delivered " + delivered.get() + " of " + expected);
+            }
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.kymjs.event.benchmarks;
+
+import com.kymjs.event.EventBus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一个事件分发给不同数量的PostThread订阅者
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class FanOutBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int subscribers;
+
+    private EventBus eventBus;
+    private final BenchmarkEvents.CountingEvent event = new BenchmarkEvents.CountingEvent();
+
+    @Setup
+    public void setUp() {
+        eventBus = EventBus.builder().logNoSubscriberMessages(false).sendNoSubscriberEvent(false).build();
+        for (int i = 0; i < subscribers; i++) {
+            eventBus.register(new BenchmarkSubscribers.EventCountingSubscriber());
+        }
+    }
+
+    @Benchmark
+    public long post() {
+        eventBus.post(event);
+        return event.count;
+    }
+}
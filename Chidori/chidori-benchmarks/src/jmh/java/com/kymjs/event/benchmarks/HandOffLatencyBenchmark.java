@@ -0,0 +1,66 @@
+package com.kymjs.event.benchmarks;
+
+import com.kymjs.event.EventBus;
+import com.kymjs.event.ThreadMode;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 跨线程送达一个事件的延迟分布:从post到订阅者开始响应。
+ * BackgroundThread从主线程发送,结果包括先切换到主线程的时间。
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class HandOffLatencyBenchmark {
+
+    @Param({"MainThread", "BackgroundThread", "Async"})
+    public String threadMode;
+
+    private EventBus eventBus;
+    private DeliveryCounter counter;
+    private Object subscriber;
+    private Runnable postOne;
+    private final BenchmarkEvents.CountingEvent event = new BenchmarkEvents.CountingEvent();
+
+    @Setup
+    public void setUp() {
+        eventBus = EventBus.builder().mainThreadSupport(BenchmarkMainThread.LOOP).logNoSubscriberMessages(false)
+                .sendNoSubscriberEvent(false).build();
+        counter = new DeliveryCounter();
+        subscriber = BenchmarkSubscribers.forThreadMode(ThreadMode.valueOf(threadMode), counter);
+        eventBus.register(subscriber);
+        postOne = new Runnable() {
+            @Override
+            public void run() {
+                eventBus.post(event);
+            }
+        };
+    }
+
+    @TearDown
+    public void tearDown() {
+        eventBus.unregister(subscriber);
+    }
+
+    @Benchmark
+    public void handOff() {
+        long expected = counter.get() + 1;
+        if (subscriber instanceof BenchmarkSubscribers.BackgroundThreadSubscriber) {
+            BenchmarkMainThread.LOOP.execute(postOne);
+        } else {
+            eventBus.post(event);
+        }
+        counter.awaitAtLeast(expected);
+    }
+}
@@ -0,0 +1,49 @@
+package com.kymjs.event.benchmarks;
+
+import com.kymjs.event.EventBus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * post继承层级中不同深度的事件,订阅者订阅了每一层。
+ * 开启事件继承时深度为N的事件会送达N+1次,关闭时只送达一次。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class InheritanceDepthBenchmark {
+
+    @Param({"0", "2", "4", "8"})
+    public int depth;
+
+    @Param({"true", "false"})
+    public boolean eventInheritance;
+
+    private EventBus eventBus;
+    private BenchmarkSubscribers.LevelSubscriber subscriber;
+    private Object event;
+
+    @Setup
+    public void setUp() {
+        eventBus = EventBus.builder().eventInheritance(eventInheritance).logNoSubscriberMessages(false)
+                .sendNoSubscriberEvent(false).build();
+        subscriber = new BenchmarkSubscribers.LevelSubscriber();
+        eventBus.register(subscriber);
+        event = BenchmarkEvents.LEVELS[depth];
+    }
+
+    @Benchmark
+    public long post() {
+        eventBus.post(event);
+        return subscriber.received;
+    }
+}
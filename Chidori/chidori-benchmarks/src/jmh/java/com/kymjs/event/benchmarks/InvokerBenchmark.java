@@ -0,0 +1,89 @@
+package com.kymjs.event.benchmarks;
+
+import com.kymjs.event.EventBus;
+import com.kymjs.event.EventBusBuilder;
+import com.kymjs.event.MethodHandleInvokerFactory;
+import com.kymjs.event.SubscriberInvoker;
+import com.kymjs.event.SubscriberInvokerFactory;
+import com.kymjs.event.ThreadMode;
+import com.kymjs.event.meta.SubscriberInfo;
+import com.kymjs.event.meta.SubscriberInfoIndex;
+import com.kymjs.event.meta.SubscriberMethodInfo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每次送达的调用开销:reflection通过Method.invoke调用,methodHandle使用JVM上默认的
+ * MethodHandleInvokerFactory,index使用与chidori-processor生成的代码相同的直接调用。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class InvokerBenchmark {
+
+    @Param({"reflection", "methodHandle", "index"})
+    public String invoker;
+
+    private EventBus eventBus;
+    private final BenchmarkEvents.CountingEvent event = new BenchmarkEvents.CountingEvent();
+
+    @Setup
+    public void setUp() {
+        eventBus = newEventBus(invoker);
+        eventBus.register(new BenchmarkSubscribers.EventCountingSubscriber());
+    }
+
+    static EventBus newEventBus(String invoker) {
+        EventBusBuilder builder = EventBus.builder().logNoSubscriberMessages(false).sendNoSubscriberEvent(false);
+        if ("reflection".equals(invoker)) {
+            builder.subscriberInvokerFactory(new SubscriberInvokerFactory() {
+                @Override
+                public SubscriberInvoker create(Method method) {
+                    return null;
+                }
+            });
+        } else if ("methodHandle".equals(invoker)) {
+            builder.subscriberInvokerFactory(new MethodHandleInvokerFactory());
+        } else {
+            builder.addIndex(new Index());
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public long post() {
+        eventBus.post(event);
+        return event.count;
+    }
+
+    /**
+     * 与chidori-processor为EventCountingSubscriber生成的索引相同
+     */
+    static final class Index implements SubscriberInfoIndex {
+        private static final SubscriberInfo INFO = new SubscriberInfo(
+                BenchmarkSubscribers.EventCountingSubscriber.class,
+                new SubscriberMethodInfo("onEvent", BenchmarkEvents.CountingEvent.class, ThreadMode.PostThread,
+                        new SubscriberInvoker() {
+                            @Override
+                            public void invoke(Object subscriber, Object event) {
+                                ((BenchmarkSubscribers.EventCountingSubscriber) subscriber)
+                                        .onEvent((BenchmarkEvents.CountingEvent) event);
+                            }
+                        }));
+
+        @Override
+        public SubscriberInfo getSubscriberInfo(Class<?> subscriberClass) {
+            return subscriberClass == BenchmarkSubscribers.EventCountingSubscriber.class ? INFO : null;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.kymjs.event.benchmarks;
+
+import com.kymjs.event.EventBus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PostThread稳定状态下的post()。配合-PjmhProfilers=gc运行,gc.alloc.rate.norm应为0;
+ * 断言由checkPostAllocation任务({@link PostAllocationCheck})完成。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class PostAllocationBenchmark {
+
+    @Param({"reflection", "methodHandle", "index"})
+    public String invoker;
+
+    private EventBus eventBus;
+    private final BenchmarkEvents.CountingEvent event = new BenchmarkEvents.CountingEvent();
+
+    @Setup
+    public void setUp() {
+        eventBus = InvokerBenchmark.newEventBus(invoker);
+        eventBus.register(new BenchmarkSubscribers.EventCountingSubscriber());
+    }
+
+    @Benchmark
+    public long post() {
+        eventBus.post(event);
+        return event.count;
+    }
+}
@@ -0,0 +1,48 @@
+package com.kymjs.event.benchmarks;
+
+import com.kymjs.event.EventBus;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 断言PostThread稳定状态下的post()不分配内存,用HotSpot的线程分配计数测量,有分配时以非0状态退出。
+ * 反射调用时Method.invoke自身可能分配(参数数组),所以只断言MethodHandle和索引调用。
+ */
+public final class PostAllocationCheck {
+
+    private static final int WARMUP = 200000;
+    private static final int MEASURED = 1000000;
+
+    private PostAllocationCheck() {
+    }
+
+    public static void main(String[] args) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        boolean failed = false;
+        for (String invoker : new String[]{"index", "methodHandle", "reflection"}) {
+            EventBus eventBus = InvokerBenchmark.newEventBus(invoker);
+            eventBus.register(new BenchmarkSubscribers.EventCountingSubscriber());
+            BenchmarkEvents.CountingEvent event = new BenchmarkEvents.CountingEvent();
+            for (int i = 0; i < WARMUP; i++) {
+                eventBus.post(event);
+            }
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < MEASURED; i++) {
+                eventBus.post(event);
+            }
+            long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+            double perOp = (double) allocated / MEASURED;
+            System.out.println(invoker + ": " + perOp + " bytes/op");
+            // 允许测量本身的少量分配,但不能每次post都分配
+            if (!"reflection".equals(invoker) && perOp >= 1) {
+                failed = true;
+            }
+        }
+        if (failed) {
+            System.err.println("post() allocates in steady state");
+            System.exit(1);
+        }
+    }
+}
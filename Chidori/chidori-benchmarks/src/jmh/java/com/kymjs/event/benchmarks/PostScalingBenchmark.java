@@ -0,0 +1,70 @@
+package com.kymjs.event.benchmarks;
+
+import com.kymjs.event.EventBus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多个线程同时post到同一个总线上的PostThread订阅者,吞吐量应随线程数线性增长。
+ * 每个线程post自己的事件对象,订阅者只写事件本身,测试本身不产生共享写。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PostScalingBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Bus {
+        EventBus eventBus;
+
+        @Setup
+        public void setUp() {
+            eventBus = EventBus.builder().logNoSubscriberMessages(false).sendNoSubscriberEvent(false).build();
+            for (int i = 0; i < 4; i++) {
+                eventBus.register(new BenchmarkSubscribers.EventCountingSubscriber());
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class PerThread {
+        final BenchmarkEvents.CountingEvent event = new BenchmarkEvents.CountingEvent();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long threads1(Bus bus, PerThread state) {
+        return post(bus, state);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public long threads2(Bus bus, PerThread state) {
+        return post(bus, state);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long threads4(Bus bus, PerThread state) {
+        return post(bus, state);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long threads8(Bus bus, PerThread state) {
+        return post(bus, state);
+    }
+
+    private static long post(Bus bus, PerThread state) {
+        bus.eventBus.post(state.event);
+        return state.event.count;
+    }
+}
@@ -0,0 +1,100 @@
+package com.kymjs.event.benchmarks;
+
+import com.kymjs.event.EventBus;
+import com.kymjs.event.ThreadMode;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每种ThreadMode下post到一个订阅者的吞吐量,包括跨线程送达的时间;postAll一次发送同样多的事件。
+ * BackgroundThread只有从主线程发送时才会切换线程,所以这一项从主线程发送。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class PostThroughputBenchmark {
+
+    static final int BATCH = 1000;
+
+    @Param({"PostThread", "MainThread", "BackgroundThread", "Async"})
+    public String threadMode;
+
+    private EventBus eventBus;
+    private DeliveryCounter counter;
+    private Object subscriber;
+    private Runnable postBatch;
+    private Runnable postAllBatch;
+    private List<Object> events;
+    private final BenchmarkEvents.CountingEvent event = new BenchmarkEvents.CountingEvent();
+
+    @Setup
+    public void setUp() {
+        eventBus = EventBus.builder().mainThreadSupport(BenchmarkMainThread.LOOP).logNoSubscriberMessages(false)
+                .sendNoSubscriberEvent(false).build();
+        counter = new DeliveryCounter();
+        subscriber = BenchmarkSubscribers.forThreadMode(ThreadMode.valueOf(threadMode), counter);
+        eventBus.register(subscriber);
+        postBatch = new Runnable() {
+            @Override
+            public void run() {
+                postBatch();
+            }
+        };
+        events = new ArrayList<Object>(Collections.nCopies(BATCH, event));
+        postAllBatch = new Runnable() {
+            @Override
+            public void run() {
+                eventBus.postAll(events);
+            }
+        };
+    }
+
+    @TearDown
+    public void tearDown() {
+        eventBus.unregister(subscriber);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void post() {
+        long expected = counter.get() + BATCH;
+        if (subscriber instanceof BenchmarkSubscribers.BackgroundThreadSubscriber) {
+            BenchmarkMainThread.LOOP.execute(postBatch);
+        } else {
+            postBatch();
+        }
+        counter.awaitAtLeast(expected);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void postAll() {
+        long expected = counter.get() + BATCH;
+        if (subscriber instanceof BenchmarkSubscribers.BackgroundThreadSubscriber) {
+            BenchmarkMainThread.LOOP.execute(postAllBatch);
+        } else {
+            postAllBatch.run();
+        }
+        counter.awaitAtLeast(expected);
+    }
+
+    private void postBatch() {
+        for (int i = 0; i < BATCH; i++) {
+            eventBus.post(event);
+        }
+    }
+}
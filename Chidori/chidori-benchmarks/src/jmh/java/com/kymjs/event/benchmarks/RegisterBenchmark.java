@@ -0,0 +1,71 @@
+package com.kymjs.event.benchmarks;
+
+import com.kymjs.event.EventBus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 反复注册、解除注册一个订阅五个事件类型的订阅者,总线上已经有不同数量的同类订阅者;
+ * 以及一次注册、解除注册一批(30个)订阅者,逐个注册与registerAll对比
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class RegisterBenchmark {
+
+    @Param({"0", "100", "1000"})
+    public int registeredSubscribers;
+
+    private static final int BATCH_SIZE = 30;
+
+    private EventBus eventBus;
+    private final List<Object> batch = new ArrayList<Object>();
+
+    @Setup
+    public void setUp() {
+        eventBus = EventBus.builder().logNoSubscriberMessages(false).sendNoSubscriberEvent(false).build();
+        for (int i = 0; i < registeredSubscribers; i++) {
+            eventBus.register(new BenchmarkSubscribers.MultiEventSubscriber());
+        }
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(new BenchmarkSubscribers.MultiEventSubscriber());
+        }
+    }
+
+    @Benchmark
+    public Object registerUnregister() {
+        Object subscriber = new BenchmarkSubscribers.MultiEventSubscriber();
+        eventBus.register(subscriber);
+        eventBus.unregister(subscriber);
+        return subscriber;
+    }
+
+    @Benchmark
+    public Object registerUnregisterBatchOneByOne() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            eventBus.register(batch.get(i));
+        }
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            eventBus.unregister(batch.get(i));
+        }
+        return batch;
+    }
+
+    @Benchmark
+    public Object registerUnregisterBatch() {
+        eventBus.registerAll(batch);
+        eventBus.unregisterAll(batch);
+        return batch;
+    }
+}
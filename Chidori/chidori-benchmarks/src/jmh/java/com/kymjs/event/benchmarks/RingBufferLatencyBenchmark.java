@@ -0,0 +1,61 @@
+package com.kymjs.event.benchmarks;
+
+import com.kymjs.event.EventBus;
+import com.kymjs.event.EventBusBuilder;
+import com.kymjs.event.ThreadMode;
+import com.kymjs.event.WaitStrategy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BackgroundThread事件从post到订阅者开始响应的延迟分布,比较默认的发送队列(queue)和环形缓冲区的各种等待策略。
+ * 没有设置主线程,所有线程发送的BackgroundThread事件都会排队,直接从测试线程发送。
+ * 自旋的等待策略需要空闲的CPU核心,核心数不足时结果没有意义。
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class RingBufferLatencyBenchmark {
+
+    @Param({"queue", "BLOCKING", "YIELDING", "BUSY_SPIN"})
+    public String engine;
+
+    private EventBus eventBus;
+    private DeliveryCounter counter;
+    private Object subscriber;
+    private final BenchmarkEvents.CountingEvent event = new BenchmarkEvents.CountingEvent();
+
+    @Setup
+    public void setUp() {
+        EventBusBuilder builder = EventBus.builder().logNoSubscriberMessages(false).sendNoSubscriberEvent(false);
+        if (!"queue".equals(engine)) {
+            builder.backgroundThreadRingBuffer(1024, WaitStrategy.valueOf(engine));
+        }
+        eventBus = builder.build();
+        counter = new DeliveryCounter();
+        subscriber = BenchmarkSubscribers.forThreadMode(ThreadMode.BackgroundThread, counter);
+        eventBus.register(subscriber);
+    }
+
+    @TearDown
+    public void tearDown() {
+        eventBus.unregister(subscriber);
+    }
+
+    @Benchmark
+    public void handOff() {
+        long expected = counter.get() + 1;
+        eventBus.post(event);
+        counter.awaitAtLeast(expected);
+    }
+}
@@ -0,0 +1,49 @@
+package com.kymjs.event.benchmarks;
+
+import com.kymjs.event.EventBus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * registerSticky时重放已有的粘性事件。订阅者只订阅继承层级的根类型,
+ * 开启事件继承时每个粘性事件都会重放给它,关闭时只有根类型的一个。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class StickyReplayBenchmark {
+
+    @Param({"1", "5", "9"})
+    public int stickyEvents;
+
+    @Param({"true", "false"})
+    public boolean eventInheritance;
+
+    private EventBus eventBus;
+
+    @Setup
+    public void setUp() {
+        eventBus = EventBus.builder().eventInheritance(eventInheritance).logNoSubscriberMessages(false)
+                .sendNoSubscriberEvent(false).build();
+        for (int i = 0; i < stickyEvents; i++) {
+            eventBus.postSticky(BenchmarkEvents.LEVELS[i]);
+        }
+    }
+
+    @Benchmark
+    public long registerStickyUnregister() {
+        BenchmarkSubscribers.RootSubscriber subscriber = new BenchmarkSubscribers.RootSubscriber();
+        eventBus.registerSticky(subscriber);
+        eventBus.unregister(subscriber);
+        return subscriber.received;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2012 Markus Junginger, greenrobot (http://greenrobot.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kymjs.event;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Posts events in background.
+ * 
+ * @author Markus
+ */
+class AsyncPoster implements Runnable, Poster {
+
+    private final PendingPostQueue queue;
+    private final EventBus eventBus;
+
+    AsyncPoster(EventBus eventBus) {
+        this.eventBus = eventBus;
+        queue = eventBus.newPendingPostQueue(ThreadMode.Async);
+    }
+
+    @Override
+    public void enqueue(Subscription subscription, Object event) {
+        PendingPost pendingPost = eventBus.getPendingPostPool().obtain(subscription, event);
+        if (subscription.asyncLane != null) {
+            subscription.asyncLane.enqueue(pendingPost);
+            return;
+        }
+        queue.enqueue(pendingPost);
+        eventBus.getAsyncExecutorService().execute(this);
+    }
+
+    @Override
+    public void enqueueAll(PendingPost first, PendingPost last, int count) {
+        //限制了并发数的订阅交给自己的队列,其余的重新连成一串
+        PendingPost sharedFirst = null;
+        PendingPost sharedLast = null;
+        int sharedCount = 0;
+        PendingPost pendingPost = first;
+        while (pendingPost != null) {
+            //入队后可能马上被其他线程响应并回收,先取下一个
+            PendingPost next = pendingPost == last ? null : pendingPost.next;
+            Lane lane = pendingPost.subscription.asyncLane;
+            if (lane == null) {
+                if (sharedFirst == null) {
+                    sharedFirst = pendingPost;
+                } else {
+                    sharedLast.next = pendingPost;
+                }
+                sharedLast = pendingPost;
+                sharedCount++;
+            } else {
+                lane.enqueue(pendingPost);
+            }
+            pendingPost = next;
+        }
+        if (sharedCount == 0) {
+            return;
+        }
+        queue.enqueueAll(sharedFirst, sharedLast);
+        //每个任务取一个,并行响应
+        for (int i = 0; i < sharedCount; i++) {
+            eventBus.getAsyncExecutorService().execute(this);
+        }
+    }
+
+    @Override
+    public void run() {
+        PendingPost pendingPost;
+        // 入队无锁,但线程池中的多个线程会同时出队,而PendingPostQueue只允许一个消费者
+        synchronized (this) {
+            pendingPost = queue.poll();
+        }
+        if(pendingPost == null) {
+            if (queue.evictable) {
+                //对应的待发送对象已经被DROP_OLDEST丢弃
+                return;
+            }
+            throw new IllegalStateException("No pending post available");
+        }
+        eventBus.invokeSubscriber(pendingPost);
+    }
+
+    /**
+     * 限制了并发数的订阅自己的队列:同时最多maxConcurrency个任务在线程池中响应,
+     * 多出来的事件在这里排队,不占用线程池的线程
+     */
+    static final class Lane implements Runnable {
+        private final EventBus eventBus;
+        private final int maxConcurrency;
+        private final PendingPostQueue queue = new PendingPostQueue();
+        private final AtomicInteger running = new AtomicInteger(); //已经提交到线程池的任务数
+
+        Lane(EventBus eventBus, int maxConcurrency) {
+            this.eventBus = eventBus;
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        void enqueue(PendingPost pendingPost) {
+            queue.enqueue(pendingPost);
+            if (tryAcquire()) {
+                eventBus.getAsyncExecutorService().execute(this);
+            }
+        }
+
+        private boolean tryAcquire() {
+            while (true) {
+                int current = running.get();
+                if (current >= maxConcurrency) {
+                    return false;
+                }
+                if (running.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            boolean ownsSlot = true; //当前任务是否占用running的一个名额
+            try {
+                while (true) {
+                    PendingPost pendingPost;
+                    // 多个任务同时出队,而PendingPostQueue只允许一个消费者
+                    synchronized (this) {
+                        pendingPost = queue.poll();
+                    }
+                    if (pendingPost == null) {
+                        // Check again after releasing the slot, so an event enqueued while all
+                        // slots looked busy is picked up either here or by a new task
+                        running.decrementAndGet();
+                        ownsSlot = false;
+                        if (isEmpty() || !tryAcquire()) {
+                            return;
+                        }
+                        ownsSlot = true;
+                        continue;
+                    }
+                    eventBus.invokeSubscriber(pendingPost);
+                }
+            } finally {
+                if (ownsSlot) {
+                    //响应方法抛出异常(throwSubscriberException)时,剩下的事件交给新的任务
+                    running.decrementAndGet();
+                    if (!isEmpty() && tryAcquire()) {
+                        eventBus.getAsyncExecutorService().execute(this);
+                    }
+                }
+            }
+        }
+
+        private synchronized boolean isEmpty() {
+            return queue.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2012 Markus Junginger, greenrobot (http://greenrobot.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kymjs.event;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+/**
+ * Posts events in background.
+ *
+ * @author Markus
+ */
+final class BackgroundPoster implements Runnable, Poster {
+
+    private final PendingPostQueue queue;
+    private final EventBus eventBus;
+    private final long keepAliveNanos; //队列为空时挂起等待多久再结束任务、归还线程
+    //onEventBackgroundThreadBatch(List)方法的事件,只由执行run的线程访问
+    private final SubscriberBatches batches;
+
+    //入队时CAS抢到标记的线程负责把任务提交到线程池
+    private final AtomicBoolean executorRunning = new AtomicBoolean();
+
+    //统计:starts由抢到executorRunning的线程写,其余只由执行run的线程写
+    private volatile long starts;
+    private volatile long wakeUps;
+    private volatile long idleExits;
+    private volatile long idleNanos;
+    private volatile long events;
+
+    /**
+     * @param keepAliveNanos   队列为空时等待新事件的时间
+     * @param maxBatchSize     一次响应一批的方法每批最多多少个事件
+     * @param batchLingerNanos 一批中的第一个事件最多等待多久
+     */
+    BackgroundPoster(EventBus eventBus, long keepAliveNanos, int maxBatchSize, long
+            batchLingerNanos) {
+        this.eventBus = eventBus;
+        this.keepAliveNanos = keepAliveNanos;
+        queue = eventBus.newPendingPostQueue(ThreadMode.BackgroundThread);
+        batches = new SubscriberBatches(eventBus, maxBatchSize, batchLingerNanos);
+    }
+
+    @Override
+    public void enqueue(Subscription subscription, Object event) {
+        PendingPost pendingPost = eventBus.getPendingPostPool().obtain(subscription, event);
+        queue.enqueue(pendingPost);
+        if (executorRunning.compareAndSet(false, true)) {
+            starts++;
+            eventBus.getBackgroundExecutorService().execute(this);
+        }
+    }
+
+    @Override
+    public void enqueueAll(PendingPost first, PendingPost last, int count) {
+        queue.enqueueAll(first, last);
+        if (executorRunning.compareAndSet(false, true)) {
+            starts++;
+            eventBus.getBackgroundExecutorService().execute(this);
+        }
+    }
+
+    @Override
+    public void run() {
+        boolean ownsRunning = true; //当前线程是否持有executorRunning标记
+        try {
+            try {
+                while (true) {
+                    PendingPost pendingPost;
+                    if (batches.isEmpty()) {
+                        pendingPost = queue.poll();
+                        if (pendingPost == null && keepAliveNanos > 0) {
+                            //挂起等待,入队时unpark,不用归还再重新申请线程
+                            long idleStart = System.nanoTime();
+                            pendingPost = queue.poll(keepAliveNanos);
+                            idleNanos += System.nanoTime() - idleStart;
+                            if (pendingPost != null) {
+                                wakeUps++;
+                            }
+                        }
+                    } else {
+                        //有攒着的批次时最多等到最早的交付时间
+                        long wait = batches.nanosUntilDeadline(System.nanoTime());
+                        pendingPost = wait > 0 ? queue.poll(wait) : queue.poll();
+                        if (pendingPost == null) {
+                            batches.deliverDue(System.nanoTime());
+                            continue;
+                        }
+                    }
+                    if (pendingPost == null) {
+                        // Check again after clearing the flag, so a concurrent enqueue either
+                        // sees the flag cleared and resubmits, or is picked up here
+                        executorRunning.set(false);
+                        ownsRunning = false;
+                        if (queue.isEmpty() || !executorRunning.compareAndSet(false, true)) {
+                            idleExits++;
+                            return;
+                        }
+                        ownsRunning = true;
+                        continue;
+                    }
+                    events++;
+                    Subscription subscription = pendingPost.subscription;
+                    if (subscription.subscriberMethod.batch) {
+                        Object event = eventBus.takeEvent(pendingPost);
+                        if (event != null) {
+                            batches.add(subscription, event);
+                        }
+                    } else {
+                        eventBus.invokeSubscriber(pendingPost);
+                    }
+                    if (!batches.isEmpty()) {
+                        batches.deliverExpired(System.nanoTime());
+                    }
+                }
+            } catch (InterruptedException e) {
+                eventBus.getLogger().log(Level.WARNING, Thread.currentThread().getName() +
+                        " was interruppted", e);
+                batches.deliverAll();
+            }
+        } finally {
+            if (ownsRunning) {
+                executorRunning.set(false);
+            }
+        }
+    }
+
+    BackgroundPosterStats getStats() {
+        return new BackgroundPosterStats(keepAliveNanos, starts, wakeUps, idleExits, idleNanos,
+                events);
+    }
+}
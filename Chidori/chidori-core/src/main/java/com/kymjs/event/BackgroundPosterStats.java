@@ -0,0 +1,42 @@
+package com.kymjs.event;
+
+/**
+ * 后台发送器的统计信息,通过{@link EventBus#getBackgroundPosterStats()}获取。
+ * 队列为空时发送任务挂起等待新事件,超过保持时间后结束,把线程还给线程池。
+ */
+public final class BackgroundPosterStats {
+    /** 队列为空时等待新事件的时间(纳秒) */
+    public final long keepAliveNanos;
+
+    /** 向线程池提交发送任务的次数,每次都要申请一个线程 */
+    public final long starts;
+
+    /** 等待中被新事件唤醒、继续使用同一个线程的次数 */
+    public final long wakeUps;
+
+    /** 等待超过保持时间、结束任务的次数 */
+    public final long idleExits;
+
+    /** 等待新事件的总时间(纳秒) */
+    public final long idleNanos;
+
+    /** 取出的事件数 */
+    public final long events;
+
+    public BackgroundPosterStats(long keepAliveNanos, long starts, long wakeUps, long idleExits,
+                                 long idleNanos, long events) {
+        this.keepAliveNanos = keepAliveNanos;
+        this.starts = starts;
+        this.wakeUps = wakeUps;
+        this.idleExits = idleExits;
+        this.idleNanos = idleNanos;
+        this.events = events;
+    }
+
+    @Override
+    public String toString() {
+        return "BackgroundPosterStats{keepAliveNanos=" + keepAliveNanos + ", starts=" + starts +
+                ", wakeUps=" + wakeUps + ", idleExits=" + idleExits + ", idleNanos=" +
+                idleNanos + ", events=" + events + "}";
+    }
+}
@@ -0,0 +1,76 @@
+package com.kymjs.event;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 哪些订阅只保留最新的一个未送达事件,见{@link EventBusBuilder#conflateEvents(Class)}。
+ * 在注册时对每个订阅判断一次,发送事件时只检查{@link Subscription#conflating}。
+ */
+final class ConflationRules {
+
+    private final Set<Class<?>> eventTypes;
+    //订阅者类型 -> 事件类型
+    private final Map<Class<?>, Set<Class<?>>> eventTypesBySubscriberClass;
+
+    private ConflationRules(EventBusBuilder builder) {
+        eventTypes = builder.conflatedEventTypes != null ? new HashSet<Class<?>>(builder
+                .conflatedEventTypes) : null;
+        if (builder.conflatedEventTypesBySubscriberClass != null) {
+            eventTypesBySubscriberClass = new HashMap<Class<?>, Set<Class<?>>>();
+            for (Map.Entry<Class<?>, Set<Class<?>>> entry : builder
+                    .conflatedEventTypesBySubscriberClass.entrySet()) {
+                eventTypesBySubscriberClass.put(entry.getKey(), new HashSet<Class<?>>(entry
+                        .getValue()));
+            }
+        } else {
+            eventTypesBySubscriberClass = null;
+        }
+    }
+
+    /**
+     * @return 没有设置时返回null
+     */
+    static ConflationRules create(EventBusBuilder builder) {
+        if (builder.conflatedEventTypes == null && builder.conflatedEventTypesBySubscriberClass
+                == null) {
+            return null;
+        }
+        return new ConflationRules(builder);
+    }
+
+    /**
+     * @param subscriberClass 订阅者的类型
+     * @param eventType       响应方法的参数类型
+     */
+    boolean isConflating(Class<?> subscriberClass, Class<?> eventType) {
+        if (eventTypes != null && containsAny(eventTypes, eventType)) {
+            return true;
+        }
+        if (eventTypesBySubscriberClass != null) {
+            for (Class<?> clazz = subscriberClass; clazz != null; clazz = clazz.getSuperclass()) {
+                Set<Class<?>> types = eventTypesBySubscriberClass.get(clazz);
+                if (types != null && containsAny(types, eventType)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * eventType或者它的父类、接口是否在types中
+     */
+    private static boolean containsAny(Set<Class<?>> types, Class<?> eventType) {
+        List<Class<?>> eventTypes = EventBus.lookupAllEventTypes(eventType);
+        for (int i = 0, size = eventTypes.size(); i < size; i++) {
+            if (types.contains(eventTypes.get(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
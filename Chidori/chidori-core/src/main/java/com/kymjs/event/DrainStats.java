@@ -0,0 +1,44 @@
+package com.kymjs.event;
+
+/**
+ * 主线程发送器每轮分发的统计。只由分发线程写入,其他线程读取时可能看到不同字段之间不一致的快照。
+ */
+final class DrainStats {
+    private volatile long lastBudgetNanos;
+    private volatile long drains;
+    private volatile long events;
+    private volatile long yields;
+    private volatile long overruns;
+    private volatile long maxOverrunNanos;
+
+    /**
+     * 一轮分发结束时调用
+     *
+     * @param budgetNanos   这一轮的时间预算
+     * @param deadlineNanos 从开始算起的截止时间,超过时记为一次超时
+     * @param elapsedNanos  这一轮实际用的时间
+     * @param events        这一轮分发的事件数
+     * @param yielded       是否因为预算用完而让出线程
+     */
+    void record(long budgetNanos, long deadlineNanos, long elapsedNanos, int events, boolean
+            yielded) {
+        lastBudgetNanos = budgetNanos;
+        drains++;
+        this.events += events;
+        if (yielded) {
+            yields++;
+        }
+        long overrun = elapsedNanos - deadlineNanos;
+        if (overrun > 0) {
+            overruns++;
+            if (overrun > maxOverrunNanos) {
+                maxOverrunNanos = overrun;
+            }
+        }
+    }
+
+    MainThreadPosterStats snapshot(long frameIntervalNanos, boolean asyncMessages) {
+        return new MainThreadPosterStats(frameIntervalNanos, lastBudgetNanos, drains, events,
+                yields, overruns, maxOverrunNanos, asyncMessages);
+    }
+}
@@ -0,0 +1,1380 @@
+/*
+ * Copyright (C) 2012 Markus Junginger, greenrobot (http://greenrobot.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kymjs.event;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Level;
+
+/**
+ * EventBus is a central publish/subscribe event system for Android and plain Java. Events are posted
+ * ({@link #post(Object)}) to the
+ * bus, which delivers it to subscribers that have a matching handler method for the event type.
+ * To receive events,
+ * subscribers must register themselves to the bus using {@link #register(Object)}. Once registered,
+ * subscribers receive events until {@link #unregister(Object)} is called. By convention, event
+ * handling methods must
+ * be named "onEvent", be public, return nothing (void), and have exactly one parameter (the event).
+ *
+ * @author Markus Junginger, greenrobot
+ */
+public class EventBus {
+
+    /**
+     * Log tag, apps may override it.
+     */
+    public static String TAG = "Event";
+
+    static volatile EventBus defaultInstance;
+
+    private static final EventBusBuilder DEFAULT_BUILDER = new EventBusBuilder();
+
+    //key:事件类型,value:由事件的所有父类,父类的接口,父类接口的父类 组成的集合
+    private static final ConcurrentHashMap<Class<?>, List<Class<?>>> eventTypesCache = new
+            ConcurrentHashMap<Class<?>, List<Class<?>>>();
+
+    private static final Subscription[] NO_SUBSCRIPTIONS = new Subscription[0];
+    private static final int MAX_EXPUNGED_SUBSCRIBERS = 32; //每次最多移除多少个被回收的订阅者
+
+    // 以下集合只在持有this锁时修改,读取时不加锁(post、hasSubscriberForEvent、isRegistered)。
+    // 每个事件类型的订阅者集合都是不可变的数组,修改时整体替换(一批注册/解除注册每个类型只复制一次),
+    // 读者要么看到修改前的、要么看到修改后的完整数组,不会看到中间状态。
+    //key:订阅的事件,value:订阅这个事件的所有订阅者,按优先级排序
+    private final Map<Class<?>, Subscription[]> subscriptionsByEventType;
+    //当前订阅者订阅了哪些事件,按对象身份查找,不调用订阅者的hashCode()和equals()
+    //key:订阅者对象,value:这个订阅者订阅的事件类型
+    private final SubscriberRegistry typesBySubscriber;
+    //分发计划:key:具体的事件类型(event.getClass()),value:按优先级排好序的、会响应这个事件的全部订阅者,
+    //已经包含了父类和接口的订阅者。只在注册/解除注册时失效,post时一次查找即可
+    private final ConcurrentHashMap<Class<?>, Subscription[]> dispatchPlans;
+    //开启事件继承时分发计划的反向索引,只在同步代码块中访问:key:事件类型及其父类、接口,
+    //value:依赖这个类型的订阅的分发计划。计划被其他类型移除后留下的条目无害,重新生成时再放入
+    private final Map<Class<?>, Set<Class<?>>> dispatchPlansByType;
+    //分发计划每次失效时加一,postAll缓存的计划据此判断是否过期
+    private volatile int dispatchPlanVersion;
+
+    private final StickyEventStore stickyEvents;
+
+    //弱引用模式下被回收的订阅者进入这个队列,非弱引用模式下为null
+    private final ReferenceQueue<Object> collectedSubscribers;
+
+    private final ThreadLocal<PostingThreadState> currentPostingThreadState = new
+            ThreadLocal<PostingThreadState>() {
+                @Override
+                protected PostingThreadState initialValue() {
+                    return new PostingThreadState();
+                }
+            };
+
+    private final PendingPostPool pendingPostPool; //待发送对象复用池
+    private final PostQueueLimits postQueueLimits; //为null时发送队列不限制长度
+    private final ConflationRules conflationRules; //为null时所有排队的事件都会送达
+    private final boolean backgroundLanes; //后台事件是否按订阅者分车道
+    private final Map<Class<?>, Integer> asyncConcurrencyByType; //为null时Async订阅不限制并发数
+    private final MainThreadSupport mainThreadSupport; //为null时没有主线程,所有线程都当作主线程
+    private final Poster mainThreadPoster; //前台发送者
+    private final Poster backgroundPoster; //后台发送者,也可能是LanedBackgroundPoster或RingBufferPoster
+    //默认的后台发送者;分车道或使用环形缓冲区时只处理onEventBackgroundThreadBatch方法
+    private final BackgroundPoster sharedBackgroundPoster;
+    private final AsyncPoster asyncPoster;   //后台发送者(只让队列第一个待订阅者去响应)
+    private final SubscriberMethodFinder subscriberMethodFinder;  //订阅者方法查询
+    private final ExecutorService asyncExecutorService; //Async的线程池执行器,也可能使用虚拟线程
+    private final ExecutorService backgroundExecutorService; //BackgroundThread的线程池执行器
+    private final Logger logger;
+
+    //同EventBusBuilder中的属性
+    private final boolean throwSubscriberException;
+    private final boolean logSubscriberExceptions;
+    private final boolean logNoSubscriberMessages; //如果某个事件没有订阅者,是否显示一条log
+    private final boolean sendSubscriberExceptionEvent;
+    private final boolean sendNoSubscriberEvent; //如果某个事件没有订阅者,是否发送一个特定的事件
+    private final boolean eventInheritance;//event的子类是否也能响应订阅者
+
+    /**
+     * Convenience singleton for apps using a process-wide EventBus instance.
+     */
+    public static EventBus getDefault() {
+        return getDefault(DEFAULT_BUILDER);
+    }
+
+    /**
+     * 使用自定义的参数创建EventBus,例如添加编译期生成的订阅者索引
+     */
+    public static EventBusBuilder builder() {
+        return new EventBusBuilder();
+    }
+
+    //不给设置
+    public static EventBus getDefault(EventBusBuilder builder) {
+        if (defaultInstance == null) {
+            synchronized (EventBus.class) {
+                if (defaultInstance == null) {
+                    defaultInstance = new EventBus(builder);
+                }
+            }
+        }
+        return defaultInstance;
+    }
+
+    /**
+     * Creates a new EventBus instance; each instance is a separate scope in which events are
+     * delivered. To use a
+     * central bus, consider {@link #getDefault()}.
+     */
+    private EventBus() {
+        this(DEFAULT_BUILDER);
+    }
+
+    EventBus(EventBusBuilder builder) {
+        subscriptionsByEventType = new ConcurrentHashMap<Class<?>, Subscription[]>();
+        typesBySubscriber = new SubscriberRegistry();
+        collectedSubscribers = builder.weakSubscribers ? new ReferenceQueue<Object>() : null;
+        dispatchPlans = new ConcurrentHashMap<Class<?>, Subscription[]>();
+        dispatchPlansByType = new HashMap<Class<?>, Set<Class<?>>>();
+        logger = builder.getLogger();
+        stickyEvents = new StickyEventStore(builder, logger);
+        pendingPostPool = new PendingPostPool(builder.pendingPostPoolSize);
+        postQueueLimits = PostQueueLimits.create(builder, this);
+        conflationRules = ConflationRules.create(builder);
+        mainThreadSupport = builder.getMainThreadSupport();
+        if (mainThreadSupport instanceof MainThreadPosterFactory) {
+            mainThreadPoster = ((MainThreadPosterFactory) mainThreadSupport).createPoster(this);
+        } else {
+            mainThreadPoster = mainThreadSupport != null ? EventLoopPoster.create(this,
+                    mainThreadSupport) : null;
+        }
+        asyncConcurrencyByType = builder.asyncConcurrencyByType != null ? new HashMap<Class<?>,
+                Integer>(builder.asyncConcurrencyByType) : null;
+        if (asyncConcurrencyByType != null) {
+            checkNoDropOldest(builder, ThreadMode.Async, "concurrency limits");
+        }
+        sharedBackgroundPoster = new BackgroundPoster(this, builder.backgroundKeepAliveNanos,
+                builder.maxBackgroundBatchSize, builder.backgroundBatchLingerNanos);
+        backgroundLanes = builder.backgroundLaneThreads > 0;
+        if (backgroundLanes && builder.backgroundRingBufferSize > 0) {
+            throw new EventBusException("Background lanes and the ring buffer cannot be used " +
+                    "together");
+        }
+        if (backgroundLanes) {
+            checkNoDropOldest(builder, ThreadMode.BackgroundThread, "background lanes");
+            backgroundPoster = new LanedBackgroundPoster(this, sharedBackgroundPoster, builder
+                    .backgroundLaneThreads);
+        } else if (builder.backgroundRingBufferSize > 0) {
+            checkNoDropOldest(builder, ThreadMode.BackgroundThread, "a ring buffer");
+            QueueLimit limit = builder.postQueueLimitsByThreadMode != null ? builder
+                    .postQueueLimitsByThreadMode.get(ThreadMode.BackgroundThread) : null;
+            backgroundPoster = new RingBufferPoster(this, sharedBackgroundPoster, builder
+                    .backgroundRingBufferSize, builder.backgroundWaitStrategy, builder
+                    .backgroundKeepAliveNanos, limit != null ? limit.policy : OverflowPolicy
+                    .BLOCK);
+        } else {
+            backgroundPoster = sharedBackgroundPoster;
+        }
+        asyncPoster = new AsyncPoster(this);
+        subscriberMethodFinder = new SubscriberMethodFinder(builder
+                .skipMethodVerificationForClasses, builder.subscriberInfoIndexes, builder
+                .ignoreGeneratedIndex, builder.getSubscriberInvokerFactory(), logger);
+        logSubscriberExceptions = builder.logSubscriberExceptions;
+        logNoSubscriberMessages = builder.logNoSubscriberMessages;
+        sendSubscriberExceptionEvent = builder.sendSubscriberExceptionEvent;
+        sendNoSubscriberEvent = builder.sendNoSubscriberEvent;
+        throwSubscriberException = builder.throwSubscriberException;
+        eventInheritance = builder.eventInheritance;
+        ExecutorService virtualThreadExecutor = builder.virtualThreads ? VirtualThreads
+                .getExecutor() : null;
+        if (builder.virtualThreads && virtualThreadExecutor == null) {
+            logger.log(Level.INFO, "Virtual threads are not supported, using the executor service");
+        }
+        asyncExecutorService = virtualThreadExecutor != null ? virtualThreadExecutor : builder
+                .executorService;
+        backgroundExecutorService = virtualThreadExecutor != null && builder
+                .virtualBackgroundThreads ? virtualThreadExecutor : builder.executorService;
+    }
+
+    /**
+     * 分车道、限制并发数或使用环形缓冲区后,threadMode的事件不在同一个队列中,无法丢弃最早的事件
+     */
+    private static void checkNoDropOldest(EventBusBuilder builder, ThreadMode threadMode,
+                                          String feature) {
+        QueueLimit limit = builder.postQueueLimitsByThreadMode != null ? builder
+                .postQueueLimitsByThreadMode.get(threadMode) : null;
+        if (limit != null && limit.policy == OverflowPolicy.DROP_OLDEST) {
+            throw new EventBusException("DROP_OLDEST is not supported for " + threadMode +
+                    " with " + feature);
+        }
+    }
+
+    /**
+     * @return eventType的Async订阅最多同时响应多少个事件,0表示不限制
+     */
+    private int asyncConcurrencyFor(Class<?> eventType) {
+        // 离事件类型最近的父类或接口的设置优先
+        List<Class<?>> types = lookupAllEventTypes(eventType);
+        for (int i = 0, size = types.size(); i < size; i++) {
+            Integer maxConcurrency = asyncConcurrencyByType.get(types.get(i));
+            if (maxConcurrency != null) {
+                return maxConcurrency;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param subscriber 订阅者对象
+     */
+    public void register(Object subscriber) {
+        register(subscriber, false, 0);
+    }
+
+    /**
+     * @param subscriber 订阅者对象
+     * @param priority   优先级
+     */
+    public void register(Object subscriber, int priority) {
+        register(subscriber, false, priority);
+    }
+
+    /**
+     * @param subscriber 订阅者对象
+     */
+    public void registerSticky(Object subscriber) {
+        register(subscriber, true, 0);
+    }
+
+    /**
+     * @param subscriber 订阅者对象
+     * @param priority   优先级
+     */
+    public void registerSticky(Object subscriber, int priority) {
+        register(subscriber, true, priority);
+    }
+
+    /**
+     * 一次注册多个订阅者,例如RecyclerView的各个item。每个受影响的事件类型只复制一次订阅者数组,
+     * 分发计划也只失效一次;任一订阅者已经注册过时抛出异常,且不注册其中的任何一个。
+     *
+     * @param subscribers 订阅者对象
+     */
+    public void registerAll(Collection<?> subscribers) {
+        register(subscribers, false, 0);
+    }
+
+    /**
+     * @param subscribers 订阅者对象
+     * @param priority    优先级
+     * @see #registerAll(Collection)
+     */
+    public void registerAll(Collection<?> subscribers, int priority) {
+        register(subscribers, false, priority);
+    }
+
+    /**
+     * @param subscribers 订阅者对象
+     * @see #registerAll(Collection)
+     */
+    public void registerStickyAll(Collection<?> subscribers) {
+        register(subscribers, true, 0);
+    }
+
+    /**
+     * @param subscribers 订阅者对象
+     * @param priority    优先级
+     * @see #registerAll(Collection)
+     */
+    public void registerStickyAll(Collection<?> subscribers, int priority) {
+        register(subscribers, true, priority);
+    }
+
+    /**
+     * @param subscriber 订阅者对象
+     * @param sticky     是否有序
+     * @param priority   优先级
+     */
+    private void register(Object subscriber, boolean sticky, int priority) {
+        register(Collections.singletonList(subscriber), sticky, priority);
+    }
+
+    /**
+     * 先按事件类型收集所有新的订阅,检查通过后每个事件类型只生成一次新的订阅者数组
+     *
+     * @param subscribers 订阅者对象
+     * @param sticky      是否有序
+     * @param priority    优先级
+     */
+    private synchronized void register(Collection<?> subscribers, boolean sticky, int priority) {
+        //key:订阅的事件,value:这一批中订阅这个事件的订阅者,按注册顺序
+        Map<Class<?>, List<Subscription>> added = new LinkedHashMap<Class<?>,
+                List<Subscription>>();
+        List<Subscription> newSubscriptions = new ArrayList<Subscription>();
+        expungeCollectedSubscribers();
+        for (Object subscriber : subscribers) {
+            List<SubscriberMethod> subscriberMethods = subscriberMethodFinder
+                    .findSubscriberMethods(subscriber.getClass());
+            //弱引用模式下同一个订阅者的所有订阅共用一个引用
+            SubscriberReference reference = collectedSubscribers != null ? new
+                    SubscriberReference(subscriber, collectedSubscribers) : null;
+            LanedBackgroundPoster.Lane lane = null; //按订阅者分车道时同一个订阅者共用一条车道
+            for (SubscriberMethod subscriberMethod : subscriberMethods) {
+                //根据传入的响应方法名获取到响应事件(参数类型)
+                Class<?> eventType = subscriberMethod.eventType;
+                boolean laned = backgroundLanes && subscriberMethod.threadMode == ThreadMode
+                        .BackgroundThread && !subscriberMethod.batch;
+                if (laned && lane == null) {
+                    lane = new LanedBackgroundPoster.Lane();
+                }
+                int maxConcurrency = asyncConcurrencyByType != null && subscriberMethod
+                        .threadMode == ThreadMode.Async ? asyncConcurrencyFor(eventType) : 0;
+                Subscription newSubscription = new Subscription(subscriber, reference,
+                        subscriberMethod, priority, conflationRules != null && conflationRules
+                        .isConflating(subscriber.getClass(), eventType), laned ? lane : null,
+                        maxConcurrency > 0 ? new AsyncPoster.Lane(this, maxConcurrency) : null);
+                List<Subscription> addedForType = added.get(eventType);
+                if (addedForType == null) {
+                    addedForType = new ArrayList<Subscription>();
+                    added.put(eventType, addedForType);
+                }
+                if (addedForType.contains(newSubscription) || contains(subscriptionsByEventType
+                        .get(eventType), newSubscription)) {
+                    throw new EventBusException("Subscriber " + subscriber.getClass() + " " +
+                            "already registered to event " + eventType);
+                }
+                addedForType.add(newSubscription);
+                newSubscriptions.add(newSubscription);
+            }
+        }
+
+        //没个订阅者至少会订阅一个事件,多个订阅者可能订阅同一个事件(多对多)
+        for (Map.Entry<Class<?>, List<Subscription>> entry : added.entrySet()) {
+            Class<?> eventType = entry.getKey();
+            subscriptionsByEventType.put(eventType, insertByPriority(subscriptionsByEventType.get
+                    (eventType), entry.getValue()));
+        }
+        //当前订阅者订阅了哪些事件,同一个订阅者的订阅在newSubscriptions中是连续的
+        for (int start = 0, size = newSubscriptions.size(); start < size; ) {
+            Subscription first = newSubscriptions.get(start);
+            Object subscriber = first.getSubscriber();
+            int end = start + 1;
+            while (end < size && newSubscriptions.get(end).getSubscriber() == subscriber) {
+                end++;
+            }
+            Class<?>[] registeredTypes = typesBySubscriber.get(subscriber);
+            int offset = registeredTypes != null ? registeredTypes.length : 0;
+            Class<?>[] subscribedEvents = new Class<?>[offset + end - start];
+            if (offset > 0) {
+                System.arraycopy(registeredTypes, 0, subscribedEvents, 0, offset);
+            }
+            for (int i = start; i < end; i++) {
+                subscribedEvents[offset + i - start] = newSubscriptions.get(i).subscriberMethod
+                        .eventType;
+            }
+            typesBySubscriber.put(first.reference != null ? first.reference : subscriber,
+                    subscribedEvents);
+            start = end;
+        }
+        invalidateDispatchPlans(added.keySet());
+
+        if (sticky) {
+            for (int i = 0, size = newSubscriptions.size(); i < size; i++) {
+                Subscription newSubscription = newSubscriptions.get(i);
+                // 开启事件继承时,父类的订阅者也会收到子类的粘性事件;只查找匹配的类型,不遍历全部粘性事件
+                Class<?>[] stickyTypes = stickyEvents.getStickyTypes(newSubscription
+                        .subscriberMethod.eventType);
+                for (Class<?> stickyType : stickyTypes) {
+                    checkPostStickyEventToSubscription(newSubscription, stickyEvents.peek
+                            (stickyType));
+                }
+            }
+        }
+    }
+
+    private static boolean contains(Subscription[] subscriptions, Subscription subscription) {
+        if (subscriptions != null) {
+            for (Subscription existing : subscriptions) {
+                if (existing.equals(subscription)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 根据优先级把新的订阅插入到订阅者数组中,优先级相同时排在已有的订阅之后
+     *
+     * @param subscriptions 已有的订阅,可以为null
+     * @param added         新的订阅,按注册顺序
+     * @return 新的数组
+     */
+    private static Subscription[] insertByPriority(Subscription[] subscriptions,
+                                                   List<Subscription> added) {
+        int size = subscriptions != null ? subscriptions.length : 0;
+        Subscription[] result = new Subscription[size + added.size()];
+        if (size > 0) {
+            System.arraycopy(subscriptions, 0, result, 0, size);
+        }
+        for (int a = 0, count = added.size(); a < count; a++) {
+            Subscription newSubscription = added.get(a);
+            int i = size;
+            while (i > 0 && result[i - 1].priority < newSubscription.priority) {
+                result[i] = result[i - 1];
+                i--;
+            }
+            result[i] = newSubscription;
+            size++;
+        }
+        return result;
+    }
+
+    private void checkPostStickyEventToSubscription(Subscription newSubscription, Object
+            stickyEvent) {
+        if (stickyEvent != null) {
+            // If the subscriber is trying to abort the event, it will fail (event is not tracked
+            // in posting state)
+            // --> Strange corner case, which we don't take care of here.
+            postToSubscription(newSubscription, stickyEvent, isMainThread(), null);
+        }
+    }
+
+    /**
+     * 按对象身份(==)判断,不调用订阅者的equals()
+     */
+    public boolean isRegistered(Object subscriber) {
+        return typesBySubscriber.contains(subscriber);
+    }
+
+    /**
+     * Unregisters the given subscriber from all event classes.
+     */
+    public void unregister(Object subscriber) {
+        unregisterAll(Collections.singletonList(subscriber));
+    }
+
+    /**
+     * 一次解除注册多个订阅者,每个受影响的事件类型只复制一次订阅者数组,分发计划也只失效一次
+     *
+     * @param subscribers 订阅者对象
+     */
+    public synchronized void unregisterAll(Collection<?> subscribers) {
+        expungeCollectedSubscribers();
+        Map<Object, Boolean> removed = new IdentityHashMap<Object, Boolean>();
+        Set<Class<?>> eventTypes = new HashSet<Class<?>>();
+        for (Object subscriber : subscribers) {
+            //当subscriber对所有事件都不响应以后,移除订阅者
+            Class<?>[] subscribedTypes = typesBySubscriber.remove(subscriber);
+            if (subscribedTypes != null) {
+                removed.put(subscriber, Boolean.TRUE);
+                Collections.addAll(eventTypes, subscribedTypes);
+            } else {
+                logger.log(Level.WARNING, "Subscriber to unregister was not registered before: " +
+                        subscriber.getClass());
+            }
+        }
+        for (Class<?> eventType : eventTypes) {
+            //取消注册这些订阅者对eventType事件的响应
+            unsubscribeByEventType(removed, eventType);
+        }
+        invalidateDispatchPlans(eventTypes);
+    }
+
+    /**
+     * 移除已经被回收的弱引用订阅者的订阅。每个被回收的订阅者只处理它订阅的事件类型,不遍历整个注册表;
+     * 每次最多处理MAX_EXPUNGED_SUBSCRIBERS个,剩下的留到下一次。
+     * 在注册、解除注册以及分发时遇到已经被回收的订阅者时调用。
+     */
+    private void expungeCollectedSubscribers() {
+        if (collectedSubscribers == null) {
+            return;
+        }
+        Reference<?> reference = collectedSubscribers.poll();
+        if (reference == null) {
+            return;
+        }
+        synchronized (this) {
+            Map<Object, Boolean> removed = new IdentityHashMap<Object, Boolean>();
+            Set<Class<?>> eventTypes = new HashSet<Class<?>>();
+            for (int i = 0; reference != null; ) {
+                Class<?>[] subscribedTypes = typesBySubscriber.removeReference(
+                        (SubscriberReference) reference);
+                if (subscribedTypes != null) {
+                    removed.put(reference, Boolean.TRUE);
+                    Collections.addAll(eventTypes, subscribedTypes);
+                }
+                if (++i == MAX_EXPUNGED_SUBSCRIBERS) {
+                    break;
+                }
+                reference = collectedSubscribers.poll();
+            }
+            for (Class<?> eventType : eventTypes) {
+                unsubscribeByEventType(removed, eventType);
+            }
+            invalidateDispatchPlans(eventTypes);
+        }
+    }
+
+    /**
+     * 取消注册订阅者对参数eventType的响应,订阅者数组只复制一次
+     * 注:只更新subscriptionsByEventType，不更新typesBySubscriber和分发计划！调用者必须手动更新。
+     *
+     * @param subscribers 要移除的订阅者,或者已经被回收的订阅者的{@link SubscriberReference}
+     */
+    private void unsubscribeByEventType(Map<Object, Boolean> subscribers, Class<?> eventType) {
+        Subscription[] subscriptions = subscriptionsByEventType.get(eventType);
+        if (subscriptions == null) {
+            return;
+        }
+        Subscription[] retained = new Subscription[subscriptions.length];
+        int size = 0;
+        for (Subscription subscription : subscriptions) {
+            if (subscription.reference == null ? subscribers.containsKey(subscription
+                    .subscriber) : subscribers.containsKey(subscription.reference) || subscribers
+                    .containsKey(subscription.reference.get())) {
+                subscription.active = false;
+            } else {
+                retained[size++] = subscription;
+            }
+        }
+        if (size == 0) {
+            subscriptionsByEventType.remove(eventType);
+        } else if (size < subscriptions.length) {
+            subscriptionsByEventType.put(eventType, Arrays.copyOf(retained, size));
+        }
+    }
+
+    /**
+     * 移除所有会受eventTypes订阅变化影响的分发计划,下次post时重新生成。必须在同步代码块调用
+     */
+    private void invalidateDispatchPlans(Collection<Class<?>> eventTypes) {
+        boolean removed = false;
+        for (Class<?> eventType : eventTypes) {
+            if (!eventInheritance) {
+                removed |= dispatchPlans.remove(eventType) != null;
+                continue;
+            }
+            Set<Class<?>> eventClasses = dispatchPlansByType.remove(eventType);
+            if (eventClasses != null) {
+                for (Class<?> eventClass : eventClasses) {
+                    removed |= dispatchPlans.remove(eventClass) != null;
+                }
+            }
+        }
+        if (removed) {
+            // 先移除再加一,读到新版本号的线程一定取到新的计划
+            dispatchPlanVersion++;
+        }
+    }
+
+    /**
+     * 获取eventClass的分发计划,已缓存时无需加锁
+     *
+     * @param eventClass 具体的事件类型
+     * @return 按优先级排序的订阅者数组, 没有订阅者时返回空数组
+     */
+    private Subscription[] getDispatchPlan(Class<?> eventClass) {
+        Subscription[] plan = dispatchPlans.get(eventClass);
+        if (plan == null) {
+            // 与subscribe/unsubscribe互斥,避免把过期的计划放入缓存
+            synchronized (this) {
+                plan = dispatchPlans.get(eventClass);
+                if (plan == null) {
+                    plan = buildDispatchPlan(eventClass);
+                    if (eventInheritance) {
+                        indexDispatchPlan(eventClass);
+                    }
+                    dispatchPlans.put(eventClass, plan);
+                }
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * 记录eventClass的分发计划依赖它的所有父类和接口,其中任何一个的订阅变化时移除这个计划
+     */
+    private void indexDispatchPlan(Class<?> eventClass) {
+        List<Class<?>> eventTypes = lookupAllEventTypes(eventClass);
+        for (int i = 0, size = eventTypes.size(); i < size; i++) {
+            Class<?> eventType = eventTypes.get(i);
+            Set<Class<?>> eventClasses = dispatchPlansByType.get(eventType);
+            if (eventClasses == null) {
+                eventClasses = new HashSet<Class<?>>();
+                dispatchPlansByType.put(eventType, eventClasses);
+            }
+            eventClasses.add(eventClass);
+        }
+    }
+
+    /**
+     * postAll时每种事件类型只查找一次分发计划,注册或解除注册后重新查找
+     */
+    private Subscription[] getBatchDispatchPlan(Class<?> eventClass, PostingThreadState
+            postingState) {
+        // 先读版本号再取计划,中间失效的计划下次比较时会被丢弃
+        int version = dispatchPlanVersion;
+        if (version != postingState.planVersion) {
+            postingState.plans.clear();
+            postingState.planVersion = version;
+        }
+        Subscription[] plan = postingState.plans.get(eventClass);
+        if (plan == null) {
+            plan = getDispatchPlan(eventClass);
+            postingState.plans.put(eventClass, plan);
+        }
+        return plan;
+    }
+
+    /**
+     * 将eventClass及其父类、接口的订阅者合并为一个按优先级排序的数组,
+     * 优先级相同时保持原来的顺序(先子类后父类)
+     */
+    private Subscription[] buildDispatchPlan(Class<?> eventClass) {
+        List<Class<?>> eventTypes;
+        if (eventInheritance) {
+            eventTypes = lookupAllEventTypes(eventClass);
+        } else {
+            eventTypes = Collections.<Class<?>>singletonList(eventClass);
+        }
+        List<Subscription> plan = new ArrayList<Subscription>();
+        int countTypes = eventTypes.size();
+        for (int h = 0; h < countTypes; h++) {
+            Subscription[] subscriptions = subscriptionsByEventType.get(eventTypes.get(h));
+            if (subscriptions == null) {
+                continue;
+            }
+            for (Subscription subscription : subscriptions) {
+                int i = plan.size();
+                while (i > 0 && plan.get(i - 1).priority < subscription.priority) {
+                    i--;
+                }
+                plan.add(i, subscription);
+            }
+        }
+        return plan.isEmpty() ? NO_SUBSCRIPTIONS : plan.toArray(new Subscription[plan.size()]);
+    }
+
+    /**
+     * Posts the given event to the event bus.
+     */
+    public void post(Object event) {
+        PostingThreadState postingState = currentPostingThreadState.get();
+        postingState.enqueue(event);
+
+        if (!postingState.isPosting) {
+            postQueuedEvents(postingState, false);
+        }
+    }
+
+    /**
+     * 按顺序发送一批事件,与逐个post的结果相同,但是:每种事件类型只查找一次订阅者;
+     * 发送到MainThread、BackgroundThread、Async的事件在全部分发完以后一次交给对应的发送器,
+     * 每个发送器只唤醒一次。设置了发送队列上限时仍然逐个排队。
+     * <p>
+     * 在响应方法中调用时,这批事件排在当前事件之后发送。
+     */
+    public void postAll(Collection<?> events) {
+        PostingThreadState postingState = currentPostingThreadState.get();
+        for (Object event : events) {
+            postingState.enqueue(event);
+        }
+
+        if (!postingState.isPosting) {
+            postQueuedEvents(postingState, postQueueLimits == null);
+        }
+    }
+
+    /**
+     * 发送postingState中排队的事件,包括响应方法中再次post的事件
+     *
+     * @param batch 是否攒起来一次交给发送器
+     */
+    private void postQueuedEvents(PostingThreadState postingState, boolean batch) {
+        postingState.isMainThread = isMainThread();
+        postingState.isPosting = true;
+        if (postingState.canceled) {
+            throw new EventBusException("Internal error. Abort state was not reset");
+        }
+        if (batch) {
+            postingState.startBatch(dispatchPlanVersion);
+        }
+        try {
+            while (postingState.queueSize > 0) {
+                postSingleEvent(postingState.dequeue(), postingState);
+            }
+        } finally {
+            postingState.isPosting = false;
+            postingState.isMainThread = false;
+            if (batch) {
+                PendingPostChain[] batches = postingState.endBatch();
+                if (mainThreadPoster != null) {
+                    batches[ThreadMode.MainThread.ordinal()].flushTo(mainThreadPoster);
+                }
+                batches[ThreadMode.BackgroundThread.ordinal()].flushTo(backgroundPoster);
+                batches[ThreadMode.Async.ordinal()].flushTo(asyncPoster);
+            }
+        }
+    }
+
+    /**
+     * @deprecated 跨进程发送已经移到Android模块,改用{@code Chidori.getDefault().connect()}。
+     * 下一个版本删除
+     */
+    @Deprecated
+    public void connect(Class<?>... clazz) {
+        Platform.get().connectRemote(clazz);
+    }
+
+    /**
+     * @param event Parcelable的事件
+     * @deprecated 改用{@code Chidori.getDefault().postRemote()},下一个版本删除
+     */
+    @Deprecated
+    public void postRemote(String remotePkg, Object event) {
+        Platform.get().postRemote(remotePkg, event);
+    }
+
+    /**
+     * @deprecated 改用{@code Chidori.getDefault().postRemote()},下一个版本删除
+     */
+    @Deprecated
+    public void postRemote(String remotePkg, int event) {
+        Platform.get().postRemote(remotePkg, event);
+    }
+
+    /**
+     * @deprecated 改用{@code Chidori.getDefault().postRemote()},下一个版本删除
+     */
+    @Deprecated
+    public void postRemote(String remotePkg, double event) {
+        Platform.get().postRemote(remotePkg, event);
+    }
+
+    /**
+     * @deprecated 改用{@code Chidori.getDefault().postRemote()},下一个版本删除
+     */
+    @Deprecated
+    public void postRemote(String remotePkg, long event) {
+        Platform.get().postRemote(remotePkg, event);
+    }
+
+    /**
+     * @deprecated 改用{@code Chidori.getDefault().postRemote()},下一个版本删除
+     */
+    @Deprecated
+    public void postRemote(String remotePkg, char event) {
+        Platform.get().postRemote(remotePkg, event);
+    }
+
+    /**
+     * @deprecated 改用{@code Chidori.getDefault().postRemote()},下一个版本删除
+     */
+    @Deprecated
+    public void postRemote(String remotePkg, String event) {
+        Platform.get().postRemote(remotePkg, event);
+    }
+
+    /**
+     * Called from a subscriber's event handling method, further event delivery will be canceled.
+     * Subsequent
+     * subscribers
+     * won't receive the event. Events are usually canceled by higher priority subscribers (see
+     * {@link #register(Object, int)}). Canceling is restricted to event handling methods running
+     * in posting thread
+     * {@link ThreadMode#PostThread}.
+     */
+    public void cancelEventDelivery(Object event) {
+        PostingThreadState postingState = currentPostingThreadState.get();
+        if (!postingState.isPosting) {
+            throw new EventBusException(
+                    "This method may only be called from inside event handling methods on the " +
+                            "posting thread");
+        } else if (event == null) {
+            throw new EventBusException("Event may not be null");
+        } else if (postingState.event != event) {
+            throw new EventBusException("Only the currently handled event may be aborted");
+        } else if (postingState.subscription.subscriberMethod.threadMode != ThreadMode.PostThread) {
+            throw new EventBusException(" event handlers may only abort the incoming event");
+        }
+
+        postingState.canceled = true;
+    }
+
+    /**
+     * Posts the given event to the event bus and holds on to the event (because it is sticky).
+     * The most recent sticky
+     * event of an event's type is kept in memory for future access. This can be
+     * {@link #registerSticky(Object)} or
+     * {@link #getStickyEvent(Class)}.
+     */
+    public void postSticky(Object event) {
+        stickyEvents.put(event);
+        // Should be posted after it is putted, in case the subscriber wants to remove immediately
+        post(event);
+    }
+
+    /**
+     * 先保存全部粘性事件(同一类型保留最后一个),再通过{@link #postAll(Collection)}发送
+     */
+    public void postStickyAll(Collection<?> events) {
+        stickyEvents.putAll(events);
+        postAll(events);
+    }
+
+    /**
+     * Gets the most recent sticky event for the given type.
+     *
+     * @see #postSticky(Object)
+     */
+    public <T> T getStickyEvent(Class<T> eventType) {
+        return eventType.cast(stickyEvents.get(eventType));
+    }
+
+    /**
+     * Remove and gets the recent sticky event for the given event type.
+     *
+     * @see #postSticky(Object)
+     */
+    public <T> T removeStickyEvent(Class<T> eventType) {
+        return eventType.cast(stickyEvents.remove(eventType));
+    }
+
+    /**
+     * Removes the sticky event if it equals to the given event.
+     *
+     * @return true if the events matched and the sticky event was removed.
+     */
+    public boolean removeStickyEvent(Object event) {
+        return stickyEvents.remove(event);
+    }
+
+    /**
+     * Removes all sticky events.
+     */
+    public void removeAllStickyEvents() {
+        stickyEvents.clear();
+    }
+
+    /**
+     * 粘性事件的数量、估算大小、命中、移除统计
+     */
+    public StickyEventStats getStickyEventStats() {
+        return stickyEvents.getStats();
+    }
+
+    /**
+     * 是否有订阅者订阅了eventClass或它的父类、接口(与eventInheritance设置无关)。
+     * 不加锁,也不会为eventClass创建分发计划
+     */
+    public boolean hasSubscriberForEvent(Class<?> eventClass) {
+        List<Class<?>> eventTypes = lookupAllEventTypes(eventClass);
+        for (int h = 0, countTypes = eventTypes.size(); h < countTypes; h++) {
+            Subscription[] subscriptions = subscriptionsByEventType.get(eventTypes.get(h));
+            if (subscriptions != null && subscriptions.length > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 测试用:eventType事件当前的订阅,没有订阅时返回null
+     */
+    Subscription[] getSubscriptionsByEventType(Class<?> eventType) {
+        return subscriptionsByEventType.get(eventType);
+    }
+
+    /**
+     * 测试用:已经缓存的分发计划,不会创建新的计划
+     */
+    Subscription[] getCachedDispatchPlan(Class<?> eventClass) {
+        return dispatchPlans.get(eventClass);
+    }
+
+    /**
+     * 测试用:分发计划的版本号,每次有缓存的计划失效时加一
+     */
+    int getDispatchPlanVersion() {
+        return dispatchPlanVersion;
+    }
+
+    /**
+     * 测试用:注册表中的订阅者数量,包括已经被回收但还没有移除的弱引用订阅者
+     */
+    synchronized int getRegisteredSubscriberCount() {
+        return typesBySubscriber.size();
+    }
+
+    /**
+     * 发送一次事件
+     *
+     * @param event
+     * @param postingState
+     * @throws Error
+     */
+    private void postSingleEvent(Object event, PostingThreadState postingState) throws Error {
+        Class<?> eventClass = event.getClass();
+        //一次查找得到全部订阅者(已包含父类和接口的订阅者)
+        Subscription[] subscriptions;
+        if (postingState.batches != null) {
+            subscriptions = getBatchDispatchPlan(eventClass, postingState);
+        } else {
+            subscriptions = getDispatchPlan(eventClass);
+        }
+        int count = subscriptions.length;
+        if (count == 1) {
+            //只有一个订阅者时无需循环,也不用关心是否被取消
+            postToSubscription(subscriptions[0], event, postingState);
+        } else if (count > 1) {
+            for (int i = 0; i < count; i++) {
+                //被高优先级的订阅者取消后,后续订阅者不再响应
+                if (postToSubscription(subscriptions[i], event, postingState)) {
+                    break;
+                }
+            }
+        } else {
+            if (logNoSubscriberMessages) {
+                logger.log(Level.FINE, "No subscribers registered for event " + eventClass);
+            }
+
+            //参考sendNoSubscriberEvent注释
+            if (sendNoSubscriberEvent && eventClass != NoSubscriberEvent.class &&
+                    eventClass != SubscriberExceptionEvent.class) {
+                post(new NoSubscriberEvent(this, event));
+            }
+        }
+    }
+
+    /**
+     * 在postingState中记录当前响应的订阅者,并回调订阅者的响应方法
+     *
+     * @param subscription 订阅者对象的封装
+     * @param event        要响应的事件
+     * @param postingState 事件发送过程所需数据的封装
+     * @return 如果订阅者取消了事件的继续分发, 返回true
+     */
+    private boolean postToSubscription(Subscription subscription, Object event,
+                                       PostingThreadState postingState) {
+        postingState.event = event;
+        postingState.subscription = subscription;
+        try {
+            postToSubscription(subscription, event, postingState.isMainThread, postingState
+                    .batches);
+            return postingState.canceled;
+        } finally {
+            postingState.event = null;
+            postingState.subscription = null;
+            postingState.canceled = false;
+        }
+    }
+
+    /**
+     * 回调订阅者的响应方法
+     *
+     * @param subscription 订阅者对象的封装
+     * @param event        要响应的事件
+     * @param isMainThread 是否在UI线程中
+     * @param batches      postAll时按ThreadMode攒起来的待发送对象,否则为null
+     */
+    private void postToSubscription(Subscription subscription, Object event, boolean isMainThread,
+                                    PendingPostChain[] batches) {
+        switch (subscription.subscriberMethod.threadMode) {
+            case PostThread:
+                //直接调用响应方法
+                invokeSubscriber(subscription, event);
+                break;
+            case MainThread:
+                //如果是主线程则直接调用响应事件,否则使用handle去在主线程响应事件
+                if (isMainThread) {
+                    invokeSubscriber(subscription, event);
+                } else {
+                    enqueue(mainThreadPoster, ThreadMode.MainThread, subscription, event, batches);
+                }
+                break;
+            case BackgroundThread:
+                //如果要求是在后台线程回调,后台线程使用相应的线程;一次响应一批的方法总是排队
+                if (isMainThread || subscription.subscriberMethod.batch) {
+                    enqueue(backgroundPoster, ThreadMode.BackgroundThread, subscription, event,
+                            batches);
+                } else {
+                    invokeSubscriber(subscription, event);
+                }
+                break;
+            case Async:
+                enqueue(asyncPoster, ThreadMode.Async, subscription, event, batches);
+                break;
+            default:
+                throw new IllegalStateException("Unknown thread mode: " + subscription
+                        .subscriberMethod.threadMode);
+        }
+    }
+
+    /**
+     * 把事件交给发送器排队。conflating的订阅已经有未送达的事件时直接替换它,不再排队
+     *
+     * @param threadMode 发送器对应的ThreadMode,用于发送队列的上限
+     * @param batches    不为null时先攒起来,postAll结束时再交给发送器
+     */
+    private void enqueue(Poster poster, ThreadMode threadMode, Subscription subscription,
+                         Object event, PendingPostChain[] batches) {
+        if (!subscription.conflating) {
+            if (batches != null) {
+                //postAll只在发送队列没有上限时攒起来
+                batches[threadMode.ordinal()].add(pendingPostPool.obtain(subscription, event));
+            } else if (postQueueLimits == null || postQueueLimits.acquire(threadMode, event)) {
+                poster.enqueue(subscription, event);
+            }
+            return;
+        }
+        if (subscription.offerConflatedEvent(event) != null) {
+            return;
+        }
+        //排队一个占位事件,出队时取最新的事件;占位事件只占用ThreadMode的位置
+        boolean enqueued = false;
+        try {
+            if (postQueueLimits == null || postQueueLimits.acquire(threadMode, null)) {
+                poster.enqueue(subscription, Subscription.CONFLATED);
+                enqueued = true;
+            }
+        } finally {
+            if (!enqueued) {
+                subscription.takeConflatedEvent();
+            }
+        }
+    }
+
+    /**
+     * 将参数eventClass的所有父类,父类的接口,父类接口的父类,全部添加到eventTypesCache集合中
+     */
+    static List<Class<?>> lookupAllEventTypes(Class<?> eventClass) {
+        List<Class<?>> eventTypes = eventTypesCache.get(eventClass);
+        if (eventTypes == null) {
+            eventTypes = new ArrayList<Class<?>>();
+            Class<?> clazz = eventClass;
+
+            //通过循环,将父类,父类的接口,父类接口的父类,全部添加到eventTypes集合中
+            while (clazz != null) {
+                eventTypes.add(clazz);
+                addInterfaces(eventTypes, clazz.getInterfaces());
+                clazz = clazz.getSuperclass();
+            }
+
+            //并发时可能重复计算,结果相同,以先放入的为准
+            List<Class<?>> existing = eventTypesCache.putIfAbsent(eventClass, eventTypes);
+            if (existing != null) {
+                eventTypes = existing;
+            }
+        }
+        return eventTypes;
+    }
+
+    /**
+     * 通过递归,将所有interfaces以及其父类接口添加到eventTypes中
+     *
+     * @param eventTypes 容纳接口集合
+     * @param interfaces 要遍历的接口
+     */
+    static void addInterfaces(List<Class<?>> eventTypes, Class<?>[] interfaces) {
+        for (Class<?> interfaceClass : interfaces) {
+            // 只要当前接口没有被添加,就添加到集合中,并再次查找当前接口的父类接口
+            if (!eventTypes.contains(interfaceClass)) {
+                eventTypes.add(interfaceClass);
+                addInterfaces(eventTypes, interfaceClass.getInterfaces());
+            }
+        }
+    }
+
+    /**
+     * Invokes the subscriber if the subscriptions is still active. Skipping subscriptions
+     * prevents race conditions between {@link #unregister(Object)} and event delivery.
+     * Otherwise the event might be delivered after the subscriber unregistered.
+     * This is particularly important for main thread delivery and
+     * registrations bound to the live cycle of an Activity or Fragment.
+     */
+    void invokeSubscriber(PendingPost pendingPost) {
+        Subscription subscription = pendingPost.subscription;
+        Object event = takeEvent(pendingPost);
+        if (event != null && subscription.active) {
+            invokeQueuedSubscriber(subscription, event);
+        }
+    }
+
+    /**
+     * 发送器在自己的线程中响应排队的事件。有BLOCK策略的上限时标记当前线程,
+     * 响应方法中发送事件时队列已满也不等待,见{@link #isDeliveringQueuedEvent()}
+     */
+    void invokeQueuedSubscriber(Subscription subscription, Object event) {
+        if (postQueueLimits == null || !postQueueLimits.blocking) {
+            invokeSubscriber(subscription, event);
+            return;
+        }
+        PostingThreadState postingState = currentPostingThreadState.get();
+        boolean wasDelivering = postingState.isDeliveringQueued;
+        postingState.isDeliveringQueued = true;
+        try {
+            invokeSubscriber(subscription, event);
+        } finally {
+            postingState.isDeliveringQueued = wasDelivering;
+        }
+    }
+
+    /**
+     * 当前线程是否是发送器响应排队事件的线程。这个线程等待队列中的空位可能是在等待自己取出事件
+     */
+    boolean isDeliveringQueuedEvent() {
+        return currentPostingThreadState.get().isDeliveringQueued;
+    }
+
+    /**
+     * 出队以后调用:回收待发送对象、释放发送队列的位置
+     *
+     * @return 要分发的事件,conflating的订阅已经没有未送达的事件时返回null
+     */
+    Object takeEvent(PendingPost pendingPost) {
+        Object event = pendingPost.event;
+        Subscription subscription = pendingPost.subscription;
+        pendingPostPool.release(pendingPost);
+        return takeEvent(subscription, event);
+    }
+
+    /**
+     * 不使用待发送对象排队的发送器({@link RingBufferPoster})取出事件以后调用:释放发送队列的位置
+     *
+     * @return 要分发的事件,conflating的订阅已经没有未送达的事件时返回null
+     */
+    Object takeEvent(Subscription subscription, Object event) {
+        boolean conflated = event == Subscription.CONFLATED;
+        if (postQueueLimits != null) {
+            postQueueLimits.release(subscription.subscriberMethod.threadMode, conflated ? null :
+                    event);
+        }
+        if (conflated) {
+            //取出最新的事件,之后发送的事件重新排队
+            event = subscription.takeConflatedEvent();
+        }
+        return event;
+    }
+
+    /**
+     * 调用订阅者中的回调方法去响应事件
+     *
+     * @param subscription 订阅者封装类的对象
+     * @param event        要响应的事件
+     */
+    void invokeSubscriber(Subscription subscription, Object event) {
+        Object subscriber = subscription.getSubscriber();
+        if (subscriber == null) {
+            //弱引用的订阅者已经被回收,丢弃事件(包括已经排队的),并移除它的订阅
+            expungeCollectedSubscribers();
+            return;
+        }
+        try {
+            //通过查找响应方法时绑定的调用器调用订阅者的响应方法,并传递参数event
+            subscription.subscriberMethod.invoker.invoke(subscriber, event);
+        } catch (Throwable e) {
+            handleSubscriberException(subscriber, event, e);
+        }
+    }
+
+    private void handleSubscriberException(Object subscriber, Object event, Throwable cause) {
+        if (event instanceof SubscriberExceptionEvent) {
+            if (logSubscriberExceptions) {
+                // Don't send another SubscriberExceptionEvent to avoid infinite event recursion,
+                // just log
+                logger.log(Level.SEVERE, "SubscriberExceptionEvent subscriber " + subscriber
+                        .getClass() + " threw an exception", cause);
+                SubscriberExceptionEvent exEvent = (SubscriberExceptionEvent) event;
+                logger.log(Level.SEVERE, "Initial event " + exEvent.causingEvent + " caused " +
+                        "exception in " + exEvent.causingSubscriber, exEvent.throwable);
+            }
+        } else {
+            if (throwSubscriberException) {
+                throw new EventBusException("Invoking subscriber failed", cause);
+            }
+            if (logSubscriberExceptions) {
+                logger.log(Level.SEVERE, "Could not dispatch event: " + event.getClass() + " to " +
+                        "subscribing class " + subscriber.getClass(), cause);
+            }
+            if (sendSubscriberExceptionEvent) {
+                SubscriberExceptionEvent exEvent = new SubscriberExceptionEvent(this, cause, event,
+                        subscriber);
+                post(exEvent);
+            }
+        }
+    }
+
+    /**
+     * 事件发送过程所需数据的封装
+     */
+    final static class PostingThreadState {
+        //待发送的事件(在响应方法中再次post时排队),环形数组,容量够用以后post不再分配内存
+        Object[] eventQueue = new Object[8];
+        int queueHead;
+        int queueSize;
+        boolean isPosting;
+        boolean isMainThread;
+        boolean isDeliveringQueued; //正在发送器的线程中响应排队的事件
+        Subscription subscription;
+        Object event;
+        boolean canceled;
+        //postAll时按ThreadMode攒起来的待发送对象,以及已经查找过的分发计划
+        PendingPostChain[] batches;
+        private PendingPostChain[] batchChains;
+        Map<Class<?>, Subscription[]> plans;
+        int planVersion;
+
+        void startBatch(int version) {
+            if (batchChains == null) {
+                plans = new IdentityHashMap<Class<?>, Subscription[]>();
+                batchChains = new PendingPostChain[ThreadMode.values().length];
+                for (int i = 0; i < batchChains.length; i++) {
+                    batchChains[i] = new PendingPostChain();
+                }
+            }
+            batches = batchChains;
+            planVersion = version;
+        }
+
+        PendingPostChain[] endBatch() {
+            PendingPostChain[] result = batches;
+            batches = null;
+            plans.clear();
+            return result;
+        }
+
+        void enqueue(Object event) {
+            if (queueSize == eventQueue.length) {
+                //已满,按顺序复制到两倍大小的数组中
+                Object[] newQueue = new Object[eventQueue.length << 1];
+                int firstPart = eventQueue.length - queueHead;
+                System.arraycopy(eventQueue, queueHead, newQueue, 0, firstPart);
+                System.arraycopy(eventQueue, 0, newQueue, firstPart, queueHead);
+                eventQueue = newQueue;
+                queueHead = 0;
+            }
+            eventQueue[(queueHead + queueSize) & (eventQueue.length - 1)] = event;
+            queueSize++;
+        }
+
+        Object dequeue() {
+            Object event = eventQueue[queueHead];
+            eventQueue[queueHead] = null;
+            queueHead = (queueHead + 1) & (eventQueue.length - 1);
+            queueSize--;
+            return event;
+        }
+    }
+
+    /**
+     * AsyncPoster使用的执行器
+     */
+    ExecutorService getAsyncExecutorService() {
+        return asyncExecutorService;
+    }
+
+    /**
+     * BackgroundThread的各种发送器使用的执行器
+     */
+    ExecutorService getBackgroundExecutorService() {
+        return backgroundExecutorService;
+    }
+
+    /**
+     * 没有主线程(普通JVM上没有设置{@link MainThreadSupport})时,所有线程都当作主线程
+     */
+    private boolean isMainThread() {
+        return mainThreadSupport == null || mainThreadSupport.isMainThread();
+    }
+
+    /**
+     * EventBus输出日志使用的Logger,也可以用于输出与EventBus相关的日志
+     */
+    public Logger getLogger() {
+        return logger;
+    }
+
+    PendingPostPool getPendingPostPool() {
+        return pendingPostPool;
+    }
+
+    /**
+     * 创建threadMode的发送器使用的队列,设置了DROP_OLDEST时队列支持从发送线程中丢弃最早的事件
+     */
+    PendingPostQueue newPendingPostQueue(ThreadMode threadMode) {
+        return postQueueLimits != null ? postQueueLimits.newQueue(threadMode) : new
+                PendingPostQueue();
+    }
+
+    /**
+     * threadMode的发送队列的统计,没有设置上限时返回null。
+     * 使用环形缓冲区而BackgroundThread没有设置上限时,返回缓冲区槽位的统计
+     */
+    public PostQueueStats getPostQueueStats(ThreadMode threadMode) {
+        PostQueueStats stats = postQueueLimits != null ? postQueueLimits.getStats(threadMode) :
+                null;
+        if (stats == null && threadMode == ThreadMode.BackgroundThread && backgroundPoster
+                instanceof RingBufferPoster) {
+            stats = ((RingBufferPoster) backgroundPoster).getStats();
+        }
+        return stats;
+    }
+
+    /**
+     * 按事件类型设置的排队上限的统计,eventType必须是设置时使用的类型,没有设置时返回null
+     */
+    public PostQueueStats getPostQueueStats(Class<?> eventType) {
+        return postQueueLimits != null ? postQueueLimits.getStats(eventType) : null;
+    }
+
+    /**
+     * 待发送对象复用池的命中统计
+     */
+    public PendingPostPoolStats getPendingPostPoolStats() {
+        return pendingPostPool.getStats();
+    }
+
+    /**
+     * 默认的后台发送器申请线程、空闲等待的统计。分车道或使用环形缓冲区时只包括
+     * onEventBackgroundThreadBatch方法的事件
+     */
+    public BackgroundPosterStats getBackgroundPosterStats() {
+        return sharedBackgroundPoster.getStats();
+    }
+
+    /**
+     * 主线程发送器每轮分发的预算和超时统计,没有主线程或者发送器不支持时返回null
+     */
+    public MainThreadPosterStats getMainThreadPosterStats() {
+        return mainThreadPoster instanceof MainThreadPoster ? ((MainThreadPoster)
+                mainThreadPoster).getStats() : null;
+    }
+
+    // Just an idea: we could provide a callback to post() to be notified, an alternative would 
+    // be events, of course...
+    /* public */interface PostCallback {
+        void onPostCompleted(List<SubscriberExceptionEvent> exceptionEvents);
+    }
+}
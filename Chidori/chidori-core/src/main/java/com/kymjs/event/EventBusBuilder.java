@@ -0,0 +1,510 @@
+/*
+ * Copyright (C) 2014 Markus Junginger, greenrobot (http://greenrobot.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kymjs.event;
+
+import com.kymjs.event.meta.SubscriberInfoIndex;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 使用自定义的参数创建EventBus实例,也可以使用默认的build()创建实例
+ */
+public class EventBusBuilder {
+    private final static ExecutorService DEFAULT_EXECUTOR_SERVICE = Executors.newCachedThreadPool();
+    private final static int DEFAULT_PENDING_POST_POOL_SIZE = 1000;
+    private final static int DEFAULT_MAX_BACKGROUND_BATCH_SIZE = 100;
+    private final static long DEFAULT_BACKGROUND_KEEP_ALIVE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    boolean logSubscriberExceptions = true;//监听异常日志
+    boolean logNoSubscriberMessages = true; //如果没有订阅者,显示一个Log
+    boolean sendSubscriberExceptionEvent = true; //发送监听到异常事件
+    boolean sendNoSubscriberEvent = true; //如果没有订阅者,发送一条默认事件
+    boolean throwSubscriberException; //如果失败则抛出异常
+    boolean eventInheritance = true; //event的子类是否也能响应订阅者
+    ExecutorService executorService = DEFAULT_EXECUTOR_SERVICE;
+    List<Class<?>> skipMethodVerificationForClasses;
+    List<SubscriberInfoIndex> subscriberInfoIndexes; //编译期生成的订阅者索引
+    boolean ignoreGeneratedIndex; //忽略订阅者索引,全部使用反射查找
+    SubscriberInvokerFactory subscriberInvokerFactory; //为索引之外的响应方法创建调用器
+    int pendingPostPoolSize = DEFAULT_PENDING_POST_POOL_SIZE; //待发送对象复用池的大小
+    MainThreadSupport mainThreadSupport; //为null时使用运行平台的主线程
+    Logger logger; //为null时使用运行平台的默认Logger
+    Map<Class<?>, Long> stickyEventTtls; //粘性事件按类型的存活时间(纳秒)
+    int maxStickyEvents; //最多保存的粘性事件数,0表示不限制
+    long maxStickyEventBytes; //粘性事件估算的总大小上限,0表示不限制
+    StickyEventSizeEstimator stickyEventSizeEstimator;
+    File stickyEventFile; //为null时粘性事件只保存在内存中
+    boolean weakSubscribers; //只弱引用订阅者
+    StickyEventCodec stickyEventCodec;
+    Map<ThreadMode, QueueLimit> postQueueLimitsByThreadMode; //为null时发送队列不限制长度
+    Map<Class<?>, QueueLimit> postQueueLimitsByType;
+    Set<Class<?>> conflatedEventTypes; //只保留最新一个未送达事件的事件类型
+    Map<Class<?>, Set<Class<?>>> conflatedEventTypesBySubscriberClass;
+    long backgroundKeepAliveNanos = DEFAULT_BACKGROUND_KEEP_ALIVE_NANOS; //后台发送任务空闲多久后归还线程
+    int maxBackgroundBatchSize = DEFAULT_MAX_BACKGROUND_BATCH_SIZE; //onEventBackgroundThreadBatch每批最多事件数
+    long backgroundBatchLingerNanos; //一批中第一个事件最多等待多久,0表示队列暂时为空就交付
+    int backgroundLaneThreads; //大于0时BackgroundThread的事件按订阅者分车道,最多用这么多个线程
+    Map<Class<?>, Integer> asyncConcurrencyByType; //Async订阅最多同时响应多少个事件
+    int backgroundRingBufferSize; //大于0时BackgroundThread的事件使用环形缓冲区发送
+    WaitStrategy backgroundWaitStrategy;
+    boolean virtualThreads; //支持时Async在虚拟线程中响应
+    boolean virtualBackgroundThreads; //支持时BackgroundThread也在虚拟线程中响应
+
+    EventBusBuilder() {
+    }
+
+    /**
+     * Default: true
+     */
+    public EventBusBuilder logSubscriberExceptions(boolean logSubscriberExceptions) {
+        this.logSubscriberExceptions = logSubscriberExceptions;
+        return this;
+    }
+
+    /**
+     * Default: true
+     */
+    public EventBusBuilder logNoSubscriberMessages(boolean logNoSubscriberMessages) {
+        this.logNoSubscriberMessages = logNoSubscriberMessages;
+        return this;
+    }
+
+    /**
+     * Default: true
+     */
+    public EventBusBuilder sendSubscriberExceptionEvent(boolean sendSubscriberExceptionEvent) {
+        this.sendSubscriberExceptionEvent = sendSubscriberExceptionEvent;
+        return this;
+    }
+
+    /**
+     * Default: true
+     */
+    public EventBusBuilder sendNoSubscriberEvent(boolean sendNoSubscriberEvent) {
+        this.sendNoSubscriberEvent = sendNoSubscriberEvent;
+        return this;
+    }
+
+    /**
+     * Fails if an subscriber throws an exception (default: false).
+     * Tip:建议与BuildConfig.DEBUG配合使用,用于调试模式时显示崩溃日志。
+     */
+    public EventBusBuilder throwSubscriberException(boolean throwSubscriberException) {
+        this.throwSubscriberException = throwSubscriberException;
+        return this;
+    }
+
+    /**
+     * 事件继承 event类型的子类也能响应订阅者
+     */
+    public EventBusBuilder eventInheritance(boolean eventInheritance) {
+        this.eventInheritance = eventInheritance;
+        return this;
+    }
+
+
+    /**
+     * Provide a custom thread pool to EventBus used for async and background event delivery.
+     * This is an advanced setting to that can break things: ensure the given ExecutorService 
+     * won't get stuck to
+     * avoid undefined behavior.
+     */
+    public EventBusBuilder executorService(ExecutorService executorService) {
+        this.executorService = executorService;
+        return this;
+    }
+
+    /**
+     * 在支持虚拟线程的JVM(Java 21+)上,Async的事件在虚拟线程中响应:仍然每个事件一个任务并行响应,
+     * 阻塞I/O的响应方法不再占用线程池的线程,不需要设置线程数。
+     * includeBackgroundThread为true时BackgroundThread的发送任务也运行在虚拟线程中,仍然串行响应。
+     * 运行时检测,Android等不支持的平台继续使用{@link #executorService(ExecutorService)}。默认不使用。
+     */
+    public EventBusBuilder virtualThreads(boolean includeBackgroundThread) {
+        this.virtualThreads = true;
+        this.virtualBackgroundThreads = includeBackgroundThread;
+        return this;
+    }
+
+    /**
+     * Method name verification is done for methods starting with onEvent to avoid typos; using
+     * this method you can exclude subscriber classes from this check.
+     * Also disables checks for method modifiers
+     * (public, not static nor
+     * abstract).
+     */
+    public EventBusBuilder skipMethodVerificationFor(Class<?> clazz) {
+        if (skipMethodVerificationForClasses == null) {
+            skipMethodVerificationForClasses = new ArrayList<Class<?>>();
+        }
+        skipMethodVerificationForClasses.add(clazz);
+        return this;
+    }
+
+    /**
+     * 添加一个由chidori-processor在编译期生成的订阅者索引。索引中的订阅者类注册时不再反射查找响应方法,
+     * 事件分发时也直接调用响应方法;索引中没有的类仍然使用反射。
+     */
+    public EventBusBuilder addIndex(SubscriberInfoIndex index) {
+        if (subscriberInfoIndexes == null) {
+            subscriberInfoIndexes = new ArrayList<SubscriberInfoIndex>();
+        }
+        subscriberInfoIndexes.add(index);
+        return this;
+    }
+
+    /**
+     * 强制使用反射查找响应方法,即使添加了订阅者索引 (default: false)
+     */
+    public EventBusBuilder ignoreGeneratedIndex(boolean ignoreGeneratedIndex) {
+        this.ignoreGeneratedIndex = ignoreGeneratedIndex;
+        return this;
+    }
+
+    /**
+     * 为订阅者索引没有覆盖到的响应方法创建调用器,例如在JVM上使用MethodHandle代替反射。
+     * 调用器在查找响应方法时创建一次,之后每个事件都直接使用。
+     * 默认在支持的JVM上使用{@link MethodHandleInvokerFactory},Android上使用
+     * {@link java.lang.reflect.Method#invoke(Object, Object...)}。
+     */
+    public EventBusBuilder subscriberInvokerFactory(SubscriberInvokerFactory factory) {
+        this.subscriberInvokerFactory = factory;
+        return this;
+    }
+
+    /**
+     * 复用的待发送对象(MainThread、BackgroundThread、Async事件排队时使用)最多保存多少个,
+     * 为0时不复用 (default: 1000)。
+     * 命中情况可以通过{@link EventBus#getPendingPostPoolStats()}查看。
+     */
+    public EventBusBuilder pendingPostPoolSize(int pendingPostPoolSize) {
+        if (pendingPostPoolSize < 0) {
+            throw new IllegalArgumentException("Pool size must not be negative: " +
+                    pendingPostPoolSize);
+        }
+        this.pendingPostPoolSize = pendingPostPoolSize;
+        return this;
+    }
+
+    /**
+     * 设置主线程,MainThread模式的响应方法在这个线程中执行。默认Android上是主线程的Looper;
+     * 普通JVM上没有主线程,MainThread模式在发送事件的线程中响应,可以设置一个{@link EventLoop}。
+     */
+    public EventBusBuilder mainThreadSupport(MainThreadSupport mainThreadSupport) {
+        this.mainThreadSupport = mainThreadSupport;
+        return this;
+    }
+
+    /**
+     * 设置输出日志的Logger。默认Android上使用android.util.Log,普通JVM上使用java.util.logging。
+     */
+    public EventBusBuilder logger(Logger logger) {
+        this.logger = logger;
+        return this;
+    }
+
+    /**
+     * 设置eventType及其子类的粘性事件的存活时间,超时后getStickyEvent和registerSticky都不再返回。
+     * 子类单独设置时以离事件类型最近的设置为准,设置Object.class即为所有粘性事件的默认存活时间。
+     * 默认不过期。
+     */
+    public EventBusBuilder stickyEventTtl(Class<?> eventType, long ttl, TimeUnit unit) {
+        if (ttl <= 0) {
+            throw new IllegalArgumentException("TTL must be positive: " + ttl);
+        }
+        if (stickyEventTtls == null) {
+            stickyEventTtls = new HashMap<Class<?>, Long>();
+        }
+        stickyEventTtls.put(eventType, unit.toNanos(ttl));
+        return this;
+    }
+
+    /**
+     * 最多保存多少个粘性事件(每个类型一个),超出时移除最久没有被读取的事件。默认不限制。
+     */
+    public EventBusBuilder maxStickyEvents(int maxStickyEvents) {
+        if (maxStickyEvents < 0) {
+            throw new IllegalArgumentException("Max sticky events must not be negative: " +
+                    maxStickyEvents);
+        }
+        this.maxStickyEvents = maxStickyEvents;
+        return this;
+    }
+
+    /**
+     * 粘性事件估算的总大小上限,超出时移除最久没有被读取的事件,需要同时设置
+     * {@link #stickyEventSizeEstimator(StickyEventSizeEstimator)}。默认不限制。
+     */
+    public EventBusBuilder maxStickyEventBytes(long maxStickyEventBytes) {
+        if (maxStickyEventBytes < 0) {
+            throw new IllegalArgumentException("Max sticky event bytes must not be negative: " +
+                    maxStickyEventBytes);
+        }
+        this.maxStickyEventBytes = maxStickyEventBytes;
+        return this;
+    }
+
+    /**
+     * 估算粘性事件的大小,用于{@link #maxStickyEventBytes(long)}和
+     * {@link EventBus#getStickyEventStats()}
+     */
+    public EventBusBuilder stickyEventSizeEstimator(StickyEventSizeEstimator estimator) {
+        this.stickyEventSizeEstimator = estimator;
+        return this;
+    }
+
+    /**
+     * 把codec支持的粘性事件保存到file中,进程重启后创建EventBus时恢复,getStickyEvent和registerSticky
+     * 立即可以使用。启动时只读取记录头,事件在第一次读取时才解码;写入在后台线程中进行,
+     * 所以postSticky以后不应该再修改事件对象。存活时间从最初postSticky时开始计算。
+     * <p>
+     * 每个EventBus需要使用单独的文件,多进程时每个进程也需要使用单独的文件。
+     *
+     * @param codec 例如{@link SerializableStickyEventCodec}
+     */
+    public EventBusBuilder persistStickyEvents(File file, StickyEventCodec codec) {
+        if (file == null || codec == null) {
+            throw new IllegalArgumentException("File and codec must not be null");
+        }
+        this.stickyEventFile = file;
+        this.stickyEventCodec = codec;
+        return this;
+    }
+
+    /**
+     * 只弱引用订阅者,忘记unregister的Activity等不会因为EventBus而泄漏 (default: false)。
+     * 订阅者被回收后,它的订阅在之后注册、解除注册或者分发到它时移除,已经排队的事件直接丢弃。
+     * <p>
+     * 开启后订阅者必须由调用者自己强引用,例如匿名内部类订阅者如果没有其他引用会被立即回收。
+     */
+    public EventBusBuilder weakSubscribers(boolean weakSubscribers) {
+        this.weakSubscribers = weakSubscribers;
+        return this;
+    }
+
+    /**
+     * threadMode的发送队列最多排队多少个事件(每个订阅者一个),超出时按policy处理,
+     * 用于防止持续快速发送时排队的事件耗尽内存。默认不限制。
+     * 丢弃和等待的次数可以通过{@link EventBus#getPostQueueStats(ThreadMode)}查看。
+     *
+     * @param threadMode MainThread、BackgroundThread或Async,PostThread的事件不排队
+     */
+    public EventBusBuilder postQueueCapacity(ThreadMode threadMode, int capacity, OverflowPolicy
+            policy) {
+        if (threadMode == ThreadMode.PostThread) {
+            throw new IllegalArgumentException("PostThread events are never queued");
+        }
+        checkPostQueueCapacity(capacity, policy);
+        if (postQueueLimitsByThreadMode == null) {
+            postQueueLimitsByThreadMode = new HashMap<ThreadMode, QueueLimit>();
+        }
+        postQueueLimitsByThreadMode.put(threadMode, new QueueLimit(threadMode.name(), capacity,
+                policy));
+        return this;
+    }
+
+    /**
+     * 所有发送队列中eventType及其子类的事件最多排队多少个,超出时按policy处理;
+     * 子类单独设置时以离事件类型最近的设置为准。可以和按ThreadMode的上限同时使用,默认不限制。
+     *
+     * @param policy 不支持{@link OverflowPolicy#DROP_OLDEST}
+     */
+    public EventBusBuilder postQueueCapacity(Class<?> eventType, int capacity, OverflowPolicy
+            policy) {
+        checkPostQueueCapacity(capacity, policy);
+        if (policy == OverflowPolicy.DROP_OLDEST) {
+            throw new IllegalArgumentException("DROP_OLDEST is only supported per ThreadMode");
+        }
+        if (postQueueLimitsByType == null) {
+            postQueueLimitsByType = new HashMap<Class<?>, QueueLimit>();
+        }
+        postQueueLimitsByType.put(eventType, new QueueLimit(eventType.getName(), capacity,
+                policy));
+        return this;
+    }
+
+    private static void checkPostQueueCapacity(int capacity, OverflowPolicy policy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("Policy must not be null");
+        }
+    }
+
+    /**
+     * 订阅eventType及其子类的MainThread、BackgroundThread、Async响应方法只保留最新的一个未送达事件:
+     * 排队的事件还没有送达时,新发送的事件直接替换它,不再排队。适用于进度、位置、状态等只关心最新值的事件。
+     * 订阅eventType父类的响应方法不受影响。
+     */
+    public EventBusBuilder conflateEvents(Class<?> eventType) {
+        if (conflatedEventTypes == null) {
+            conflatedEventTypes = new HashSet<Class<?>>();
+        }
+        conflatedEventTypes.add(eventType);
+        return this;
+    }
+
+    /**
+     * 同{@link #conflateEvents(Class)},只用于subscriberClass及其子类的订阅者
+     */
+    public EventBusBuilder conflateEvents(Class<?> subscriberClass, Class<?> eventType) {
+        if (conflatedEventTypesBySubscriberClass == null) {
+            conflatedEventTypesBySubscriberClass = new HashMap<Class<?>, Set<Class<?>>>();
+        }
+        Set<Class<?>> eventTypes = conflatedEventTypesBySubscriberClass.get(subscriberClass);
+        if (eventTypes == null) {
+            eventTypes = new HashSet<Class<?>>();
+            conflatedEventTypesBySubscriberClass.put(subscriberClass, eventTypes);
+        }
+        eventTypes.add(eventType);
+        return this;
+    }
+
+    /**
+     * BackgroundThread的发送任务在队列为空后挂起等待新事件多久,期间发送的事件直接唤醒它,不用重新申请线程;
+     * 超过这个时间后结束任务,把线程还给线程池。突发的事件之间间隔较长时可以调大,
+     * 线程资源紧张时可以调小,0表示队列为空立即结束。环形缓冲区的消费任务同样适用。默认1秒。
+     *
+     * @see EventBus#getBackgroundPosterStats()
+     */
+    public EventBusBuilder backgroundThreadKeepAlive(long keepAlive, TimeUnit unit) {
+        if (keepAlive < 0) {
+            throw new IllegalArgumentException("Keep-alive must not be negative: " + keepAlive);
+        }
+        this.backgroundKeepAliveNanos = unit.toNanos(keepAlive);
+        return this;
+    }
+
+    /**
+     * 设置onEventBackgroundThreadBatch(List)方法每批最多多少个事件,以及一批中的第一个事件最多等待多久。
+     * 默认每批最多100个,不等待:后台线程把队列中已有的事件取完就交付。
+     */
+    public EventBusBuilder backgroundThreadBatch(int maxBatchSize, long maxLinger, TimeUnit unit) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + maxBatchSize);
+        }
+        if (maxLinger < 0) {
+            throw new IllegalArgumentException("Linger must not be negative: " + maxLinger);
+        }
+        this.maxBackgroundBatchSize = maxBatchSize;
+        this.backgroundBatchLingerNanos = unit.toNanos(maxLinger);
+        return this;
+    }
+
+    /**
+     * BackgroundThread的事件按订阅者分车道:同一个订阅者的事件仍按顺序响应,不同订阅者在线程池中
+     * 最多maxThreads个线程上并行,一个慢的订阅者不再拖慢其他订阅者。
+     * onEventBackgroundThreadBatch(List)方法仍然共用一个后台线程;不能与BackgroundThread的
+     * {@link OverflowPolicy#DROP_OLDEST}同时使用。默认所有订阅者共用一个后台线程。
+     */
+    public EventBusBuilder backgroundThreadLanes(int maxThreads) {
+        if (maxThreads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive: " + maxThreads);
+        }
+        this.backgroundLaneThreads = maxThreads;
+        return this;
+    }
+
+    /**
+     * 订阅eventType及其子类的每个onEventAsync方法最多同时响应多少个事件,多出来的事件在这个订阅自己的
+     * 队列中等待,不占用线程池,一个繁忙的订阅者不会耗尽整个进程的线程。
+     * 子类单独设置时以离事件类型最近的设置为准,设置Object.class即为所有Async订阅的默认并发数;
+     * 不能与Async的{@link OverflowPolicy#DROP_OLDEST}同时使用。默认不限制。
+     */
+    public EventBusBuilder maxAsyncConcurrency(Class<?> eventType, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency must be positive: " + maxConcurrency);
+        }
+        if (asyncConcurrencyByType == null) {
+            asyncConcurrencyByType = new HashMap<Class<?>, Integer>();
+        }
+        asyncConcurrencyByType.put(eventType, maxConcurrency);
+        return this;
+    }
+
+    /**
+     * BackgroundThread的事件改用预先分配的环形缓冲区发送:发送线程认领槽位写入事件,不创建对象,
+     * 消费线程按waitStrategy等待新事件,交接延迟更低。缓冲区满时按
+     * {@link #postQueueCapacity(ThreadMode, int, OverflowPolicy)}为BackgroundThread设置的策略处理
+     * (上限不超过缓冲区大小),默认发送线程等待;消费线程自己发送的事件不占用缓冲区,仍然按顺序由它响应。
+     * onEventBackgroundThreadBatch(List)方法不受影响;不能与{@link #backgroundThreadLanes(int)}
+     * 以及BackgroundThread的{@link OverflowPolicy#DROP_OLDEST}同时使用。默认不使用。
+     *
+     * @param bufferSize 槽位数,必须是2的幂
+     */
+    public EventBusBuilder backgroundThreadRingBuffer(int bufferSize, WaitStrategy waitStrategy) {
+        if (bufferSize <= 0 || (bufferSize & (bufferSize - 1)) != 0) {
+            throw new IllegalArgumentException("Buffer size must be a power of 2: " + bufferSize);
+        }
+        if (waitStrategy == null) {
+            throw new IllegalArgumentException("Wait strategy must not be null");
+        }
+        this.backgroundRingBufferSize = bufferSize;
+        this.backgroundWaitStrategy = waitStrategy;
+        return this;
+    }
+
+    MainThreadSupport getMainThreadSupport() {
+        return mainThreadSupport != null ? mainThreadSupport : Platform.get().getMainThreadSupport();
+    }
+
+    Logger getLogger() {
+        return logger != null ? logger : Platform.get().getLogger();
+    }
+
+    SubscriberInvokerFactory getSubscriberInvokerFactory() {
+        return subscriberInvokerFactory != null ? subscriberInvokerFactory : Platform.get()
+                .getSubscriberInvokerFactory();
+    }
+
+    /**
+     * 根据参数创建对象,并赋值给EventBus.defaultInstance, 必须在默认的eventbus对象使用以前调用
+     *
+     * @throws EventBusException if there's already a default EventBus instance in place
+     */
+    public EventBus installDefaultEventBus() {
+        synchronized (EventBus.class) {
+            if (EventBus.defaultInstance != null) {
+                throw new EventBusException("Default instance already exists." +
+                        " It may be only set once before it's used the first time to ensure " +
+                        "consistent behavior.");
+            }
+            EventBus.defaultInstance = build();
+            return EventBus.defaultInstance;
+        }
+    }
+
+    /**
+     * 根据参数创建对象
+     */
+    public EventBus build() {
+        if (maxStickyEventBytes > 0 && stickyEventSizeEstimator == null) {
+            throw new EventBusException("maxStickyEventBytes requires a StickyEventSizeEstimator");
+        }
+        return new EventBus(this);
+    }
+
+}
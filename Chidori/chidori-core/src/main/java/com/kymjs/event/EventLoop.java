@@ -0,0 +1,68 @@
+package com.kymjs.event;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 普通JVM上的主线程:一个按顺序执行任务的线程,相当于Android主线程的Looper。
+ * 设置给{@link EventBusBuilder#mainThreadSupport(MainThreadSupport)}后,
+ * MainThread模式的响应方法都在这个线程中执行;其他任务也可以通过{@link #execute(Runnable)}放到这个线程中。
+ * <p>
+ * 线程是守护线程,不会阻止JVM退出,不再使用时调用{@link #shutdown()}。
+ */
+public final class EventLoop implements MainThreadSupport, MainThreadPosterFactory, Executor {
+
+    private final ThreadPoolExecutor executor;
+    private volatile Thread thread;
+
+    public EventLoop(final String name) {
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, name);
+                t.setDaemon(true);
+                thread = t;
+                return t;
+            }
+        });
+        executor.prestartAllCoreThreads();
+    }
+
+    /**
+     * 在事件循环的线程中执行任务
+     */
+    @Override
+    public void execute(Runnable command) {
+        executor.execute(command);
+    }
+
+    @Override
+    public boolean isMainThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    @Override
+    public void post(Runnable runnable) {
+        execute(runnable);
+    }
+
+    @Override
+    public MainThreadPoster createPoster(EventBus eventBus) {
+        return new EventLoopPoster(eventBus, this, EventLoopPoster.MAX_MILLIS_INSIDE_DRAIN);
+    }
+
+    public Thread getThread() {
+        return thread;
+    }
+
+    /**
+     * 执行完已经提交的任务后结束线程
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
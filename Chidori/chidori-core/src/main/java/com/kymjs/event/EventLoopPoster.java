@@ -0,0 +1,105 @@
+package com.kymjs.event;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 把事件交给{@link EventLoop}或其他{@link MainThreadSupport}的线程响应:
+ * 队列中有事件时只提交一个任务,任务连续分发超过maxMillisInsideDrain毫秒后重新提交自己,让出线程。
+ * 没有屏幕刷新,预算是固定的;超过预算一半以上才结束的一轮记为超时。
+ */
+final class EventLoopPoster implements MainThreadPoster, Runnable {
+
+    //一次最多连续分发多少毫秒,超过后让出线程给其他任务
+    static final int MAX_MILLIS_INSIDE_DRAIN = 10;
+
+    private final PendingPostQueue queue;
+    private final EventBus eventBus;
+    private final Executor executor;
+    private final long maxNanosInsideDrain;
+    //入队时CAS抢到标记的线程负责提交任务
+    private final AtomicBoolean drainActive = new AtomicBoolean();
+    private final DrainStats stats = new DrainStats();
+
+    EventLoopPoster(EventBus eventBus, Executor executor, int maxMillisInsideDrain) {
+        this.eventBus = eventBus;
+        this.executor = executor;
+        this.maxNanosInsideDrain = maxMillisInsideDrain * 1000000L;
+        queue = eventBus.newPendingPostQueue(ThreadMode.MainThread);
+    }
+
+    /**
+     * 通过{@link MainThreadSupport#post(Runnable)}提交任务
+     */
+    static EventLoopPoster create(EventBus eventBus, final MainThreadSupport mainThreadSupport) {
+        return new EventLoopPoster(eventBus, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                mainThreadSupport.post(command);
+            }
+        }, MAX_MILLIS_INSIDE_DRAIN);
+    }
+
+    @Override
+    public void enqueue(Subscription subscription, Object event) {
+        PendingPost pendingPost = eventBus.getPendingPostPool().obtain(subscription, event);
+        queue.enqueue(pendingPost);
+        if (drainActive.compareAndSet(false, true)) {
+            executor.execute(this);
+        }
+    }
+
+    @Override
+    public void enqueueAll(PendingPost first, PendingPost last, int count) {
+        queue.enqueueAll(first, last);
+        if (drainActive.compareAndSet(false, true)) {
+            executor.execute(this);
+        }
+    }
+
+    @Override
+    public void run() {
+        boolean ownsActive = true; //本次run是否持有drainActive标记
+        long started = System.nanoTime();
+        int delivered = 0;
+        try {
+            while (true) {
+                PendingPost pendingPost = queue.poll();
+                if (pendingPost == null) {
+                    // 先清除标记再检查一次队列,清除之后入队的对象由入队线程重新提交
+                    drainActive.set(false);
+                    ownsActive = false;
+                    if (queue.isEmpty() || !drainActive.compareAndSet(false, true)) {
+                        record(started, delivered, false);
+                        return;
+                    }
+                    ownsActive = true;
+                    continue;
+                }
+                eventBus.invokeSubscriber(pendingPost);
+                delivered++;
+                if (System.nanoTime() - started >= maxNanosInsideDrain) {
+                    record(started, delivered, true);
+                    //标记交给重新提交的任务
+                    ownsActive = false;
+                    executor.execute(this);
+                    return;
+                }
+            }
+        } finally {
+            if (ownsActive) {
+                drainActive.set(false);
+            }
+        }
+    }
+
+    private void record(long started, int delivered, boolean yielded) {
+        stats.record(maxNanosInsideDrain, maxNanosInsideDrain + maxNanosInsideDrain / 2, System
+                .nanoTime() - started, delivered, yielded);
+    }
+
+    @Override
+    public MainThreadPosterStats getStats() {
+        return stats.snapshot(0, false);
+    }
+}
@@ -0,0 +1,158 @@
+package com.kymjs.event;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按订阅者分车道的后台发送器:每个订阅者一条串行的车道,同一个订阅者的事件按顺序响应;
+ * 不同订阅者的车道在线程池中最多maxThreads个线程上并行,慢的订阅者只阻塞自己的车道。
+ * onEventBackgroundThreadBatch(List)方法没有车道,仍然交给共用的{@link BackgroundPoster}。
+ */
+final class LanedBackgroundPoster implements Runnable, Poster {
+
+    private static final int LANE_QUANTUM = 32; //一条车道连续响应多少个事件后让给其他车道
+
+    private final EventBus eventBus;
+    private final Poster sharedPoster; //没有车道的订阅
+    private final int maxThreads;
+    private final ConcurrentLinkedQueue<Lane> readyLanes = new ConcurrentLinkedQueue<Lane>();
+    private final AtomicInteger runningThreads = new AtomicInteger();
+
+    LanedBackgroundPoster(EventBus eventBus, Poster sharedPoster, int maxThreads) {
+        this.eventBus = eventBus;
+        this.sharedPoster = sharedPoster;
+        this.maxThreads = maxThreads;
+    }
+
+    @Override
+    public void enqueue(Subscription subscription, Object event) {
+        Lane lane = subscription.lane;
+        if (lane == null) {
+            sharedPoster.enqueue(subscription, event);
+            return;
+        }
+        lane.queue.enqueue(eventBus.getPendingPostPool().obtain(subscription, event));
+        schedule(lane);
+    }
+
+    @Override
+    public void enqueueAll(PendingPost first, PendingPost last, int count) {
+        //按车道拆开,没有车道的重新连成一串交给共用的发送器
+        PendingPost sharedFirst = null;
+        PendingPost sharedLast = null;
+        int sharedCount = 0;
+        PendingPost pendingPost = first;
+        while (pendingPost != null) {
+            //入队后可能马上被其他线程响应并回收,先取下一个
+            PendingPost next = pendingPost == last ? null : pendingPost.next;
+            Lane lane = pendingPost.subscription.lane;
+            if (lane == null) {
+                if (sharedFirst == null) {
+                    sharedFirst = pendingPost;
+                } else {
+                    sharedLast.next = pendingPost;
+                }
+                sharedLast = pendingPost;
+                sharedCount++;
+            } else {
+                lane.queue.enqueue(pendingPost);
+                schedule(lane);
+            }
+            pendingPost = next;
+        }
+        if (sharedCount > 0) {
+            sharedPoster.enqueueAll(sharedFirst, sharedLast, sharedCount);
+        }
+    }
+
+    /**
+     * 车道从空闲变为有事件时放入就绪队列,每条车道同时只在一个线程中响应
+     */
+    private void schedule(Lane lane) {
+        if (lane.scheduled.compareAndSet(false, true)) {
+            readyLanes.offer(lane);
+            startThread();
+        }
+    }
+
+    private void startThread() {
+        if (tryAcquireThread()) {
+            eventBus.getBackgroundExecutorService().execute(this);
+        }
+    }
+
+    @Override
+    public void run() {
+        Lane lane = null;
+        boolean ownsThread = true; //当前线程是否占用runningThreads的一个名额
+        try {
+            while (true) {
+                lane = readyLanes.poll();
+                if (lane == null) {
+                    // Check again after releasing the slot, so a lane scheduled while all slots
+                    // looked busy is picked up either here or by a newly started thread
+                    runningThreads.decrementAndGet();
+                    ownsThread = false;
+                    if (readyLanes.isEmpty() || !tryAcquireThread()) {
+                        return;
+                    }
+                    ownsThread = true;
+                    continue;
+                }
+                drain(lane);
+                lane = null;
+            }
+        } finally {
+            if (ownsThread) {
+                //响应方法抛出异常(throwSubscriberException)时,把车道交给其他线程继续
+                if (lane != null) {
+                    readyLanes.offer(lane);
+                }
+                runningThreads.decrementAndGet();
+                if (!readyLanes.isEmpty()) {
+                    startThread();
+                }
+            }
+        }
+    }
+
+    private boolean tryAcquireThread() {
+        while (true) {
+            int running = runningThreads.get();
+            if (running >= maxThreads) {
+                return false;
+            }
+            if (runningThreads.compareAndSet(running, running + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void drain(Lane lane) {
+        for (int i = 0; i < LANE_QUANTUM; i++) {
+            PendingPost pendingPost = lane.queue.poll();
+            if (pendingPost == null) {
+                break;
+            }
+            eventBus.invokeSubscriber(pendingPost);
+        }
+        if (!lane.queue.isEmpty()) {
+            //还有事件,排到其他就绪车道后面
+            readyLanes.offer(lane);
+            return;
+        }
+        lane.scheduled.set(false);
+        if (!lane.queue.isEmpty() && lane.scheduled.compareAndSet(false, true)) {
+            readyLanes.offer(lane);
+        }
+    }
+
+    /**
+     * 一个订阅者的串行车道,由这个订阅者的所有后台订阅共用
+     */
+    static final class Lane {
+        final PendingPostQueue queue = new PendingPostQueue();
+        final AtomicBoolean scheduled = new AtomicBoolean(); //是否在就绪队列中或正在响应
+    }
+}
@@ -0,0 +1,37 @@
+package com.kymjs.event;
+
+import java.util.logging.Level;
+
+/**
+ * EventBus输出日志的接口。Android上默认使用android.util.Log,普通JVM上使用java.util.logging。
+ *
+ * @see EventBusBuilder#logger(Logger)
+ */
+public interface Logger {
+
+    void log(Level level, String msg);
+
+    void log(Level level, String msg, Throwable th);
+
+    /**
+     * 输出到java.util.logging
+     */
+    class JavaLogger implements Logger {
+        protected final java.util.logging.Logger logger;
+
+        public JavaLogger(String tag) {
+            logger = java.util.logging.Logger.getLogger(tag);
+        }
+
+        @Override
+        public void log(Level level, String msg) {
+            logger.log(level, msg);
+        }
+
+        @Override
+        public void log(Level level, String msg, Throwable th) {
+            logger.log(level, msg, th);
+        }
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.kymjs.event;
+
+/**
+ * 在主线程中按时间预算分批分发事件的发送器
+ */
+interface MainThreadPoster extends Poster {
+
+    MainThreadPosterStats getStats();
+}
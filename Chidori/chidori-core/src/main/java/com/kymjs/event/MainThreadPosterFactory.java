@@ -0,0 +1,13 @@
+package com.kymjs.event;
+
+/**
+ * 库内的主线程({@link EventLoop}、Android的Looper)自己创建发送器,例如按屏幕刷新分配时间预算;
+ * 其他{@link MainThreadSupport}使用通过{@link MainThreadSupport#post(Runnable)}提交任务的{@link EventLoopPoster}
+ */
+interface MainThreadPosterFactory {
+
+    /**
+     * 为eventBus创建在主线程响应事件的发送器,每个EventBus调用一次
+     */
+    MainThreadPoster createPoster(EventBus eventBus);
+}
@@ -0,0 +1,51 @@
+package com.kymjs.event;
+
+/**
+ * 主线程发送器的统计信息,通过{@link EventBus#getMainThreadPosterStats()}获取。
+ * 主线程每次连续分发事件称为一轮,每轮有一个时间预算,用完后让出主线程。
+ */
+public final class MainThreadPosterStats {
+    /** 测得的屏幕刷新间隔(纳秒),不按帧计算预算时为0 */
+    public final long frameIntervalNanos;
+
+    /** 最近一轮的时间预算(纳秒) */
+    public final long lastBudgetNanos;
+
+    /** 分发的轮数 */
+    public final long drains;
+
+    /** 分发的事件数 */
+    public final long events;
+
+    /** 预算用完、队列中还有事件而让出主线程的轮数 */
+    public final long yields;
+
+    /** 超过截止时间(下一帧开始)才结束的轮数,通常是某个响应方法执行时间太长 */
+    public final long overruns;
+
+    /** 超过截止时间最多的一次(纳秒) */
+    public final long maxOverrunNanos;
+
+    /** 是否使用异步消息,不被同步屏障阻塞 */
+    public final boolean asyncMessages;
+
+    public MainThreadPosterStats(long frameIntervalNanos, long lastBudgetNanos, long drains, long
+            events, long yields, long overruns, long maxOverrunNanos, boolean asyncMessages) {
+        this.frameIntervalNanos = frameIntervalNanos;
+        this.lastBudgetNanos = lastBudgetNanos;
+        this.drains = drains;
+        this.events = events;
+        this.yields = yields;
+        this.overruns = overruns;
+        this.maxOverrunNanos = maxOverrunNanos;
+        this.asyncMessages = asyncMessages;
+    }
+
+    @Override
+    public String toString() {
+        return "MainThreadPosterStats{frameIntervalNanos=" + frameIntervalNanos + ", " +
+                "lastBudgetNanos=" + lastBudgetNanos + ", drains=" + drains + ", events=" +
+                events + ", yields=" + yields + ", overruns=" + overruns + ", maxOverrunNanos=" +
+                maxOverrunNanos + ", asyncMessages=" + asyncMessages + "}";
+    }
+}
@@ -0,0 +1,22 @@
+package com.kymjs.event;
+
+/**
+ * 主线程的抽象:判断当前线程是否是主线程,并把任务切换到主线程执行。
+ * Android上是主线程的Looper,普通JVM上可以使用{@link EventLoop},也可以接入其他UI框架的线程,
+ * 例如Swing的{@code SwingUtilities.invokeLater}、JavaFX的{@code Platform.runLater}。
+ *
+ * @see EventBusBuilder#mainThreadSupport(MainThreadSupport)
+ */
+public interface MainThreadSupport {
+
+    /**
+     * @return 当前线程是否是主线程
+     */
+    boolean isMainThread();
+
+    /**
+     * 在主线程中执行任务,任务按提交的顺序执行。
+     * EventBus在MainThread模式的队列中有事件时只提交一个任务,任务连续分发一段时间后重新提交自己,让出主线程
+     */
+    void post(Runnable runnable);
+}
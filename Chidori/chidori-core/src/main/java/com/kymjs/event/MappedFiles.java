@@ -0,0 +1,119 @@
+package com.kymjs.event;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+/**
+ * {@link StickyEventJournal}使用的文件操作中依赖运行环境的部分,都通过反射调用:
+ * 编译目标是Java 7,而Android在API 26以前没有java.nio.file。
+ */
+final class MappedFiles {
+
+    //Java 9+:Unsafe.invokeCleaner(ByteBuffer)
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+    //Java 7+:Files.move(Path, Path, CopyOption...)和File.toPath()
+    private static final Method FILES_MOVE;
+    private static final Method TO_PATH;
+    private static final Object MOVE_OPTIONS; //ATOMIC_MOVE、REPLACE_EXISTING
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+        } catch (Throwable e) {
+            //Java 8以下和Android没有invokeCleaner,使用cleaner()
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+
+        Method move = null;
+        Method toPath = null;
+        Object options = null;
+        try {
+            Class<?> pathClass = Class.forName("java.nio.file.Path");
+            Class<?> optionClass = Class.forName("java.nio.file.CopyOption");
+            move = Class.forName("java.nio.file.Files").getMethod("move", pathClass, pathClass,
+                    Array.newInstance(optionClass, 0).getClass());
+            toPath = File.class.getMethod("toPath");
+            options = Array.newInstance(optionClass, 2);
+            Class<?> standardOption = Class.forName("java.nio.file.StandardCopyOption");
+            Array.set(options, 0, standardOption.getField("ATOMIC_MOVE").get(null));
+            Array.set(options, 1, standardOption.getField("REPLACE_EXISTING").get(null));
+        } catch (Throwable e) {
+            //Android API 26以前
+            move = null;
+        }
+        FILES_MOVE = move;
+        TO_PATH = toPath;
+        MOVE_OPTIONS = options;
+    }
+
+    private MappedFiles() {
+    }
+
+    /**
+     * 立即释放映射的内存,之后不能再访问buffer和它的slice、duplicate,否则进程会崩溃。
+     * 运行环境不支持时什么也不做,内存在buffer被回收时释放。
+     *
+     * @return 是否已经释放
+     */
+    static boolean unmap(MappedByteBuffer buffer) {
+        try {
+            if (INVOKE_CLEANER != null) {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+                return true;
+            }
+            //Java 7、8和Android 7.0+的DirectByteBuffer
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner == null) {
+                return false;
+            }
+            Method clean = cleaner.getClass().getMethod("clean");
+            clean.setAccessible(true);
+            clean.invoke(cleaner);
+            return true;
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    /**
+     * 用source原子地替换target。支持java.nio.file时使用ATOMIC_MOVE,否则使用File.renameTo:
+     * Android(API 26以前)上它就是Linux的rename(2),同一个文件系统中也是原子替换
+     */
+    static void replace(File source, File target) throws IOException {
+        if (FILES_MOVE != null) {
+            try {
+                FILES_MOVE.invoke(null, TO_PATH.invoke(source), TO_PATH.invoke(target),
+                        MOVE_OPTIONS);
+                return;
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                throw new IOException("Could not replace " + target, cause);
+            } catch (IllegalAccessException e) {
+                throw new IOException("Could not replace " + target, e);
+            }
+        }
+        if (!source.renameTo(target)) {
+            throw new IOException("Could not replace " + target);
+        }
+    }
+}
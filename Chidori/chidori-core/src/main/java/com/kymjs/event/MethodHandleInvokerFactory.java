@@ -0,0 +1,87 @@
+package com.kymjs.event;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * 在Java 8及以上的JVM上用LambdaMetafactory为每个响应方法生成一个直接调用的{@link SubscriberInvoker},
+ * 调用时没有参数数组和访问检查,开销与编译期索引相同。
+ * <p>
+ * Android不支持运行时的LambdaMetafactory,{@link #isAvailable()}返回false。
+ * 无法访问的方法(例如非public类中的方法)或订阅者类对本库的类加载器不可见时返回null,由EventBus使用反射调用。
+ */
+public final class MethodHandleInvokerFactory implements SubscriberInvokerFactory {
+
+    private static final MethodType INVOKE_TYPE = MethodType.methodType(void.class, Object.class,
+            Object.class);
+    private static final MethodType FACTORY_TYPE = MethodType.methodType(SubscriberInvoker.class);
+
+    //LambdaMetafactory是Java 8的API,通过反射调用,本库仍然可以按Java 7编译
+    private static final Method METAFACTORY = findMetafactory();
+
+    private static Method findMetafactory() {
+        try {
+            Class<?> clazz = Class.forName("java.lang.invoke.LambdaMetafactory");
+            Method metafactory = clazz.getMethod("metafactory", MethodHandles.Lookup.class, String
+                    .class, MethodType.class, MethodType.class, MethodHandle.class, MethodType.class);
+            // 生成一次,确认当前虚拟机确实支持
+            if (create(metafactory, Object.class.getMethod("equals", Object.class)) == null) {
+                return null;
+            }
+            return metafactory;
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return 当前虚拟机是否支持生成调用器
+     */
+    public static boolean isAvailable() {
+        return METAFACTORY != null;
+    }
+
+    @Override
+    public SubscriberInvoker create(Method method) {
+        return METAFACTORY != null ? create(METAFACTORY, method) : null;
+    }
+
+    private static SubscriberInvoker create(Method metafactory, Method method) {
+        Class<?> declaringClass = method.getDeclaringClass();
+        Class<?> eventType = method.getParameterTypes()[0];
+        if (!isVisible(declaringClass) || !isVisible(eventType)) {
+            return null;
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle target = lookup.unreflect(method);
+            MethodType instantiatedType = MethodType.methodType(void.class, declaringClass,
+                    eventType);
+            CallSite callSite = (CallSite) metafactory.invoke(null, lookup, "invoke",
+                    FACTORY_TYPE, INVOKE_TYPE, target, instantiatedType);
+            return (SubscriberInvoker) callSite.getTarget().invokeWithArguments();
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    /**
+     * 订阅者和事件类型必须是public类,非public类即使在同一个包中能够访问也交给反射调用;
+     * 生成的类由本库的类加载器加载,它引用的订阅者和事件类型必须能从这里找到同一个类
+     */
+    private static boolean isVisible(Class<?> clazz) {
+        if (clazz.isPrimitive() || !Modifier.isPublic(clazz.getModifiers())) {
+            return false;
+        }
+        try {
+            return Class.forName(clazz.getName(), false, MethodHandleInvokerFactory.class
+                    .getClassLoader()) == clazz;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.kymjs.event;
+
+/**
+ * 排队的事件达到{@link EventBusBuilder#postQueueCapacity(ThreadMode, int, OverflowPolicy)}
+ * 设置的上限时如何处理新发送的事件
+ */
+public enum OverflowPolicy {
+    /**
+     * 发送事件的线程等待,直到队列中有空位。注意BackgroundThread只有主线程发送时才排队,
+     * 设置这个策略可能阻塞主线程。发送器的线程(后台线程、Async线程池的线程等)在响应排队事件的方法中
+     * 发送事件时不等待,超出上限入队,避免等待自己取出事件
+     */
+    BLOCK,
+
+    /**
+     * 丢弃新发送的事件
+     */
+    DROP_NEWEST,
+
+    /**
+     * 丢弃队列中最早的事件,再放入新发送的事件。只能用于按ThreadMode设置的上限
+     */
+    DROP_OLDEST,
+
+    /**
+     * post抛出{@link EventBusException},同一个事件已经分发给其他订阅者的不受影响
+     */
+    FAIL_FAST
+}
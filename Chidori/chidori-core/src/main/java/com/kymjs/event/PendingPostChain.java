@@ -0,0 +1,37 @@
+package com.kymjs.event;
+
+/**
+ * postAll时在发送线程中为一个发送器攒起来的待发送对象,通过next连接,最后一次交给发送器。
+ * 只由发送线程访问。
+ */
+final class PendingPostChain {
+    private PendingPost first;
+    private PendingPost last;
+    private int count;
+
+    void add(PendingPost pendingPost) {
+        if (first == null) {
+            first = pendingPost;
+        } else {
+            last.next = pendingPost;
+        }
+        last = pendingPost;
+        count++;
+    }
+
+    /**
+     * 全部交给poster并清空
+     */
+    void flushTo(Poster poster) {
+        if (count == 0) {
+            return;
+        }
+        PendingPost first = this.first;
+        PendingPost last = this.last;
+        int count = this.count;
+        this.first = null;
+        this.last = null;
+        this.count = 0;
+        poster.enqueueAll(first, last, count);
+    }
+}
@@ -0,0 +1,157 @@
+package com.kymjs.event;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 每个EventBus一个的待发送对象复用池,取出和回收都不加锁。
+ * <p>
+ * 每个线程先使用自己的小缓存(同一个线程既post又响应时命中),缓存为空或已满时再访问共享池。
+ * 共享池是一组槽位,从线程自己的随机位置开始探测几个槽位,用getAndSet/compareAndSet取出或放入,
+ * 不同线程很少访问同一个槽位;探测不到时直接新建或丢弃,不等待。
+ */
+final class PendingPostPool {
+    //线程本地缓存的大小
+    private static final int LOCAL_CACHE_SIZE = 8;
+    //访问共享池时最多探测的槽位数
+    private static final int MAX_PROBES = 8;
+    //统计计数分散到多个槽位,避免多个线程同时写同一个缓存行;每组计数间隔8个long(64字节)
+    private static final int COUNTER_STRIPES = 16;
+    private static final int COUNTER_PADDING = 8;
+    private static final int HITS = 0;
+    private static final int MISSES = 1;
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<PendingPost> slots;
+    private final AtomicLongArray counters = new AtomicLongArray(COUNTER_STRIPES *
+            COUNTER_PADDING);
+    private final AtomicInteger nextStripe = new AtomicInteger();
+
+    private final ThreadLocal<LocalCache> localCache = new ThreadLocal<LocalCache>() {
+        @Override
+        protected LocalCache initialValue() {
+            return new LocalCache(nextStripe.getAndIncrement());
+        }
+    };
+
+    /**
+     * @param capacity 共享池最多保存的对象数,为0时不复用
+     */
+    PendingPostPool(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Pool capacity must not be negative: " + capacity);
+        }
+        this.capacity = capacity;
+        if (capacity > 0) {
+            int size = 1;
+            while (size < capacity) {
+                size <<= 1;
+            }
+            mask = size - 1;
+            slots = new AtomicReferenceArray<PendingPost>(size);
+        } else {
+            mask = 0;
+            slots = null;
+        }
+    }
+
+    /**
+     * 首先检查复用池中是否有可用,如果有则返回复用,否则返回一个新的
+     *
+     * @param subscription 订阅者
+     * @param event        订阅事件
+     * @return 待发送对象
+     */
+    PendingPost obtain(Subscription subscription, Object event) {
+        if (capacity == 0) {
+            return new PendingPost(event, subscription);
+        }
+        LocalCache cache = localCache.get();
+        PendingPost pendingPost = null;
+        if (cache.size > 0) {
+            pendingPost = cache.items[--cache.size];
+            cache.items[cache.size] = null;
+        } else {
+            int index = cache.nextProbe();
+            for (int i = 0; i < MAX_PROBES; i++, index++) {
+                int slot = index & mask;
+                // 先读再写,空槽位不产生写操作
+                if (slots.get(slot) != null) {
+                    pendingPost = slots.getAndSet(slot, null);
+                    if (pendingPost != null) {
+                        break;
+                    }
+                }
+            }
+        }
+        if (pendingPost == null) {
+            counters.incrementAndGet(cache.stripe + MISSES);
+            return new PendingPost(event, subscription);
+        }
+        counters.incrementAndGet(cache.stripe + HITS);
+        pendingPost.event = event;
+        pendingPost.subscription = subscription;
+        pendingPost.next = null;
+        return pendingPost;
+    }
+
+    /**
+     * 回收一个待发送对象,并加入复用池
+     *
+     * @param pendingPost 待回收的待发送对象
+     */
+    void release(PendingPost pendingPost) {
+        pendingPost.event = null;
+        pendingPost.subscription = null;
+        pendingPost.next = null;
+        if (capacity == 0) {
+            return;
+        }
+        LocalCache cache = localCache.get();
+        if (cache.size < LOCAL_CACHE_SIZE) {
+            cache.items[cache.size++] = pendingPost;
+            return;
+        }
+        int index = cache.nextProbe();
+        for (int i = 0; i < MAX_PROBES; i++, index++) {
+            int slot = index & mask;
+            if (slots.get(slot) == null && slots.compareAndSet(slot, null, pendingPost)) {
+                return;
+            }
+        }
+        // 附近的槽位都满了,丢弃,防止池无限增长
+    }
+
+    PendingPostPoolStats getStats() {
+        long hits = 0;
+        long misses = 0;
+        for (int i = 0; i < COUNTER_STRIPES; i++) {
+            hits += counters.get(i * COUNTER_PADDING + HITS);
+            misses += counters.get(i * COUNTER_PADDING + MISSES);
+        }
+        return new PendingPostPoolStats(capacity, hits, misses);
+    }
+
+    private static final class LocalCache {
+        final PendingPost[] items = new PendingPost[LOCAL_CACHE_SIZE];
+        final int stripe; //统计计数的起始下标
+        int size;
+        int seed; //探测共享池的随机数种子(xorshift)
+
+        LocalCache(int id) {
+            stripe = (id & (COUNTER_STRIPES - 1)) * COUNTER_PADDING;
+            seed = (id + 1) * 0x9E3779B9;
+        }
+
+        int nextProbe() {
+            int x = seed;
+            x ^= x << 13;
+            x ^= x >>> 17;
+            x ^= x << 5;
+            seed = x;
+            return x;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.kymjs.event;
+
+/**
+ * 待发送对象复用池的统计信息,通过{@link EventBus#getPendingPostPoolStats()}获取
+ */
+public final class PendingPostPoolStats {
+    /** 复用池最多保存的对象数,见{@link EventBusBuilder#pendingPostPoolSize(int)} */
+    public final int capacity;
+
+    /** 从复用池中取到对象的次数 */
+    public final long hits;
+
+    /** 复用池为空、新建对象的次数 */
+    public final long misses;
+
+    public PendingPostPoolStats(int capacity, long hits, long misses) {
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    @Override
+    public String toString() {
+        return "PendingPostPoolStats{capacity=" + capacity + ", hits=" + hits + ", misses=" +
+                misses + "}";
+    }
+}
@@ -0,0 +1,168 @@
+package com.kymjs.event;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 多生产者、单消费者的无锁待发送对象队列(Vyukov MPSC)。
+ * 入队只有一次getAndSet,不加锁也不唤醒所有线程;只有消费者在{@link #poll(long)}中等待时才unpark它。
+ * {@link #poll()}、{@link #poll(long)}和{@link #isEmpty()}同一时刻只能由一个线程调用。
+ * <p>
+ * 发送队列设置了{@link OverflowPolicy#DROP_OLDEST}时,发送线程也要通过{@link #evict()}出队,
+ * 这时出队操作在队列对象上加锁,入队仍然不加锁。
+ */
+final class PendingPostQueue {
+
+    //占位节点,队列为空时head和tail都指向它
+    private final PendingPost stub = new PendingPost(null, null);
+    private final AtomicReference<PendingPost> tail = new AtomicReference<PendingPost>(stub);
+    private PendingPost head = stub; //待发送对象队列头节点,只有消费者访问
+    private volatile Thread waiter; //正在poll(long)中等待的消费者
+    final boolean evictable; //是否允许多个线程出队
+
+    PendingPostQueue() {
+        this(false);
+    }
+
+    /**
+     * @param evictable 是否可以通过{@link #evict()}从其他线程出队
+     */
+    PendingPostQueue(boolean evictable) {
+        this.evictable = evictable;
+    }
+
+    /**
+     * 入队
+     */
+    void enqueue(PendingPost pendingPost) {
+        if (pendingPost == null) {
+            throw new NullPointerException("null cannot be enqueued");
+        }
+        link(pendingPost);
+        Thread consumer = waiter;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * 把first到last的一串待发送对象一次入队,中间的next必须已经设置好
+     */
+    void enqueueAll(PendingPost first, PendingPost last) {
+        last.next = null;
+        PendingPost prev = tail.getAndSet(last);
+        prev.next = first;
+        Thread consumer = waiter;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    private void link(PendingPost pendingPost) {
+        pendingPost.next = null;
+        PendingPost prev = tail.getAndSet(pendingPost);
+        prev.next = pendingPost;
+    }
+
+    /**
+     * 取队列头节点的待发送对象,只有队列确实为空时才返回null
+     */
+    PendingPost poll() {
+        if (evictable) {
+            synchronized (this) {
+                return pollHead();
+            }
+        }
+        return pollHead();
+    }
+
+    /**
+     * 在发送线程中取出最早的待发送对象丢弃,只能用于evictable的队列
+     */
+    PendingPost evict() {
+        if (!evictable) {
+            throw new IllegalStateException("Queue is not evictable");
+        }
+        synchronized (this) {
+            return pollHead();
+        }
+    }
+
+    private PendingPost pollHead() {
+        PendingPost first = head;
+        PendingPost next = first.next;
+        if (first == stub) {
+            if (next == null) {
+                if (tail.get() == stub) {
+                    return null;
+                }
+                next = awaitNext(first);
+            }
+            head = next;
+            first = next;
+            next = next.next;
+        }
+        if (next == null) {
+            if (first != tail.get()) {
+                next = awaitNext(first);
+            } else {
+                // first是最后一个节点,先把占位节点放到它后面再取出
+                link(stub);
+                next = awaitNext(first);
+            }
+        }
+        head = next;
+        return first;
+    }
+
+    /**
+     * 生产者已经替换了tail但还没来得及设置next,这个窗口只有几条指令,自旋等待即可
+     */
+    private static PendingPost awaitNext(PendingPost node) {
+        PendingPost next;
+        while ((next = node.next) == null) {
+            Thread.yield();
+        }
+        return next;
+    }
+
+    /**
+     * 取待发送对象队列头节点的待发送对象,队列为空时挂起等待,最多等待maxNanosToWait纳秒
+     */
+    PendingPost poll(long maxNanosToWait) throws InterruptedException {
+        PendingPost pendingPost = poll();
+        if (pendingPost != null) {
+            return pendingPost;
+        }
+        long deadline = System.nanoTime() + maxNanosToWait;
+        waiter = Thread.currentThread();
+        try {
+            // 先设置waiter再检查队列,在这之后入队的生产者一定会unpark
+            while ((pendingPost = poll()) == null) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                LockSupport.parkNanos(this, remaining);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            waiter = null;
+        }
+        return pendingPost;
+    }
+
+    /**
+     * 队列中是否没有待发送对象
+     */
+    boolean isEmpty() {
+        if (evictable) {
+            synchronized (this) {
+                return head == stub && tail.get() == stub;
+            }
+        }
+        return head == stub && tail.get() == stub;
+    }
+}
@@ -0,0 +1,100 @@
+package com.kymjs.event;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * 运行平台提供的默认主线程、Logger和调用器。
+ * Android模块提供{@code com.kymjs.event.AndroidPlatform},找不到时认为是普通JVM。
+ */
+abstract class Platform {
+
+    private static final String ANDROID_PLATFORM = "com.kymjs.event.AndroidPlatform";
+
+    private static final Platform PLATFORM = findPlatform();
+
+    static Platform get() {
+        return PLATFORM;
+    }
+
+    private static Platform findPlatform() {
+        Class<?> clazz;
+        try {
+            clazz = Class.forName(ANDROID_PLATFORM);
+        } catch (ClassNotFoundException e) {
+            return new Jvm();
+        }
+        // 有Android模块但无法初始化时直接抛出,不能悄悄退回没有主线程的普通JVM
+        try {
+            return (Platform) clazz.getDeclaredConstructor().newInstance();
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new EventBusException("Could not create " + ANDROID_PLATFORM, cause);
+        } catch (InstantiationException e) {
+            throw new EventBusException("Could not create " + ANDROID_PLATFORM, e);
+        } catch (IllegalAccessException e) {
+            throw new EventBusException("Could not create " + ANDROID_PLATFORM, e);
+        } catch (NoSuchMethodException e) {
+            throw new EventBusException("Could not create " + ANDROID_PLATFORM, e);
+        }
+    }
+
+    /**
+     * @return 主线程,为null时没有主线程
+     */
+    abstract MainThreadSupport getMainThreadSupport();
+
+    abstract Logger getLogger();
+
+    /**
+     * @return 为索引之外的响应方法创建调用器,为null时使用反射
+     */
+    abstract SubscriberInvokerFactory getSubscriberInvokerFactory();
+
+    /**
+     * 转发已经废弃的{@link EventBus#connect(Class[])}
+     */
+    abstract void connectRemote(Class<?>[] servers);
+
+    /**
+     * 转发已经废弃的{@link EventBus#postRemote(String, Object)}等方法,跨进程发送需要Android模块
+     */
+    abstract void postRemote(String remotePkg, Object event);
+
+    static final class Jvm extends Platform {
+        private final Logger logger = new Logger.JavaLogger(EventBus.TAG);
+        private final SubscriberInvokerFactory invokerFactory = MethodHandleInvokerFactory
+                .isAvailable() ? new MethodHandleInvokerFactory() : null;
+
+        @Override
+        MainThreadSupport getMainThreadSupport() {
+            return null;
+        }
+
+        @Override
+        Logger getLogger() {
+            return logger;
+        }
+
+        @Override
+        SubscriberInvokerFactory getSubscriberInvokerFactory() {
+            return invokerFactory;
+        }
+
+        @Override
+        void connectRemote(Class<?>[] servers) {
+            throw new EventBusException("Posting to another process requires the chidori " +
+                    "Android module");
+        }
+
+        @Override
+        void postRemote(String remotePkg, Object event) {
+            throw new EventBusException("Posting to another process requires the chidori " +
+                    "Android module");
+        }
+    }
+}
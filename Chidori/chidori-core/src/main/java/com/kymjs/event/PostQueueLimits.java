@@ -0,0 +1,176 @@
+package com.kymjs.event;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 发送队列的上限:按ThreadMode(每个发送器的队列)和按事件类型(所有队列中这个类型及其子类的事件)。
+ * 没有设置任何上限时EventBus不创建这个对象,入队和出队都不需要额外的操作。
+ * <p>
+ * 发送事件时在入队之前占用位置,{@link EventBus#invokeSubscriber(PendingPost)}出队时释放。
+ */
+final class PostQueueLimits {
+
+    private static final QueueLimit NONE = new QueueLimit("none", Integer.MAX_VALUE,
+            OverflowPolicy.DROP_NEWEST);
+
+    private final QueueLimit[] limitsByThreadMode = new QueueLimit[ThreadMode.values().length];
+    private final Map<Class<?>, QueueLimit> limitsByType;
+    //事件的实际类型对应的上限(离它最近的父类或接口的设置),没有设置时为NONE
+    private final Map<Class<?>, QueueLimit> resolvedLimits;
+    private final EventBus eventBus;
+    final boolean blocking; //是否有BLOCK策略的上限
+
+    private PostQueueLimits(EventBusBuilder builder, EventBus eventBus) {
+        this.eventBus = eventBus;
+        boolean blocking = false;
+        if (builder.postQueueLimitsByThreadMode != null) {
+            for (Map.Entry<ThreadMode, QueueLimit> entry : builder.postQueueLimitsByThreadMode
+                    .entrySet()) {
+                QueueLimit limit = entry.getValue();
+                int capacity = limit.capacity;
+                if (entry.getKey() == ThreadMode.BackgroundThread && builder
+                        .backgroundRingBufferSize > 0) {
+                    //不超过环形缓冲区的槽位数,缓冲区已满时由这里按策略处理并统计
+                    capacity = Math.min(capacity, builder.backgroundRingBufferSize);
+                }
+                limitsByThreadMode[entry.getKey().ordinal()] = new QueueLimit(limit.name,
+                        capacity, limit.policy);
+                blocking |= limit.policy == OverflowPolicy.BLOCK;
+            }
+        }
+        if (builder.postQueueLimitsByType != null) {
+            limitsByType = new HashMap<Class<?>, QueueLimit>();
+            for (Map.Entry<Class<?>, QueueLimit> entry : builder.postQueueLimitsByType
+                    .entrySet()) {
+                QueueLimit limit = entry.getValue();
+                limitsByType.put(entry.getKey(), new QueueLimit(limit.name, limit.capacity, limit
+                        .policy));
+                blocking |= limit.policy == OverflowPolicy.BLOCK;
+            }
+            resolvedLimits = new ConcurrentHashMap<Class<?>, QueueLimit>();
+        } else {
+            limitsByType = null;
+            resolvedLimits = null;
+        }
+        this.blocking = blocking;
+    }
+
+    /**
+     * @return 没有设置任何上限时返回null
+     */
+    static PostQueueLimits create(EventBusBuilder builder, EventBus eventBus) {
+        if (builder.postQueueLimitsByThreadMode == null && builder.postQueueLimitsByType == null) {
+            return null;
+        }
+        return new PostQueueLimits(builder, eventBus);
+    }
+
+    /**
+     * 创建threadMode的发送器使用的队列
+     */
+    PendingPostQueue newQueue(ThreadMode threadMode) {
+        QueueLimit limit = limitsByThreadMode[threadMode.ordinal()];
+        if (limit != null && limit.policy == OverflowPolicy.DROP_OLDEST) {
+            limit.queue = new PendingPostQueue(true);
+            return limit.queue;
+        }
+        return new PendingPostQueue();
+    }
+
+    /**
+     * 入队之前调用,先占用事件类型的位置,再占用ThreadMode的位置
+     *
+     * @param event 为null时只占用ThreadMode的位置(conflating订阅的占位事件)
+     * @return 是否可以入队,false表示事件被丢弃
+     */
+    boolean acquire(ThreadMode threadMode, Object event) {
+        QueueLimit typeLimit = event != null ? limitForType(event.getClass()) : null;
+        if (typeLimit != null && !typeLimit.acquire(this)) {
+            return false;
+        }
+        QueueLimit limit = limitsByThreadMode[threadMode.ordinal()];
+        boolean acquired = false;
+        try {
+            acquired = limit == null || limit.acquire(this);
+            return acquired;
+        } finally {
+            if (!acquired && typeLimit != null) {
+                typeLimit.release();
+            }
+        }
+    }
+
+    /**
+     * 出队时调用
+     *
+     * @param event 与{@link #acquire(ThreadMode, Object)}的参数相同
+     */
+    void release(ThreadMode threadMode, Object event) {
+        QueueLimit limit = limitsByThreadMode[threadMode.ordinal()];
+        if (limit != null) {
+            limit.release();
+        }
+        QueueLimit typeLimit = event != null ? limitForType(event.getClass()) : null;
+        if (typeLimit != null) {
+            typeLimit.release();
+        }
+    }
+
+    /**
+     * DROP_OLDEST丢弃了队列中的事件,它占用的ThreadMode位置留给新事件,只释放事件类型的位置
+     */
+    void discard(PendingPost pendingPost) {
+        if (pendingPost.event == Subscription.CONFLATED) {
+            //conflating订阅的最新事件一起丢弃
+            pendingPost.subscription.takeConflatedEvent();
+        } else {
+            QueueLimit typeLimit = limitForType(pendingPost.event.getClass());
+            if (typeLimit != null) {
+                typeLimit.release();
+            }
+        }
+        eventBus.getPendingPostPool().release(pendingPost);
+    }
+
+    /**
+     * BLOCK策略在队列已满时是否可以让当前线程等待。发送器的线程在响应方法中发送事件时不能等待:
+     * 它可能是这个队列唯一的消费线程,等待的是自己取出事件
+     */
+    boolean mayBlock() {
+        return !eventBus.isDeliveringQueuedEvent();
+    }
+
+    PostQueueStats getStats(ThreadMode threadMode) {
+        QueueLimit limit = limitsByThreadMode[threadMode.ordinal()];
+        return limit != null ? limit.getStats() : null;
+    }
+
+    PostQueueStats getStats(Class<?> eventType) {
+        QueueLimit limit = limitsByType != null ? limitsByType.get(eventType) : null;
+        return limit != null ? limit.getStats() : null;
+    }
+
+    private QueueLimit limitForType(Class<?> eventClass) {
+        if (limitsByType == null) {
+            return null;
+        }
+        QueueLimit limit = resolvedLimits.get(eventClass);
+        if (limit == null) {
+            limit = NONE;
+            // 离事件类型最近的父类或接口的设置优先
+            List<Class<?>> types = EventBus.lookupAllEventTypes(eventClass);
+            for (int i = 0, size = types.size(); i < size; i++) {
+                QueueLimit candidate = limitsByType.get(types.get(i));
+                if (candidate != null) {
+                    limit = candidate;
+                    break;
+                }
+            }
+            resolvedLimits.put(eventClass, limit);
+        }
+        return limit != NONE ? limit : null;
+    }
+}
@@ -0,0 +1,46 @@
+package com.kymjs.event;
+
+/**
+ * 有上限的发送队列的统计信息,通过{@link EventBus#getPostQueueStats(ThreadMode)}或者
+ * {@link EventBus#getPostQueueStats(Class)}获取
+ */
+public final class PostQueueStats {
+    /** 最多排队的事件数 */
+    public final int capacity;
+
+    /** 队列满时的处理方式 */
+    public final OverflowPolicy policy;
+
+    /** 当前排队的事件数 */
+    public final int size;
+
+    /** 因为队列满被丢弃的事件数(DROP_NEWEST、DROP_OLDEST) */
+    public final long dropped;
+
+    /** 因为队列满抛出异常的次数(FAIL_FAST) */
+    public final long rejected;
+
+    /** 因为队列满而等待过的发送次数(BLOCK) */
+    public final long blocked;
+
+    /** BLOCK时发送器的线程在响应方法中发送事件,不等待而超出上限入队的次数 */
+    public final long overflowed;
+
+    public PostQueueStats(int capacity, OverflowPolicy policy, int size, long dropped, long
+            rejected, long blocked, long overflowed) {
+        this.capacity = capacity;
+        this.policy = policy;
+        this.size = size;
+        this.dropped = dropped;
+        this.rejected = rejected;
+        this.blocked = blocked;
+        this.overflowed = overflowed;
+    }
+
+    @Override
+    public String toString() {
+        return "PostQueueStats{capacity=" + capacity + ", policy=" + policy + ", size=" + size +
+                ", dropped=" + dropped + ", rejected=" + rejected + ", blocked=" + blocked +
+                ", overflowed=" + overflowed + "}";
+    }
+}
@@ -0,0 +1,22 @@
+package com.kymjs.event;
+
+/**
+ * 把事件交给其他线程响应的发送器
+ */
+interface Poster {
+
+    /**
+     * 创建待发送对象并加入队列,由发送器所在的线程调用{@link EventBus#invokeSubscriber(PendingPost)}
+     *
+     * @param subscription 订阅者
+     * @param event        订阅事件
+     */
+    void enqueue(Subscription subscription, Object event);
+
+    /**
+     * 一次加入一串待发送对象(通过next连接),只唤醒一次发送器所在的线程
+     *
+     * @param count first到last的个数
+     */
+    void enqueueAll(PendingPost first, PendingPost last, int count);
+}
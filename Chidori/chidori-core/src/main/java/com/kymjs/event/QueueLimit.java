@@ -0,0 +1,135 @@
+package com.kymjs.event;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 一个ThreadMode或者一个事件类型的排队上限:排队的事件数用CAS计数,没有满时不加锁;
+ * 只有BLOCK策略在队列满时才在这个对象上等待。
+ */
+final class QueueLimit {
+
+    final String name; //ThreadMode或事件类型,用于异常信息
+    final int capacity;
+    final OverflowPolicy policy;
+    PendingPostQueue queue; //DROP_OLDEST时从这个队列中丢弃,由创建队列的发送器设置
+
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong blocked = new AtomicLong();
+    private final AtomicLong overflowed = new AtomicLong(); //BLOCK时发送器的线程超出上限入队的次数
+    private volatile int waiters; //BLOCK时正在等待的线程数,只在同步代码块中修改
+
+    QueueLimit(String name, int capacity, OverflowPolicy policy) {
+        this.name = name;
+        this.capacity = capacity;
+        this.policy = policy;
+    }
+
+    /**
+     * 占用一个位置
+     *
+     * @return 是否可以入队,false表示新事件被丢弃
+     * @throws EventBusException FAIL_FAST时队列已满,或者BLOCK时等待被中断
+     * @see PostQueueLimits#mayBlock()
+     */
+    boolean acquire(PostQueueLimits limits) {
+        return acquire(limits, limits.mayBlock());
+    }
+
+    /**
+     * @param limits   DROP_OLDEST时通过它释放被丢弃事件的其他位置,其他策略可以为null
+     * @param mayBlock BLOCK时当前线程是否可以等待,见{@link PostQueueLimits#mayBlock()}
+     */
+    boolean acquire(PostQueueLimits limits, boolean mayBlock) {
+        if (tryAcquire()) {
+            return true;
+        }
+        switch (policy) {
+            case DROP_NEWEST:
+                dropped.incrementAndGet();
+                return false;
+            case DROP_OLDEST:
+                while (true) {
+                    // 被丢弃的事件的位置直接给新事件用
+                    PendingPost oldest = queue.evict();
+                    if (oldest != null) {
+                        dropped.incrementAndGet();
+                        limits.discard(oldest);
+                        return true;
+                    }
+                    // 队列已经被取空,但取出的事件还没有释放位置
+                    if (tryAcquire()) {
+                        return true;
+                    }
+                    Thread.yield();
+                }
+            case FAIL_FAST:
+                rejected.incrementAndGet();
+                throw new EventBusException("Post queue for " + name + " is full (capacity " +
+                        capacity + ")");
+            case BLOCK:
+                if (!mayBlock) {
+                    //发送器的线程不等待自己,超出上限入队
+                    size.incrementAndGet();
+                    overflowed.incrementAndGet();
+                    return true;
+                }
+                blocked.incrementAndGet();
+                try {
+                    do {
+                        awaitSpace();
+                    } while (!tryAcquire());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new EventBusException("Interrupted while waiting for the post queue " +
+                            "for " + name, e);
+                }
+                return true;
+            default:
+                throw new IllegalStateException("Unknown overflow policy: " + policy);
+        }
+    }
+
+    /**
+     * 事件出队时释放位置
+     */
+    void release() {
+        size.decrementAndGet();
+        // 先减计数再读waiters,等待的线程先加waiters再读计数,两者至少有一个能看到对方
+        if (waiters > 0) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    PostQueueStats getStats() {
+        return new PostQueueStats(capacity, policy, Math.max(0, size.get()), dropped.get(),
+                rejected.get(), blocked.get(), overflowed.get());
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = size.get();
+            if (current >= capacity) {
+                return false;
+            }
+            if (size.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private synchronized void awaitSpace() throws InterruptedException {
+        waiters++;
+        try {
+            while (size.get() >= capacity) {
+                wait();
+            }
+        } finally {
+            waiters--;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.kymjs.event;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * 默认的调用器,通过{@link Method#invoke(Object, Object...)}调用响应方法。
+ * 创建时关闭访问检查,之后每次调用不再重复检查。
+ */
+final class ReflectiveInvoker implements SubscriberInvoker {
+    private final Method method;
+
+    ReflectiveInvoker(Method method) {
+        this.method = method;
+        try {
+            method.setAccessible(true);
+        } catch (SecurityException e) {
+            // 仍然可以调用,只是每次都要做访问检查
+        }
+    }
+
+    @Override
+    public void invoke(Object subscriber, Object event) throws Throwable {
+        try {
+            method.invoke(subscriber, event);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.kymjs.event;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 基于预先分配的环形缓冲区的后台发送器:发送线程通过CAS认领序号,把事件写入对应的槽位后发布,
+ * 一个消费线程按序号依次响应,入队不创建对象。消费线程没有事件时按{@link WaitStrategy}等待,
+ * 空闲一段时间后结束,之后发送事件时重新提交到线程池。
+ * <p>
+ * 槽位通过一个容量等于缓冲区大小的{@link QueueLimit}占用,缓冲区已满时按BackgroundThread的
+ * {@link OverflowPolicy}处理(默认BLOCK,等待而不是自旋)。消费线程在响应方法中发送的事件不占用槽位,
+ * 放入只由消费线程访问的溢出队列,在发送时已经认领的序号之后响应,仍然只有一个线程按顺序响应。
+ * onEventBackgroundThreadBatch(List)方法仍然交给共用的{@link BackgroundPoster}。
+ */
+final class RingBufferPoster implements Runnable, Poster {
+
+    private static final int SPIN_TRIES = 100; //等待事件时先自旋的次数
+
+    private final EventBus eventBus;
+    private final Poster sharedPoster; //一次响应一批的订阅
+    private final WaitStrategy waitStrategy;
+    private final long keepAliveNanos; //没有事件时等待多久再结束任务,与BackgroundPoster一致
+    private final int capacity;
+    private final int mask;
+    private final Subscription[] subscriptions;
+    private final Object[] events;
+    private final AtomicLongArray published; //每个槽位上已经发布的序号
+    private final QueueLimit slots; //占用槽位,认领序号之前占用,保证认领的槽位已经被取出
+    //消费线程自己发送的事件,只由消费线程访问(换成新的任务时通过consumerRunning交接)
+    private final ArrayDeque<Overflow> overflow = new ArrayDeque<Overflow>();
+
+    private final AtomicLong claimed = new AtomicLong(-1); //已经认领的最大序号
+    private volatile long consumed = -1; //已经取出的最大序号,只由消费线程写
+    //发送事件时CAS抢到标记的线程负责把消费任务提交到线程池
+    private final AtomicBoolean consumerRunning = new AtomicBoolean();
+    private volatile Thread consumer; //正在运行的消费线程
+    private volatile Thread waiter; //BLOCKING时挂起等待事件的消费线程
+
+    /**
+     * @param capacity 2的幂
+     * @param policy   缓冲区已满时的处理方式,不支持DROP_OLDEST
+     */
+    RingBufferPoster(EventBus eventBus, Poster sharedPoster, int capacity, WaitStrategy
+            waitStrategy, long keepAliveNanos, OverflowPolicy policy) {
+        this.eventBus = eventBus;
+        this.sharedPoster = sharedPoster;
+        this.waitStrategy = waitStrategy;
+        this.keepAliveNanos = keepAliveNanos;
+        this.capacity = capacity;
+        mask = capacity - 1;
+        subscriptions = new Subscription[capacity];
+        events = new Object[capacity];
+        published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        slots = new QueueLimit(ThreadMode.BackgroundThread.name() + " ring buffer", capacity,
+                policy);
+    }
+
+    @Override
+    public void enqueue(Subscription subscription, Object event) {
+        if (subscription.subscriberMethod.batch) {
+            sharedPoster.enqueue(subscription, event);
+        } else {
+            publish(subscription, event);
+        }
+    }
+
+    /**
+     * postAll只在没有设置发送队列上限时调用,缓冲区已满时只会按默认的BLOCK等待
+     */
+    @Override
+    public void enqueueAll(PendingPost first, PendingPost last, int count) {
+        PendingPostPool pendingPostPool = eventBus.getPendingPostPool();
+        PendingPost sharedFirst = null;
+        PendingPost sharedLast = null;
+        int sharedCount = 0;
+        PendingPost pendingPost = first;
+        while (pendingPost != null) {
+            PendingPost next = pendingPost == last ? null : pendingPost.next;
+            Subscription subscription = pendingPost.subscription;
+            if (!subscription.subscriberMethod.batch) {
+                //事件复制到槽位或溢出队列中
+                publish(subscription, pendingPost.event);
+                pendingPostPool.release(pendingPost);
+            } else {
+                if (sharedFirst == null) {
+                    sharedFirst = pendingPost;
+                } else {
+                    sharedLast.next = pendingPost;
+                }
+                sharedLast = pendingPost;
+                sharedCount++;
+            }
+            pendingPost = next;
+        }
+        if (sharedCount > 0) {
+            sharedPoster.enqueueAll(sharedFirst, sharedLast, sharedCount);
+        }
+    }
+
+    /**
+     * 消费线程发送的事件放入溢出队列;其他线程占用一个槽位后认领序号并发布事件
+     */
+    private void publish(Subscription subscription, Object event) {
+        if (Thread.currentThread() == consumer) {
+            //不能等待自己取出事件;在已经认领的序号之后响应,与其他线程发送的事件保持先后顺序
+            overflow.add(new Overflow(subscription, event, claimed.get()));
+            return;
+        }
+        boolean acquired = false;
+        try {
+            acquired = slots.acquire(null, true);
+        } finally {
+            if (!acquired) {
+                //事件被丢弃(或FAIL_FAST),释放发送队列的位置
+                eventBus.takeEvent(subscription, event);
+            }
+        }
+        if (!acquired) {
+            return;
+        }
+        //占用的槽位数不超过容量,认领的序号对应的槽位已经被取出
+        long sequence = claimed.incrementAndGet();
+        int index = (int) sequence & mask;
+        subscriptions[index] = subscription;
+        events[index] = event;
+        published.set(index, sequence);
+
+        Thread parked = waiter;
+        if (parked != null) {
+            LockSupport.unpark(parked);
+        }
+        if (!consumerRunning.get() && consumerRunning.compareAndSet(false, true)) {
+            eventBus.getBackgroundExecutorService().execute(this);
+        }
+    }
+
+    PostQueueStats getStats() {
+        return slots.getStats();
+    }
+
+    @Override
+    public void run() {
+        boolean ownsRunning = true; //当前线程是否持有consumerRunning标记
+        consumer = Thread.currentThread();
+        try {
+            long next = consumed + 1;
+            while (true) {
+                deliverOverflow();
+                if (!await(next)) {
+                    // Check again after clearing the flag, so a concurrent publish either
+                    // sees the flag cleared and resubmits, or is picked up here.
+                    // 溢出队列中的事件排在已经认领的序号之后,没有认领的序号时一定是空的,
+                    // 否则随consumerRunning标记交给新的任务
+                    consumer = null;
+                    consumerRunning.set(false);
+                    ownsRunning = false;
+                    if (claimed.get() == consumed || !consumerRunning.compareAndSet(false, true)) {
+                        return;
+                    }
+                    ownsRunning = true;
+                    consumer = Thread.currentThread();
+                    continue;
+                }
+                //依次响应已经连续发布的事件,以及排在它们之后的溢出事件
+                long last = claimed.get();
+                do {
+                    deliver(next);
+                    next++;
+                    deliverOverflow();
+                } while (next <= last && published.get((int) next & mask) == next);
+            }
+        } finally {
+            if (ownsRunning) {
+                //响应方法抛出异常(throwSubscriberException)时,剩下的事件交给新的任务
+                consumer = null;
+                consumerRunning.set(false);
+                if ((claimed.get() != consumed || !overflow.isEmpty()) && consumerRunning
+                        .compareAndSet(false, true)) {
+                    eventBus.getBackgroundExecutorService().execute(this);
+                }
+            }
+        }
+    }
+
+    private void deliver(long sequence) {
+        int index = (int) sequence & mask;
+        Subscription subscription = subscriptions[index];
+        Object event = events[index];
+        subscriptions[index] = null;
+        events[index] = null;
+        //先释放槽位,等待的发送线程可以继续
+        consumed = sequence;
+        slots.release();
+        dispatch(subscription, event);
+    }
+
+    /**
+     * 响应排在已经取出的序号之后的溢出事件,响应时新发送的事件同样按顺序排在后面
+     */
+    private void deliverOverflow() {
+        Overflow next;
+        while ((next = overflow.peek()) != null && next.after <= consumed) {
+            overflow.poll();
+            dispatch(next.subscription, next.event);
+        }
+    }
+
+    private void dispatch(Subscription subscription, Object event) {
+        event = eventBus.takeEvent(subscription, event);
+        if (event != null && subscription.active) {
+            eventBus.invokeQueuedSubscriber(subscription, event);
+        }
+    }
+
+    /**
+     * 按等待策略等待sequence被发布
+     *
+     * @return false表示空闲超时
+     */
+    private boolean await(long sequence) {
+        int index = (int) sequence & mask;
+        int spins = 0;
+        long deadline = 0;
+        while (published.get(index) != sequence) {
+            if (spins < SPIN_TRIES) {
+                spins++;
+                continue;
+            }
+            long now = System.nanoTime();
+            if (deadline == 0) {
+                deadline = now + keepAliveNanos;
+            } else if (now - deadline >= 0) {
+                return false;
+            }
+            switch (waitStrategy) {
+                case BLOCKING:
+                    waiter = Thread.currentThread();
+                    if (published.get(index) != sequence) {
+                        LockSupport.parkNanos(this, deadline - now);
+                    }
+                    waiter = null;
+                    break;
+                case YIELDING:
+                    Thread.yield();
+                    break;
+                default:
+                    //BUSY_SPIN
+                    break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 消费线程在响应方法中发送的事件
+     */
+    private static final class Overflow {
+        final Subscription subscription;
+        final Object event;
+        final long after; //发送时已经认领的最大序号,取出这个序号之后响应
+
+        Overflow(Subscription subscription, Object event, long after) {
+            this.subscription = subscription;
+            this.event = event;
+            this.after = after;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.kymjs.event;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+
+/**
+ * 使用Java序列化保存实现了{@link Serializable}的粘性事件。
+ * 事件中引用的类使用事件类型的ClassLoader加载。
+ */
+public class SerializableStickyEventCodec implements StickyEventCodec {
+
+    @Override
+    public boolean canEncode(Class<?> eventType) {
+        return Serializable.class.isAssignableFrom(eventType);
+    }
+
+    @Override
+    public byte[] encode(Object event) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(event);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Object decode(Class<?> eventType, byte[] data) throws IOException {
+        final ClassLoader classLoader = eventType.getClassLoader();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data)) {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException,
+                    ClassNotFoundException {
+                if (classLoader != null) {
+                    try {
+                        return Class.forName(desc.getName(), false, classLoader);
+                    } catch (ClassNotFoundException ignored) {
+                    }
+                }
+                return super.resolveClass(desc);
+            }
+        };
+        try {
+            return in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Cannot decode sticky event " + eventType.getName() + ": " + e);
+        } finally {
+            in.close();
+        }
+    }
+}
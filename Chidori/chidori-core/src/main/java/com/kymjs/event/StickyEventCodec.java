@@ -0,0 +1,24 @@
+package com.kymjs.event;
+
+import java.io.IOException;
+
+/**
+ * 粘性事件保存到文件时的编码方式,用于{@link EventBusBuilder#persistStickyEvents(java.io.File,
+ * StickyEventCodec)}。
+ * 编码在后台的写入线程中执行;解码在第一次读取这个粘性事件时执行,而不是在启动时。
+ */
+public interface StickyEventCodec {
+
+    /**
+     * @return 是否保存这个类型的粘性事件,不支持的类型只保存在内存中
+     */
+    boolean canEncode(Class<?> eventType);
+
+    byte[] encode(Object event) throws IOException;
+
+    /**
+     * @param eventType 写入时事件的具体类型
+     * @param data      {@link #encode(Object)}的结果
+     */
+    Object decode(Class<?> eventType, byte[] data) throws IOException;
+}
@@ -0,0 +1,501 @@
+package com.kymjs.event;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+/**
+ * 粘性事件的持久化:一个只追加写入的内存映射文件。
+ * <p>
+ * 文件以8字节的文件头(MAGIC、VERSION)开始,之后是一条条记录:
+ * <pre>
+ * int    记录的总长度,为0表示后面没有记录
+ * byte   操作:PUT或REMOVE
+ * long   写入时的System.currentTimeMillis(),重启后用于计算剩余的存活时间
+ * int    payload的CRC32
+ * short  类型名的长度,之后是类型名(UTF-8)
+ * byte[] payload,即{@link StickyEventCodec#encode(Object)}的结果(只有PUT有)
+ * </pre>
+ * 每条记录先写入内容和它后面的结束标记(0),最后才写入长度,进程在写入时被杀死只会丢失最后一条记录。
+ * <p>
+ * 启动时只扫描记录头,找出每个类型最新的PUT;payload在第一次读取事件时才校验和解码,见{@link Record}。
+ * 编码和写入都在一个后台线程中按顺序执行,不占用发送事件的线程。
+ * 失效的记录超过一半时,把有效的记录复制到新文件,再替换原来的文件。
+ * <p>
+ * 文件变大需要重新映射、或者整理后换成新文件时,立即释放之前映射的内存,不等到GC;
+ * 这之前把还没有解码的{@link Record}的内容复制到堆中。
+ */
+final class StickyEventJournal {
+
+    private static final int MAGIC = 0x43485345; //"CHSE"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 8;
+    //长度、操作、时间、CRC32、类型名长度
+    private static final int RECORD_HEADER_SIZE = 4 + 1 + 8 + 4 + 2;
+    private static final int MIN_CAPACITY = 64 * 1024;
+    private static final int MIN_COMPACT_SIZE = 256 * 1024; //文件小于这个大小时不整理
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final byte[] EMPTY = new byte[0];
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File file;
+    private final StickyEventCodec codec;
+    private final Logger logger;
+    private final ThreadPoolExecutor writer;
+    private List<Record> records = new ArrayList<Record>();
+    //payload仍然指向当前映射的内存的Record,释放映射之前复制到堆中,只在写入线程中访问
+    private List<Record> mappedRecords;
+
+    //以下字段只在构造方法和写入线程中使用
+    private RandomAccessFile randomAccessFile;
+    private MappedByteBuffer buffer;
+    private int position; //下一条记录的位置
+    //key:类型名,value:这个类型最新的PUT记录
+    private Map<String, Span> live = new LinkedHashMap<String, Span>();
+    private int liveBytes;
+
+    /**
+     * 打开并扫描文件;文件损坏时删除后重新创建,仍然失败时返回null,粘性事件只保存在内存中
+     */
+    static StickyEventJournal open(File file, StickyEventCodec codec, Logger logger) {
+        try {
+            return new StickyEventJournal(file, codec, logger);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not read sticky event file " + file + ", " +
+                    "recreating it", e);
+        }
+        try {
+            if (file.exists() && !file.delete()) {
+                throw new IOException("Could not delete " + file);
+            }
+            return new StickyEventJournal(file, codec, logger);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Sticky events will not be persisted", e);
+            return null;
+        }
+    }
+
+    private StickyEventJournal(File file, StickyEventCodec codec, Logger logger) throws
+            IOException {
+        this.file = file;
+        this.codec = codec;
+        this.logger = logger;
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Could not create directory " + parent);
+        }
+        randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            long length = randomAccessFile.length();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Sticky event file too large: " + length);
+            }
+            buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, Math
+                    .max(MIN_CAPACITY, length));
+            if (length < FILE_HEADER_SIZE) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putInt(FILE_HEADER_SIZE, 0);
+                position = FILE_HEADER_SIZE;
+            } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not a sticky event file: " + file);
+            } else {
+                scan();
+            }
+        } catch (IOException e) {
+            if (buffer != null) {
+                MappedFiles.unmap(buffer);
+            }
+            randomAccessFile.close();
+            throw e;
+        }
+        writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "Chidori-StickyEvents");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        //上次退出前可能没来得及整理
+        execute(new WriteTask() {
+            @Override
+            void write() {
+            }
+        });
+    }
+
+    /**
+     * 找出每个类型最新的PUT记录。记录损坏时停在那里,之后的记录会被新写入的覆盖。
+     */
+    private void scan() {
+        int capacity = buffer.capacity();
+        int pos = FILE_HEADER_SIZE;
+        while (pos <= capacity - RECORD_HEADER_SIZE) {
+            int length = buffer.getInt(pos);
+            if (length < RECORD_HEADER_SIZE || length > capacity - pos) {
+                break;
+            }
+            byte op = buffer.get(pos + 4);
+            int nameLength = buffer.getShort(pos + 17) & 0xffff;
+            if (RECORD_HEADER_SIZE + nameLength > length || (op != OP_PUT && op != OP_REMOVE)) {
+                break;
+            }
+            byte[] name = new byte[nameLength];
+            ByteBuffer source = buffer.duplicate();
+            source.position(pos + RECORD_HEADER_SIZE);
+            source.get(name);
+            String typeName = new String(name, UTF_8);
+            if (op == OP_PUT) {
+                setLive(typeName, new Span(pos, length));
+            } else {
+                setLive(typeName, null);
+            }
+            pos += length;
+        }
+        position = pos;
+
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader == null) {
+            classLoader = StickyEventJournal.class.getClassLoader();
+        }
+        for (Iterator<Map.Entry<String, Span>> it = live.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Span> entry = it.next();
+            Class<?> eventType;
+            try {
+                eventType = Class.forName(entry.getKey(), false, classLoader);
+            } catch (ClassNotFoundException e) {
+                //事件类型已经不存在了,整理时丢弃
+                logger.log(Level.INFO, "Dropping persisted sticky event of missing type " + entry
+                        .getKey());
+                liveBytes -= entry.getValue().length;
+                it.remove();
+                continue;
+            }
+            Span span = entry.getValue();
+            int payloadOffset = span.offset + RECORD_HEADER_SIZE + (buffer.getShort(span.offset +
+                    17) & 0xffff);
+            ByteBuffer payload = buffer.duplicate();
+            payload.limit(span.offset + span.length);
+            payload.position(payloadOffset);
+            records.add(new Record(eventType, buffer.getLong(span.offset + 5), payload.slice(),
+                    buffer.getInt(span.offset + 13)));
+        }
+        mappedRecords = new ArrayList<Record>(records);
+    }
+
+    /**
+     * 启动时文件中保存的粘性事件,还没有解码。只能调用一次。
+     */
+    List<Record> takeRecords() {
+        List<Record> result = records;
+        records = null;
+        return result;
+    }
+
+    /**
+     * 校验并解码启动时读取的粘性事件
+     *
+     * @throws IOException 记录损坏或者解码失败
+     */
+    Object decode(Record record) throws IOException {
+        byte[] data = record.takePayload();
+        if (data == null) {
+            throw new IOException("Sticky event " + record.eventType.getName() + " already " +
+                    "decoded");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        if ((int) crc.getValue() != record.crc) {
+            throw new IOException("Corrupted sticky event " + record.eventType.getName());
+        }
+        return codec.decode(record.eventType, data);
+    }
+
+    /**
+     * @param time 发送事件时的System.currentTimeMillis()
+     */
+    void put(final Object event, final long time) {
+        final Class<?> eventType = event.getClass();
+        if (!codec.canEncode(eventType)) {
+            return;
+        }
+        execute(new WriteTask() {
+            @Override
+            void write() throws IOException {
+                String typeName = eventType.getName();
+                byte[] payload;
+                try {
+                    payload = codec.encode(event);
+                } catch (IOException e) {
+                    //不能让重启后恢复出上一个事件
+                    remove(typeName);
+                    throw e;
+                } catch (RuntimeException e) {
+                    remove(typeName);
+                    throw e;
+                }
+                append(OP_PUT, typeName, time, payload);
+            }
+        });
+    }
+
+    void remove(final Class<?> eventType) {
+        if (!codec.canEncode(eventType)) {
+            return;
+        }
+        execute(new WriteTask() {
+            @Override
+            void write() throws IOException {
+                remove(eventType.getName());
+            }
+        });
+    }
+
+    void clear() {
+        execute(new WriteTask() {
+            @Override
+            void write() throws IOException {
+                //从头开始写,之前的记录都被结束标记挡住
+                buffer.putInt(FILE_HEADER_SIZE, 0);
+                position = FILE_HEADER_SIZE;
+                live.clear();
+                liveBytes = 0;
+            }
+        });
+    }
+
+    /**
+     * 等待之前提交的写入完成
+     */
+    void flush() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+        latch.await();
+    }
+
+    private void execute(WriteTask task) {
+        writer.execute(task);
+    }
+
+    private void remove(String typeName) throws IOException {
+        if (live.containsKey(typeName)) {
+            append(OP_REMOVE, typeName, System.currentTimeMillis(), EMPTY);
+        }
+    }
+
+    private void append(byte op, String typeName, long time, byte[] payload) throws
+            IOException {
+        byte[] name = typeName.getBytes(UTF_8);
+        if (name.length > 0xffff) {
+            throw new IOException("Type name too long: " + typeName);
+        }
+        long length = (long) RECORD_HEADER_SIZE + name.length + payload.length;
+        ensureCapacity(position + length + 4);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        int pos = position;
+        buffer.put(pos + 4, op);
+        buffer.putLong(pos + 5, time);
+        buffer.putInt(pos + 13, (int) crc.getValue());
+        buffer.putShort(pos + 17, (short) name.length);
+        ByteBuffer target = buffer.duplicate();
+        target.position(pos + RECORD_HEADER_SIZE);
+        target.put(name);
+        target.put(payload);
+        buffer.putInt(pos + (int) length, 0);
+        buffer.putInt(pos, (int) length);
+        position = pos + (int) length;
+        setLive(typeName, op == OP_PUT ? new Span(pos, (int) length) : null);
+    }
+
+    private void setLive(String typeName, Span span) {
+        Span previous = span != null ? live.put(typeName, span) : live.remove(typeName);
+        if (previous != null) {
+            liveBytes -= previous.length;
+        }
+        if (span != null) {
+            liveBytes += span.length;
+        }
+    }
+
+    private void ensureCapacity(long required) throws IOException {
+        if (required <= buffer.capacity()) {
+            return;
+        }
+        MappedByteBuffer previous = buffer;
+        buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                capacityFor(required));
+        unmap(previous);
+    }
+
+    /**
+     * 释放不再使用的映射。还没有解码的Record先复制到堆中,之后不再引用任何映射的内存
+     */
+    private void unmap(MappedByteBuffer previous) {
+        if (mappedRecords != null) {
+            for (int i = 0, size = mappedRecords.size(); i < size; i++) {
+                mappedRecords.get(i).detach();
+            }
+            mappedRecords = null;
+        }
+        MappedFiles.unmap(previous);
+    }
+
+    private static long capacityFor(long required) throws IOException {
+        long capacity = MIN_CAPACITY;
+        while (capacity < required) {
+            capacity <<= 1;
+        }
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException("Sticky event file too large: " + required);
+        }
+        return capacity;
+    }
+
+    /**
+     * 失效的记录超过一半时,把有效的记录复制到临时文件,再原子地替换原来的文件
+     */
+    private void compactIfNeeded() throws IOException {
+        if (position < MIN_COMPACT_SIZE || liveBytes * 2L > position - FILE_HEADER_SIZE) {
+            return;
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        RandomAccessFile tempFile = new RandomAccessFile(temp, "rw");
+        MappedByteBuffer target = null;
+        try {
+            tempFile.setLength(0);
+            target = tempFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacityFor
+                    (FILE_HEADER_SIZE + liveBytes + 4));
+            target.putInt(0, MAGIC);
+            target.putInt(4, VERSION);
+            int pos = FILE_HEADER_SIZE;
+            Map<String, Span> moved = new LinkedHashMap<String, Span>();
+            for (Map.Entry<String, Span> entry : live.entrySet()) {
+                Span span = entry.getValue();
+                ByteBuffer source = buffer.duplicate();
+                source.limit(span.offset + span.length);
+                source.position(span.offset);
+                target.position(pos);
+                target.put(source);
+                moved.put(entry.getKey(), new Span(pos, span.length));
+                pos += span.length;
+            }
+            target.putInt(pos, 0);
+            target.force();
+            MappedFiles.replace(temp, file);
+            randomAccessFile.close();
+            randomAccessFile = tempFile;
+            MappedByteBuffer previous = buffer;
+            buffer = target;
+            position = pos;
+            live = moved;
+            unmap(previous);
+        } catch (IOException e) {
+            if (target != null) {
+                MappedFiles.unmap(target);
+            }
+            tempFile.close();
+            temp.delete();
+            throw e;
+        }
+    }
+
+    private abstract class WriteTask implements Runnable {
+        @Override
+        public final void run() {
+            try {
+                write();
+                compactIfNeeded();
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "Could not write sticky event file " + file, e);
+            }
+        }
+
+        abstract void write() throws IOException;
+    }
+
+    private static final class Span {
+        final int offset;
+        final int length;
+
+        Span(int offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * 启动时从文件中读取的一个粘性事件,payload指向映射的内存,解码前不复制;
+     * 写入线程释放这段映射之前通过{@link #detach()}复制到堆中
+     */
+    static final class Record {
+        final Class<?> eventType;
+        final long time; //发送事件时的System.currentTimeMillis()
+        private final int size;
+        private final int crc;
+        private ByteBuffer payload; //解码时取出后为null
+
+        Record(Class<?> eventType, long time, ByteBuffer payload, int crc) {
+            this.eventType = eventType;
+            this.time = time;
+            this.payload = payload;
+            this.crc = crc;
+            size = payload.remaining();
+        }
+
+        /**
+         * 编码后的大小
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * @return 编码后的内容,已经取出过时返回null
+         */
+        synchronized byte[] takePayload() {
+            if (payload == null) {
+                return null;
+            }
+            byte[] data = new byte[payload.remaining()];
+            payload.duplicate().get(data);
+            payload = null;
+            return data;
+        }
+
+        /**
+         * 把还没有取出的内容复制到堆中,之后不再引用映射的内存
+         */
+        synchronized void detach() {
+            if (payload != null && payload.isDirect()) {
+                byte[] data = new byte[payload.remaining()];
+                payload.duplicate().get(data);
+                payload = ByteBuffer.wrap(data);
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.kymjs.event;
+
+/**
+ * 估算粘性事件占用的内存,用于{@link EventBusBuilder#maxStickyEventBytes(long)}。
+ * 在postSticky时对每个事件调用一次,应该足够快,例如Bitmap可以返回getByteCount()。
+ */
+public interface StickyEventSizeEstimator {
+
+    /**
+     * @param event 粘性事件
+     * @return 估算的字节数,不能为负数
+     */
+    long sizeOf(Object event);
+}
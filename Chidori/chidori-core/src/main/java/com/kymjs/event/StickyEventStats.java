@@ -0,0 +1,41 @@
+package com.kymjs.event;
+
+/**
+ * 粘性事件存储的统计信息,通过{@link EventBus#getStickyEventStats()}获取
+ */
+public final class StickyEventStats {
+    /** 当前保存的粘性事件数 */
+    public final int count;
+
+    /** 当前保存的粘性事件估算的总大小,没有设置{@link StickyEventSizeEstimator}时为0 */
+    public final long estimatedBytes;
+
+    /** {@link EventBus#getStickyEvent(Class)}取到事件的次数 */
+    public final long hits;
+
+    /** {@link EventBus#getStickyEvent(Class)}没有取到事件(不存在或已过期)的次数 */
+    public final long misses;
+
+    /** 超出数量或大小限制被移除的事件数 */
+    public final long evictions;
+
+    /** 超过存活时间被移除的事件数 */
+    public final long expirations;
+
+    public StickyEventStats(int count, long estimatedBytes, long hits, long misses, long
+            evictions, long expirations) {
+        this.count = count;
+        this.estimatedBytes = estimatedBytes;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+    }
+
+    @Override
+    public String toString() {
+        return "StickyEventStats{count=" + count + ", estimatedBytes=" + estimatedBytes + ", " +
+                "hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", " +
+                "expirations=" + expirations + "}";
+    }
+}
@@ -0,0 +1,581 @@
+package com.kymjs.event;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * 粘性事件的存储:每个具体事件类型保存最近一个事件。
+ * <p>
+ * 开启事件继承时还维护一个索引:key是有粘性事件的类型的每一个父类和接口(包括它自己),
+ * value是这个类型下所有有粘性事件的具体类型。registerSticky时只需要查一次索引,
+ * 重放的开销与匹配的粘性事件数量成正比,而不是与全部粘性事件的数量成正比。
+ * <p>
+ * 可以限制事件的存活时间(按类型设置,对子类同样有效)、事件数量和估算的总大小。
+ * 过期的事件在读取时或下一次put时移除;超出限制时移除最久没有被读取的事件(LRU)。
+ * 事件同时在一个按访问顺序排列的双向链表中,以及所属存活时间的按过期时间排列的双向链表中
+ * (存活时间相同的事件按放入的顺序过期),清理和淘汰都从链表头开始,不需要遍历全部事件。
+ * <p>
+ * 设置了{@link StickyEventJournal}时,事件的修改同时写入文件;创建时从文件恢复的事件在第一次读取时才解码,
+ * 解码失败的事件直接丢弃。
+ * <p>
+ * 写操作(put、remove、clear、移除过期和超出限制的事件)持有this锁,保证事件、索引和链表一起更新;
+ * 读操作不加锁,索引的value是不可变数组,修改时整体替换。设置了数量或大小限制时,
+ * 读取只记录事件的访问时间;淘汰时在this锁中从访问顺序的链表头开始,把之后被读取过的事件按访问时间移到后面,
+ * 直到链表头是真正最久没有被读取的事件。
+ */
+final class StickyEventStore {
+
+    private static final Class<?>[] NO_TYPES = new Class<?>[0];
+    private static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    private final boolean eventInheritance;
+    //key:事件类型,value:该类型及其子类的粘性事件的存活时间(纳秒)
+    private final Map<Class<?>, Long> ttlNanosByType;
+    private final int maxCount;
+    private final long maxBytes;
+    private final StickyEventSizeEstimator sizeEstimator;
+    private final StickyEventJournal journal; //为null时不保存到文件
+    private final Logger logger;
+    private final boolean bounded; //是否限制了数量或大小,为true时读取记录访问时间
+
+    //key:具体事件类型,value:该类型最近的粘性事件
+    private final ConcurrentHashMap<Class<?>, Entry> events = new ConcurrentHashMap<Class<?>,
+            Entry>();
+    //key:父类或接口(包括类型自己),value:有粘性事件的具体类型
+    private final ConcurrentHashMap<Class<?>, Class<?>[]> subtypesByType = new
+            ConcurrentHashMap<Class<?>, Class<?>[]>();
+
+    //以下字段只在持有this锁时访问
+    private long totalBytes;
+    private long nextExpiry = NO_EXPIRY; //最早过期的时间,到了以后put时清理一次
+    private Entry lruHead; //最久没有被读取的事件
+    private Entry lruTail;
+    //key:存活时间,value:这个存活时间的事件,最早过期的在前
+    private final Map<Long, ExpiryList> expiryLists = new HashMap<Long, ExpiryList>();
+    private volatile long evictions;
+    private volatile long expirations;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    StickyEventStore(EventBusBuilder builder, Logger logger) {
+        this.logger = logger;
+        eventInheritance = builder.eventInheritance;
+        ttlNanosByType = builder.stickyEventTtls != null ? new HashMap<Class<?>, Long>(builder
+                .stickyEventTtls) : null;
+        maxCount = builder.maxStickyEvents;
+        maxBytes = builder.maxStickyEventBytes;
+        sizeEstimator = builder.stickyEventSizeEstimator;
+        bounded = maxCount > 0 || maxBytes > 0;
+        journal = builder.stickyEventFile != null ? StickyEventJournal.open(builder
+                .stickyEventFile, builder.stickyEventCodec, logger) : null;
+        if (journal != null) {
+            restore(journal.takeRecords());
+        }
+    }
+
+    /**
+     * 供{@link EventBus#getStickyEvent(Class)}使用,统计命中次数
+     */
+    Object get(Class<?> eventType) {
+        Object event = peek(eventType);
+        if (event != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return event;
+    }
+
+    /**
+     * 取出粘性事件但不统计,用于registerSticky时重放
+     */
+    Object peek(Class<?> eventType) {
+        Entry entry = events.get(eventType);
+        if (entry == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (entry.isExpired(now)) {
+            expire(eventType, entry);
+            return null;
+        }
+        if (bounded) {
+            //不加锁,淘汰时再调整访问顺序
+            entry.accessed = now;
+        }
+        return resolve(eventType, entry);
+    }
+
+    /**
+     * 开启事件继承时返回所有可以赋值给eventType的、有粘性事件的具体类型;
+     * 关闭时只有eventType自己(如果有粘性事件)
+     */
+    Class<?>[] getStickyTypes(Class<?> eventType) {
+        if (!eventInheritance) {
+            return events.containsKey(eventType) ? new Class<?>[]{eventType} : NO_TYPES;
+        }
+        Class<?>[] types = subtypesByType.get(eventType);
+        return types != null ? types : NO_TYPES;
+    }
+
+    synchronized void put(Object event) {
+        Class<?> eventClass = event.getClass();
+        long now = System.nanoTime();
+        long size = sizeEstimator != null ? sizeEstimator.sizeOf(event) : 0;
+        long ttl = ttlNanosFor(eventClass);
+        long expiresAt = ttl > 0 && now + ttl > now ? now + ttl : NO_EXPIRY;
+        Entry entry = new Entry(eventClass, event, null, size, ttl, expiresAt, now);
+        Entry previous = events.put(eventClass, entry);
+        if (journal != null) {
+            journal.put(event, System.currentTimeMillis());
+        }
+        if (previous != null) {
+            totalBytes -= previous.size;
+            unlink(previous);
+        } else {
+            addToIndex(eventClass);
+        }
+        totalBytes += size;
+        link(entry);
+        if (nextExpiry != NO_EXPIRY && now - nextExpiry >= 0) {
+            purgeExpired(now);
+        }
+        evictIfNeeded(eventClass);
+    }
+
+    /**
+     * 按顺序保存,同一类型保留最后一个;只加一次锁
+     */
+    synchronized void putAll(Collection<?> events) {
+        for (Object event : events) {
+            put(event);
+        }
+    }
+
+    synchronized Object remove(Class<?> eventType) {
+        Entry removed = events.remove(eventType);
+        if (removed == null) {
+            return null;
+        }
+        removed(eventType, removed);
+        return resolve(eventType, removed);
+    }
+
+    /**
+     * 只有当前的粘性事件equals event时才移除
+     */
+    synchronized boolean remove(Object event) {
+        Class<?> eventClass = event.getClass();
+        Entry entry = events.get(eventClass);
+        if (entry != null && event.equals(resolve(eventClass, entry))) {
+            events.remove(eventClass);
+            removed(eventClass, entry);
+            return true;
+        }
+        return false;
+    }
+
+    synchronized void clear() {
+        events.clear();
+        subtypesByType.clear();
+        totalBytes = 0;
+        nextExpiry = NO_EXPIRY;
+        //正在读取的线程可能还持有旧的事件,标记为已移除,不再移动它
+        for (Entry entry = lruHead; entry != null; entry = entry.lruNext) {
+            entry.linked = false;
+        }
+        lruHead = null;
+        lruTail = null;
+        expiryLists.clear();
+        if (journal != null) {
+            journal.clear();
+        }
+    }
+
+    StickyEventStats getStats() {
+        long bytes;
+        synchronized (this) {
+            bytes = totalBytes;
+        }
+        return new StickyEventStats(events.size(), bytes, hits.get(), misses.get(), evictions,
+                expirations);
+    }
+
+    /**
+     * 放入从文件中读取的事件,事件在第一次读取时解码。存活时间从发送事件时开始计算。
+     */
+    private synchronized void restore(List<StickyEventJournal.Record> records) {
+        long now = System.nanoTime();
+        long currentTime = System.currentTimeMillis();
+        for (int i = 0, count = records.size(); i < count; i++) {
+            StickyEventJournal.Record record = records.get(i);
+            long expiresAt = NO_EXPIRY;
+            long ttl = ttlNanosFor(record.eventType);
+            if (ttl > 0) {
+                long remaining = ttl - TimeUnit.MILLISECONDS.toNanos(Math.max(0, currentTime -
+                        record.time));
+                if (remaining <= 0) {
+                    journal.remove(record.eventType);
+                    expirations++;
+                    continue;
+                }
+                if (now + remaining > now) {
+                    expiresAt = now + remaining;
+                }
+            }
+            // 没有解码时用编码后的大小估算
+            long size = sizeEstimator != null ? record.size() : 0;
+            Entry entry = new Entry(record.eventType, null, record, size, ttl, expiresAt, now);
+            events.put(record.eventType, entry);
+            addToIndex(record.eventType);
+            totalBytes += size;
+            link(entry);
+        }
+        evictIfNeeded(null);
+    }
+
+    /**
+     * 取出事件,从文件恢复的事件在这里解码
+     */
+    private Object resolve(Class<?> eventType, Entry entry) {
+        Object event = entry.event;
+        if (event != null) {
+            return event;
+        }
+        synchronized (entry) {
+            event = entry.event;
+            if (event == null && entry.record != null) {
+                try {
+                    event = journal.decode(entry.record);
+                    entry.event = event;
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, "Could not restore sticky event " + eventType
+                            .getName(), e);
+                }
+                entry.record = null;
+            }
+        }
+        if (event == null) {
+            discard(eventType, entry);
+        }
+        return event;
+    }
+
+    private synchronized void discard(Class<?> eventType, Entry entry) {
+        if (events.remove(eventType, entry)) {
+            removed(eventType, entry);
+        }
+    }
+
+    private long ttlNanosFor(Class<?> eventClass) {
+        if (ttlNanosByType == null) {
+            return 0;
+        }
+        // 离事件类型最近的父类或接口的设置优先
+        List<Class<?>> types = EventBus.lookupAllEventTypes(eventClass);
+        for (int i = 0, size = types.size(); i < size; i++) {
+            Long ttl = ttlNanosByType.get(types.get(i));
+            if (ttl != null) {
+                return ttl;
+            }
+        }
+        return 0;
+    }
+
+    private synchronized void expire(Class<?> eventType, Entry entry) {
+        // 可能已经被替换或移除
+        if (events.remove(eventType, entry)) {
+            removed(eventType, entry);
+            expirations++;
+        }
+    }
+
+    /**
+     * 从每个存活时间的链表头移除已经过期的事件,开销与过期的事件数成正比
+     */
+    private void purgeExpired(long now) {
+        long earliest = NO_EXPIRY;
+        for (ExpiryList list : expiryLists.values()) {
+            Entry entry;
+            while ((entry = list.head) != null && entry.isExpired(now)) {
+                events.remove(entry.eventType);
+                removed(entry.eventType, entry);
+                expirations++;
+            }
+            if (entry != null && isEarlier(entry.expiresAt, earliest)) {
+                earliest = entry.expiresAt;
+            }
+        }
+        nextExpiry = earliest;
+    }
+
+    /**
+     * 超出数量或大小限制时,先移除过期的事件,再从访问顺序的链表头逐个移除最久没有被读取的事件。
+     * 刚放入的事件不会被移除,所以单个超出大小限制的事件仍然会保存。
+     */
+    private void evictIfNeeded(Class<?> justPut) {
+        if (!isOverBudget()) {
+            return;
+        }
+        purgeExpired(System.nanoTime());
+        while (isOverBudget()) {
+            Entry eldest = leastRecentlyUsed(justPut);
+            if (eldest == null) {
+                return;
+            }
+            events.remove(eldest.eventType);
+            removed(eldest.eventType, eldest);
+            evictions++;
+        }
+    }
+
+    /**
+     * 链表按放入链表时的访问时间排列。从链表头开始,放入之后又被读取过的事件按新的访问时间移到后面,
+     * 直到遇到没有再被读取的事件:其他事件的访问时间都不早于它,它就是最久没有被读取的
+     *
+     * @param skip 刚放入的事件类型,不淘汰
+     */
+    private Entry leastRecentlyUsed(Class<?> skip) {
+        Entry skipped = null;
+        Entry entry = lruHead;
+        while (entry != null) {
+            long accessed = entry.accessed;
+            if (accessed - entry.positioned > 0) {
+                unlinkLru(entry);
+                entry.positioned = accessed;
+                insertLru(entry);
+                entry = skipped != null ? skipped.lruNext : lruHead;
+            } else if (entry.eventType == skip) {
+                skipped = entry;
+                entry = entry.lruNext;
+            } else {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 放入访问顺序的末尾和所属存活时间的链表
+     */
+    private void link(Entry entry) {
+        insertLru(entry);
+        entry.linked = true;
+        if (entry.expiresAt == NO_EXPIRY) {
+            return;
+        }
+        ExpiryList list = expiryLists.get(entry.ttl);
+        if (list == null) {
+            list = new ExpiryList();
+            expiryLists.put(entry.ttl, list);
+        }
+        list.insert(entry);
+        if (isEarlier(entry.expiresAt, nextExpiry)) {
+            nextExpiry = entry.expiresAt;
+        }
+    }
+
+    private void unlink(Entry entry) {
+        if (!entry.linked) {
+            return;
+        }
+        entry.linked = false;
+        unlinkLru(entry);
+        if (entry.expiresAt != NO_EXPIRY) {
+            //存活时间只有设置过的几种,空的链表留着下次使用
+            expiryLists.get(entry.ttl).remove(entry);
+        }
+    }
+
+    /**
+     * 按positioned放入访问顺序的链表,通常就在末尾,从末尾向前找位置
+     */
+    private void insertLru(Entry entry) {
+        Entry prev = lruTail;
+        while (prev != null && entry.positioned - prev.positioned < 0) {
+            prev = prev.lruPrev;
+        }
+        entry.lruPrev = prev;
+        entry.lruNext = prev != null ? prev.lruNext : lruHead;
+        if (prev == null) {
+            lruHead = entry;
+        } else {
+            prev.lruNext = entry;
+        }
+        if (entry.lruNext == null) {
+            lruTail = entry;
+        } else {
+            entry.lruNext.lruPrev = entry;
+        }
+    }
+
+    private void unlinkLru(Entry entry) {
+        if (entry.lruPrev == null) {
+            lruHead = entry.lruNext;
+        } else {
+            entry.lruPrev.lruNext = entry.lruNext;
+        }
+        if (entry.lruNext == null) {
+            lruTail = entry.lruPrev;
+        } else {
+            entry.lruNext.lruPrev = entry.lruPrev;
+        }
+        entry.lruPrev = null;
+        entry.lruNext = null;
+    }
+
+    /**
+     * System.nanoTime()的值可能溢出,只比较差值
+     */
+    private static boolean isEarlier(long expiresAt, long other) {
+        return expiresAt != NO_EXPIRY && (other == NO_EXPIRY || expiresAt - other < 0);
+    }
+
+    private boolean isOverBudget() {
+        return (maxCount > 0 && events.size() > maxCount) || (maxBytes > 0 && totalBytes >
+                maxBytes);
+    }
+
+    /**
+     * 事件已经从events中移除,更新大小、链表和索引
+     */
+    private void removed(Class<?> eventClass, Entry entry) {
+        totalBytes -= entry.size;
+        unlink(entry);
+        if (journal != null) {
+            journal.remove(eventClass);
+        }
+        if (!eventInheritance) {
+            return;
+        }
+        List<Class<?>> supertypes = EventBus.lookupAllEventTypes(eventClass);
+        for (int i = 0, size = supertypes.size(); i < size; i++) {
+            removeSubtype(supertypes.get(i), eventClass);
+        }
+    }
+
+    private void addToIndex(Class<?> eventClass) {
+        if (!eventInheritance) {
+            return;
+        }
+        List<Class<?>> supertypes = EventBus.lookupAllEventTypes(eventClass);
+        for (int i = 0, size = supertypes.size(); i < size; i++) {
+            addSubtype(supertypes.get(i), eventClass);
+        }
+    }
+
+    private void addSubtype(Class<?> supertype, Class<?> eventClass) {
+        Class<?>[] types = subtypesByType.get(supertype);
+        if (types == null) {
+            subtypesByType.put(supertype, new Class<?>[]{eventClass});
+            return;
+        }
+        Class<?>[] newTypes = new Class<?>[types.length + 1];
+        System.arraycopy(types, 0, newTypes, 0, types.length);
+        newTypes[types.length] = eventClass;
+        subtypesByType.put(supertype, newTypes);
+    }
+
+    private void removeSubtype(Class<?> supertype, Class<?> eventClass) {
+        Class<?>[] types = subtypesByType.get(supertype);
+        if (types == null) {
+            return;
+        }
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == eventClass) {
+                if (types.length == 1) {
+                    subtypesByType.remove(supertype);
+                } else {
+                    Class<?>[] newTypes = new Class<?>[types.length - 1];
+                    System.arraycopy(types, 0, newTypes, 0, i);
+                    System.arraycopy(types, i + 1, newTypes, i, types.length - i - 1);
+                    subtypesByType.put(supertype, newTypes);
+                }
+                return;
+            }
+        }
+    }
+
+    private static final class Entry {
+        final Class<?> eventType;
+        volatile Object event; //从文件恢复的事件解码前为null
+        StickyEventJournal.Record record; //还没有解码的事件,只在持有Entry锁时访问
+        final long size; //估算的大小
+        final long ttl; //存活时间(纳秒),0表示不过期
+        final long expiresAt; //过期时间(System.nanoTime()),不过期时为NO_EXPIRY
+        volatile long accessed; //最近一次放入或读取的时间(System.nanoTime()),读取时不加锁写入
+
+        //以下字段只在持有StickyEventStore锁时访问
+        long positioned; //在访问顺序的链表中的位置对应的访问时间
+        boolean linked; //是否在链表中,移除或被替换后为false
+        Entry lruPrev;
+        Entry lruNext;
+        Entry expiryPrev;
+        Entry expiryNext;
+
+        Entry(Class<?> eventType, Object event, StickyEventJournal.Record record, long size, long
+                ttl, long expiresAt, long now) {
+            this.eventType = eventType;
+            this.event = event;
+            this.record = record;
+            this.size = size;
+            this.ttl = ttl;
+            this.expiresAt = expiresAt;
+            accessed = now;
+            positioned = now;
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt != NO_EXPIRY && now - expiresAt >= 0;
+        }
+    }
+
+    /**
+     * 存活时间相同的事件,按过期时间排列。放入时的过期时间通常晚于已有的,从末尾向前找位置
+     */
+    private static final class ExpiryList {
+        Entry head;
+        Entry tail;
+
+        void insert(Entry entry) {
+            Entry prev = tail;
+            while (prev != null && entry.expiresAt - prev.expiresAt < 0) {
+                prev = prev.expiryPrev;
+            }
+            entry.expiryPrev = prev;
+            entry.expiryNext = prev != null ? prev.expiryNext : head;
+            if (prev == null) {
+                head = entry;
+            } else {
+                prev.expiryNext = entry;
+            }
+            if (entry.expiryNext == null) {
+                tail = entry;
+            } else {
+                entry.expiryNext.expiryPrev = entry;
+            }
+        }
+
+        void remove(Entry entry) {
+            if (entry.expiryPrev == null) {
+                head = entry.expiryNext;
+            } else {
+                entry.expiryPrev.expiryNext = entry.expiryNext;
+            }
+            if (entry.expiryNext == null) {
+                tail = entry.expiryPrev;
+            } else {
+                entry.expiryNext.expiryPrev = entry.expiryPrev;
+            }
+            entry.expiryPrev = null;
+            entry.expiryNext = null;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.kymjs.event;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 后台线程为onEventBackgroundThreadBatch(List)方法攒起来的事件,每个订阅一批。
+ * 一批达到最大数量,或者第一个事件等待超过最长等待时间时交给订阅者;最长等待时间为0时,
+ * 队列暂时为空就立即交付。只由后台发送线程访问。
+ */
+final class SubscriberBatches {
+
+    private final EventBus eventBus;
+    private final int maxSize;
+    private final long lingerNanos;
+    //只保存有事件的批次,交付后移除,不会一直引用已经取消注册的订阅者;批次很少,线性查找
+    private final List<Batch> batches = new ArrayList<Batch>();
+    private long nextDeadline; //有批次时最早的交付时间
+
+    SubscriberBatches(EventBus eventBus, int maxSize, long lingerNanos) {
+        this.eventBus = eventBus;
+        this.maxSize = maxSize;
+        this.lingerNanos = lingerNanos;
+    }
+
+    boolean isEmpty() {
+        return batches.isEmpty();
+    }
+
+    /**
+     * @return 不为空时到最早的交付时间还有多少纳秒
+     */
+    long nanosUntilDeadline(long now) {
+        return nextDeadline - now;
+    }
+
+    void add(Subscription subscription, Object event) {
+        Batch batch = null;
+        for (int i = 0, size = batches.size(); i < size; i++) {
+            if (batches.get(i).subscription == subscription) {
+                batch = batches.get(i);
+                break;
+            }
+        }
+        if (batch == null) {
+            batch = new Batch(subscription, System.nanoTime() + lingerNanos);
+            if (batches.isEmpty() || batch.deadline - nextDeadline < 0) {
+                nextDeadline = batch.deadline;
+            }
+            batches.add(batch);
+        }
+        batch.events.add(event);
+        if (batch.events.size() >= maxSize) {
+            batches.remove(batch);
+            deliver(batch);
+            updateDeadline();
+        }
+    }
+
+    /**
+     * 队列里还有事件时调用:只交付等待超时的批次,最长等待时间为0时等队列空了再交付
+     */
+    void deliverExpired(long now) {
+        if (lingerNanos > 0) {
+            deliverDue(now);
+        }
+    }
+
+    /**
+     * 交付已经到时间的批次
+     */
+    void deliverDue(long now) {
+        if (batches.isEmpty() || now - nextDeadline < 0) {
+            return;
+        }
+        for (int i = 0; i < batches.size(); ) {
+            Batch batch = batches.get(i);
+            if (now - batch.deadline >= 0) {
+                batches.remove(i);
+                deliver(batch);
+            } else {
+                i++;
+            }
+        }
+        updateDeadline();
+    }
+
+    /**
+     * 交付全部批次,例如后台线程被中断时
+     */
+    void deliverAll() {
+        while (!batches.isEmpty()) {
+            deliver(batches.remove(0));
+        }
+    }
+
+    private void deliver(Batch batch) {
+        //交给订阅者的列表之后不再使用,订阅者可以保留
+        if (batch.subscription.active) {
+            eventBus.invokeQueuedSubscriber(batch.subscription, batch.events);
+        }
+    }
+
+    private void updateDeadline() {
+        for (int i = 0, size = batches.size(); i < size; i++) {
+            long deadline = batches.get(i).deadline;
+            if (i == 0 || deadline - nextDeadline < 0) {
+                nextDeadline = deadline;
+            }
+        }
+    }
+
+    private static final class Batch {
+        final Subscription subscription;
+        final long deadline;
+        final List<Object> events = new ArrayList<Object>();
+
+        Batch(Subscription subscription, long deadline) {
+            this.subscription = subscription;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.kymjs.event;
+
+/**
+ * 直接调用订阅者响应方法的调用器,用于替代{@link java.lang.reflect.Method#invoke(Object, Object...)}。
+ * 订阅者响应方法抛出的异常原样抛出,由EventBus按照订阅者异常处理。
+ */
+public interface SubscriberInvoker {
+
+    /**
+     * @param subscriber 订阅者对象
+     * @param event      要响应的事件
+     */
+    void invoke(Object subscriber, Object event) throws Throwable;
+}
@@ -0,0 +1,18 @@
+package com.kymjs.event;
+
+import java.lang.reflect.Method;
+
+/**
+ * 为编译期索引没有覆盖到的响应方法创建调用器。每个响应方法只在第一次查找时创建一次调用器,
+ * 之后所有的事件都通过这个调用器分发。
+ *
+ * @see EventBusBuilder#subscriberInvokerFactory(SubscriberInvokerFactory)
+ */
+public interface SubscriberInvokerFactory {
+
+    /**
+     * @param method 订阅者的响应方法(public,只有一个参数)
+     * @return 调用这个方法的调用器, 返回null时使用反射调用
+     */
+    SubscriberInvoker create(Method method);
+}
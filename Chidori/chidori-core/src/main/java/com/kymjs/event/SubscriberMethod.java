@@ -18,16 +18,37 @@ package com.kymjs.event;
 import java.lang.reflect.Method;
 
 final class SubscriberMethod {
-    final Method method; //方法名
+    final Method method; //方法名,来自编译期索引时为null
     final ThreadMode threadMode; //工作在哪个线程
     final Class<?> eventType; //参数类型
+    final SubscriberInvoker invoker; //调用响应方法的调用器,查找时绑定一次
+    final boolean batch; //参数是List<eventType>,一次响应一批事件
     /** Used for efficient comparison */
     String methodString;
 
-    SubscriberMethod(Method method, ThreadMode threadMode, Class<?> eventType) {
+    SubscriberMethod(Method method, ThreadMode threadMode, Class<?> eventType, SubscriberInvoker
+            invoker, boolean batch) {
         this.method = method;
         this.threadMode = threadMode;
         this.eventType = eventType;
+        this.invoker = invoker;
+        this.batch = batch;
+    }
+
+    /**
+     * 来自编译期生成的订阅者索引,不需要反射
+     *
+     * @param declaringClass 声明响应方法的类
+     * @param methodName     方法名
+     */
+    SubscriberMethod(Class<?> declaringClass, String methodName, ThreadMode threadMode,
+                     Class<?> eventType, SubscriberInvoker invoker, boolean batch) {
+        this.method = null;
+        this.threadMode = threadMode;
+        this.eventType = eventType;
+        this.invoker = invoker;
+        this.batch = batch;
+        methodString = buildMethodString(declaringClass, methodName, eventType);
     }
 
     @Override
@@ -45,17 +66,24 @@ final class SubscriberMethod {
 
     private synchronized void checkMethodString() {
         if (methodString == null) {
-            // Method.toString has more overhead, just take relevant parts of the method
-            StringBuilder builder = new StringBuilder(64);
-            builder.append(method.getDeclaringClass().getName());
-            builder.append('#').append(method.getName());
-            builder.append('(').append(eventType.getName());
-            methodString = builder.toString();
+            methodString = buildMethodString(method.getDeclaringClass(), method.getName(),
+                    eventType);
         }
     }
 
+    private static String buildMethodString(Class<?> declaringClass, String methodName,
+                                            Class<?> eventType) {
+        // Method.toString has more overhead, just take relevant parts of the method
+        StringBuilder builder = new StringBuilder(64);
+        builder.append(declaringClass.getName());
+        builder.append('#').append(methodName);
+        builder.append('(').append(eventType.getName());
+        return builder.toString();
+    }
+
     @Override
     public int hashCode() {
-        return method.hashCode();
+        checkMethodString();
+        return methodString.hashCode();
     }
-}
\ No newline at end of file
+}
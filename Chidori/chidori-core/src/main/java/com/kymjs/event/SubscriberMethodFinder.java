@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 2012 Markus Junginger, greenrobot (http://greenrobot.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kymjs.event;
+
+import com.kymjs.event.meta.SubscriberInfo;
+import com.kymjs.event.meta.SubscriberInfoIndex;
+import com.kymjs.event.meta.SubscriberMethodInfo;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+class SubscriberMethodFinder {
+    private static final String ON_EVENT_METHOD_NAME = "onEvent";
+    //一次响应一批事件的方法:onEventBackgroundThreadBatch(List<EventType>)
+    private static final String BATCH_SUFFIX = "BackgroundThreadBatch";
+
+    /**
+     * 在较新的类文件，编译器可能会添加方法。那些被称为BRIDGE或SYNTHETIC方法。
+     * EventBus必须忽略两者。有修饰符没有公开，但在Java类文件中有格式定义
+     */
+    private static final int BRIDGE = 0x40;
+    private static final int SYNTHETIC = 0x1000;
+    //需要忽略的修饰符
+    private static final int MODIFIERS_IGNORE = Modifier.ABSTRACT | Modifier.STATIC | BRIDGE |
+            SYNTHETIC;
+
+    //key:类名,value:该类中需要相应的方法集合。方法已经绑定了本实例的调用器,所以不能在EventBus之间共享
+    private final Map<String, List<SubscriberMethod>> methodCache = new HashMap<String,
+            List<SubscriberMethod>>();
+
+    //跳过校验方法的类(即通过构造函数传入的集合)
+    private final Map<Class<?>, Class<?>> skipMethodVerificationForClasses;
+    //编译期生成的订阅者索引,索引中没有的类才通过反射查找
+    private final List<SubscriberInfoIndex> subscriberInfoIndexes;
+    //为反射找到的响应方法创建调用器,可以为null
+    private final SubscriberInvokerFactory invokerFactory;
+    private final Logger logger;
+
+    /**
+     * 构造方法
+     *
+     * @param skipMethodVerificationForClassesList 需要跳过校验方法的类
+     * @param subscriberInfoIndexes                编译期生成的订阅者索引,可以为null
+     * @param ignoreGeneratedIndex                 是否忽略订阅者索引,全部使用反射查找
+     * @param invokerFactory                       为反射找到的响应方法创建调用器,可以为null
+     * @param logger                               输出跳过的方法
+     */
+    SubscriberMethodFinder(List<Class<?>> skipMethodVerificationForClassesList,
+                           List<SubscriberInfoIndex> subscriberInfoIndexes, boolean
+                                   ignoreGeneratedIndex, SubscriberInvokerFactory invokerFactory,
+                           Logger logger) {
+        this.invokerFactory = invokerFactory;
+        this.logger = logger;
+        skipMethodVerificationForClasses = new ConcurrentHashMap<Class<?>, Class<?>>();
+        if (skipMethodVerificationForClassesList != null) {
+            for (Class<?> clazz : skipMethodVerificationForClassesList) {
+                skipMethodVerificationForClasses.put(clazz, clazz);
+            }
+        }
+        if (subscriberInfoIndexes == null || ignoreGeneratedIndex) {
+            this.subscriberInfoIndexes = Collections.emptyList();
+        } else {
+            this.subscriberInfoIndexes = new ArrayList<SubscriberInfoIndex>(subscriberInfoIndexes);
+        }
+    }
+
+    /**
+     * 查找一个类中全部的需要响应的订阅方法
+     *
+     * @param subscriberClass 待查找的类
+     */
+    List<SubscriberMethod> findSubscriberMethods(Class<?> subscriberClass) {
+        String key = subscriberClass.getName();
+        List<SubscriberMethod> subscriberMethods;
+        synchronized (methodCache) {
+            subscriberMethods = methodCache.get(key);
+        }
+        if (subscriberMethods != null) {
+            return subscriberMethods;
+        }
+
+        subscriberMethods = new ArrayList<SubscriberMethod>();
+        Class<?> clazz = subscriberClass;
+        HashSet<String> eventTypesFound = new HashSet<String>();
+        StringBuilder methodKeyBuilder = new StringBuilder();
+        while (clazz != null) {
+            String name = clazz.getName();
+            if (name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("android" +
+                    ".")) {
+                // Skip system classes, this just degrades performance
+                break;
+            }
+
+            SubscriberInfo subscriberInfo = getSubscriberInfo(clazz);
+            if (subscriberInfo != null) {
+                findUsingInfo(subscriberInfo, subscriberMethods, eventTypesFound,
+                        methodKeyBuilder);
+            } else {
+                findUsingReflection(clazz, subscriberMethods, eventTypesFound, methodKeyBuilder);
+            }
+            clazz = clazz.getSuperclass();
+        }
+        if (subscriberMethods.isEmpty()) {
+            throw new EventBusException("Subscriber " + subscriberClass + " has no public methods" +
+                    " called " + ON_EVENT_METHOD_NAME);
+        } else {
+            synchronized (methodCache) {
+                methodCache.put(key, subscriberMethods);
+            }
+            return subscriberMethods;
+        }
+    }
+
+    private SubscriberInfo getSubscriberInfo(Class<?> clazz) {
+        for (SubscriberInfoIndex index : subscriberInfoIndexes) {
+            SubscriberInfo info = index.getSubscriberInfo(clazz);
+            if (info != null) {
+                return info;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 使用编译期生成的索引,不需要反射
+     */
+    private void findUsingInfo(SubscriberInfo subscriberInfo, List<SubscriberMethod>
+            subscriberMethods, HashSet<String> eventTypesFound, StringBuilder methodKeyBuilder) {
+        Class<?> clazz = subscriberInfo.getSubscriberClass();
+        for (SubscriberMethodInfo methodInfo : subscriberInfo.getSubscriberMethods()) {
+            String methodName = methodInfo.getMethodName();
+            Class<?> eventType = methodInfo.getEventType();
+            methodKeyBuilder.setLength(0);
+            methodKeyBuilder.append(methodName);
+            methodKeyBuilder.append('>').append(eventType.getName());
+            if (eventTypesFound.add(methodKeyBuilder.toString())) {
+                subscriberMethods.add(new SubscriberMethod(clazz, methodName, methodInfo
+                        .getThreadMode(), eventType, methodInfo.getInvoker(), methodInfo
+                        .isBatch()));
+            }
+        }
+    }
+
+    /**
+     * 通过反射查找clazz自己声明的响应方法
+     */
+    private void findUsingReflection(Class<?> clazz, List<SubscriberMethod> subscriberMethods,
+                                     HashSet<String> eventTypesFound, StringBuilder
+                                             methodKeyBuilder) {
+        // 从2.2版本开始,响应的方法必须是public的 (might change with annotations again)
+        Method[] methods = clazz.getDeclaredMethods();
+        for (Method method : methods) {
+            String methodName = method.getName();
+            if (methodName.startsWith(ON_EVENT_METHOD_NAME)) {
+                int modifiers = method.getModifiers();//方法的修饰符
+                //如果是public,且 不是之前定义要忽略的类型
+                if ((modifiers & Modifier.PUBLIC) != 0 && (modifiers & MODIFIERS_IGNORE) == 0) {
+                    Class<?>[] parameterTypes = method.getParameterTypes();
+                    //如果只有一个参数
+                    if (parameterTypes.length == 1) {
+                        String modifierString = methodName.substring(ON_EVENT_METHOD_NAME
+                                .length());
+                        ThreadMode threadMode;
+                        boolean batch = false;
+                        if (modifierString.length() == 0) {
+                            threadMode = ThreadMode.PostThread;
+                        } else if (modifierString.equals("MainThread")) {
+                            threadMode = ThreadMode.MainThread;
+                        } else if (modifierString.equals("BackgroundThread")) {
+                            threadMode = ThreadMode.BackgroundThread;
+                        } else if (modifierString.equals("Async")) {
+                            threadMode = ThreadMode.Async;
+                        } else if (modifierString.equals(BATCH_SUFFIX)) {
+                            threadMode = ThreadMode.BackgroundThread;
+                            batch = true;
+                        } else {
+                            if (skipMethodVerificationForClasses.containsKey(clazz)) {
+                                continue;
+                            } else {
+                                throw new EventBusException("Illegal onEvent method, check " +
+                                        "for typos: " + method);
+                            }
+                        }
+                        Class<?> eventType = batch ? batchEventType(method) : parameterTypes[0];
+                        methodKeyBuilder.setLength(0);
+                        methodKeyBuilder.append(methodName);
+                        methodKeyBuilder.append('>').append(eventType.getName());
+                        String methodKey = methodKeyBuilder.toString();
+                        if (eventTypesFound.add(methodKey)) {
+                            // 方法名,工作在哪个线程,事件类型,调用器
+                            subscriberMethods.add(new SubscriberMethod(method, threadMode,
+                                    eventType, createInvoker(method), batch));
+                        }
+                    }
+                } else if (!skipMethodVerificationForClasses.containsKey(clazz)) {
+                    logger.log(Level.FINE, "Skipping method (not public, static or abstract): "
+                            + clazz + "." + methodName);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return onEventBackgroundThreadBatch(List&lt;T&gt;)的事件类型T,T是类型变量时取擦除后的类型(第一个上界),
+     * 与非批量方法onEvent(T)的参数类型一致
+     */
+    private static Class<?> batchEventType(Method method) {
+        if (method.getParameterTypes()[0] == List.class) {
+            Type parameterType = method.getGenericParameterTypes()[0];
+            if (parameterType instanceof ParameterizedType) {
+                Type elementType = ((ParameterizedType) parameterType).getActualTypeArguments()[0];
+                while (elementType instanceof TypeVariable) {
+                    elementType = ((TypeVariable<?>) elementType).getBounds()[0];
+                }
+                if (elementType instanceof ParameterizedType) {
+                    elementType = ((ParameterizedType) elementType).getRawType();
+                }
+                if (elementType instanceof Class) {
+                    return (Class<?>) elementType;
+                }
+            }
+        }
+        throw new EventBusException("Batch method must take a List<EventType> parameter: " +
+                method);
+    }
+
+    /**
+     * 每个响应方法只创建一次调用器
+     */
+    private SubscriberInvoker createInvoker(Method method) {
+        SubscriberInvoker invoker = null;
+        if (invokerFactory != null) {
+            invoker = invokerFactory.create(method);
+        }
+        return invoker != null ? invoker : new ReflectiveInvoker(method);
+    }
+
+    void clearCaches() {
+        synchronized (methodCache) {
+            methodCache.clear();
+        }
+    }
+}
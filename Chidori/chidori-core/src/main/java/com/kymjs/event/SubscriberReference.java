@@ -0,0 +1,17 @@
+package com.kymjs.event;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * 弱引用模式下对订阅者的引用,一个订阅者的所有Subscription和注册表共用同一个对象。
+ * 订阅者被回收后进入EventBus的ReferenceQueue,由此找到需要移除的订阅,不需要遍历注册表。
+ */
+final class SubscriberReference extends WeakReference<Object> {
+    final int hash; //订阅者的System.identityHashCode,回收以后仍然可以在注册表中定位
+
+    SubscriberReference(Object subscriber, ReferenceQueue<Object> queue) {
+        super(subscriber, queue);
+        hash = System.identityHashCode(subscriber);
+    }
+}
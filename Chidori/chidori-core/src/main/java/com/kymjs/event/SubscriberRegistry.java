@@ -0,0 +1,182 @@
+package com.kymjs.event;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 订阅者到它订阅的事件类型的映射,按对象身份(==)比较,不调用订阅者的hashCode()和equals()。
+ * <p>
+ * 开放寻址(线性探测)的哈希表,key和value交替存放在同一个数组中,value是订阅的事件类型数组
+ * (同一类型可能出现多次,每个响应方法一次),不需要为每个订阅者创建Entry和List。
+ * 删除时留下墓碑,墓碑和元素一起超过容量的一半时重新散列。
+ * <p>
+ * 弱引用模式下key是{@link SubscriberReference},按引用的对象比较;订阅者被回收后通过
+ * {@link #removeReference(SubscriberReference)}移除。
+ * <p>
+ * 修改只在持有EventBus锁时进行;读取不加锁(isRegistered),数组槽位通过AtomicReferenceArray读写,
+ * 扩容时整体替换数组。
+ */
+final class SubscriberRegistry {
+
+    private static final Object TOMBSTONE = new Object();
+    private static final int MIN_CAPACITY = 16; //槽位数,必须是2的幂
+
+    private volatile AtomicReferenceArray<Object> table = new AtomicReferenceArray<Object>(2 *
+            MIN_CAPACITY);
+    private int size;
+    private int tombstones;
+
+    /**
+     * 必须在同步代码块调用
+     */
+    int size() {
+        return size;
+    }
+
+    boolean contains(Object subscriber) {
+        return get(subscriber) != null;
+    }
+
+    /**
+     * @return 订阅者订阅的事件类型,没有注册时返回null
+     */
+    Class<?>[] get(Object subscriber) {
+        AtomicReferenceArray<Object> table = this.table;
+        int mask = (table.length() >> 1) - 1;
+        for (int i = hash(subscriber) & mask; ; i = (i + 1) & mask) {
+            Object key = table.get(i << 1);
+            if (matches(key, subscriber)) {
+                return (Class<?>[]) table.get((i << 1) + 1);
+            } else if (key == null) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 必须在同步代码块调用
+     *
+     * @param subscriber 订阅者对象,或者弱引用模式下订阅者的{@link SubscriberReference}
+     */
+    void put(Object subscriber, Class<?>[] eventTypes) {
+        Object referent = subscriber instanceof SubscriberReference ? ((SubscriberReference)
+                subscriber).get() : subscriber;
+        AtomicReferenceArray<Object> table = this.table;
+        int mask = (table.length() >> 1) - 1;
+        int free = -1;
+        for (int i = hashOfKey(subscriber) & mask; ; i = (i + 1) & mask) {
+            Object key = table.get(i << 1);
+            if (matches(key, referent)) {
+                table.set((i << 1) + 1, eventTypes);
+                return;
+            } else if (key == TOMBSTONE) {
+                if (free < 0) {
+                    free = i;
+                }
+            } else if (key == null) {
+                if (free < 0) {
+                    free = i;
+                } else {
+                    tombstones--;
+                }
+                // 先写value再写key,读者看到key时value一定可见
+                table.set((free << 1) + 1, eventTypes);
+                table.set(free << 1, subscriber);
+                size++;
+                if ((size + tombstones) * 2 > mask + 1) {
+                    rehash(size * 4 > mask + 1 ? (mask + 1) * 2 : mask + 1);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * 必须在同步代码块调用
+     *
+     * @return 订阅者订阅的事件类型,没有注册时返回null
+     */
+    Class<?>[] remove(Object subscriber) {
+        AtomicReferenceArray<Object> table = this.table;
+        int mask = (table.length() >> 1) - 1;
+        for (int i = hash(subscriber) & mask; ; i = (i + 1) & mask) {
+            Object key = table.get(i << 1);
+            if (matches(key, subscriber)) {
+                return removeAt(table, i);
+            } else if (key == null) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 移除已经被回收的订阅者,必须在同步代码块调用
+     *
+     * @return 订阅者订阅的事件类型,已经移除时返回null
+     */
+    Class<?>[] removeReference(SubscriberReference reference) {
+        AtomicReferenceArray<Object> table = this.table;
+        int mask = (table.length() >> 1) - 1;
+        for (int i = spread(reference.hash) & mask; ; i = (i + 1) & mask) {
+            Object key = table.get(i << 1);
+            if (key == reference) {
+                return removeAt(table, i);
+            } else if (key == null) {
+                return null;
+            }
+        }
+    }
+
+    private Class<?>[] removeAt(AtomicReferenceArray<Object> table, int i) {
+        int capacity = table.length() >> 1;
+        Class<?>[] eventTypes = (Class<?>[]) table.get((i << 1) + 1);
+        table.set(i << 1, TOMBSTONE);
+        table.set((i << 1) + 1, null);
+        size--;
+        tombstones++;
+        if (size * 8 < capacity && capacity > MIN_CAPACITY) {
+            rehash(capacity / 2);
+        }
+        return eventTypes;
+    }
+
+    /**
+     * 放入新的数组中(去掉墓碑)后整体替换,读者要么看到旧数组,要么看到新数组
+     */
+    private void rehash(int capacity) {
+        AtomicReferenceArray<Object> oldTable = table;
+        AtomicReferenceArray<Object> newTable = new AtomicReferenceArray<Object>(2 * capacity);
+        int mask = capacity - 1;
+        for (int j = 0, length = oldTable.length(); j < length; j += 2) {
+            Object key = oldTable.get(j);
+            if (key != null && key != TOMBSTONE) {
+                int i = hashOfKey(key) & mask;
+                while (newTable.get(i << 1) != null) {
+                    i = (i + 1) & mask;
+                }
+                newTable.set(i << 1, key);
+                newTable.set((i << 1) + 1, oldTable.get(j + 1));
+            }
+        }
+        tombstones = 0;
+        table = newTable;
+    }
+
+    private static boolean matches(Object key, Object subscriber) {
+        return key == subscriber || (key instanceof SubscriberReference && ((SubscriberReference)
+                key).get() == subscriber);
+    }
+
+    private static int hashOfKey(Object key) {
+        return key instanceof SubscriberReference ? spread(((SubscriberReference) key).hash) :
+                hash(key);
+    }
+
+    private static int hash(Object subscriber) {
+        return spread(System.identityHashCode(subscriber));
+    }
+
+    private static int spread(int h) {
+        // identityHashCode的低位分布不一定均匀,打散一下
+        return h ^ (h >>> 16);
+    }
+}
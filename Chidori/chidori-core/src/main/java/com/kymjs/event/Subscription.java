@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2012 Markus Junginger, greenrobot (http://greenrobot.de)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kymjs.event;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * 订阅者封装类
+ */
+final class Subscription {
+    /**
+     * conflating的订阅排队时使用的占位事件,出队时换成{@link #takeConflatedEvent()}取到的最新事件
+     */
+    static final Object CONFLATED = new Object();
+
+    private static final AtomicReferenceFieldUpdater<Subscription, Object> CONFLATED_EVENT =
+            AtomicReferenceFieldUpdater.newUpdater(Subscription.class, Object.class,
+                    "conflatedEvent");
+
+    final Object subscriber; //订阅者对象,弱引用模式下为null
+    final SubscriberReference reference; //弱引用模式下的订阅者,否则为null
+    final SubscriberMethod subscriberMethod; //响应的方法
+    final int priority; //优先级
+    /**
+     * Becomes false as soon as {@link EventBus#unregister(Object)} is called, which is checked
+     * by queued event delivery
+     * {@link EventBus#invokeSubscriber(PendingPost)} to prevent race conditions.
+     */
+    volatile boolean active; //是否仍在订阅中
+    final boolean conflating; //是否只保留最新的一个未送达事件
+    final LanedBackgroundPoster.Lane lane; //后台事件的串行车道,没有按订阅者分车道时为null
+    final AsyncPoster.Lane asyncLane; //限制并发数的Async订阅自己的队列,否则为null
+    private volatile Object conflatedEvent; //conflating时还没有送达的最新事件
+
+    Subscription(Object subscriber, SubscriberMethod subscriberMethod, int priority) {
+        this(subscriber, null, subscriberMethod, priority, false, null, null);
+    }
+
+    /**
+     * @param reference  不为null时只弱引用订阅者
+     * @param conflating 排队的事件还没有送达时,新的事件是否直接替换它
+     * @param lane       同一个订阅者的后台订阅共用的车道
+     * @param asyncLane  限制并发数的Async订阅自己的队列
+     */
+    Subscription(Object subscriber, SubscriberReference reference, SubscriberMethod
+            subscriberMethod, int priority, boolean conflating, LanedBackgroundPoster.Lane lane,
+            AsyncPoster.Lane asyncLane) {
+        this.subscriber = reference == null ? subscriber : null;
+        this.reference = reference;
+        this.subscriberMethod = subscriberMethod;
+        this.priority = priority;
+        this.conflating = conflating;
+        this.lane = lane;
+        this.asyncLane = asyncLane;
+        active = true;
+    }
+
+    /**
+     * 放入最新的事件
+     *
+     * @return 被替换的未送达事件;返回null时调用者需要排队一个{@link #CONFLATED}
+     */
+    Object offerConflatedEvent(Object event) {
+        return CONFLATED_EVENT.getAndSet(this, event);
+    }
+
+    /**
+     * 取出最新的事件,之后放入的事件重新排队
+     */
+    Object takeConflatedEvent() {
+        return CONFLATED_EVENT.getAndSet(this, null);
+    }
+
+    /**
+     * @return 订阅者对象,弱引用的订阅者已经被回收时返回null
+     */
+    Object getSubscriber() {
+        return reference == null ? subscriber : reference.get();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other instanceof Subscription) {
+            Subscription otherSubscription = (Subscription) other;
+            Object subscriber = getSubscriber();
+            return subscriber != null && subscriber == otherSubscription.getSubscriber()
+                    && subscriberMethod.equals(otherSubscription.subscriberMethod);
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        // 与equals一致按身份比较订阅者,不调用订阅者自己的hashCode()
+        int subscriberHash = reference == null ? System.identityHashCode(subscriber) : reference.hash;
+        return subscriberHash + subscriberMethod.hashCode();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.kymjs.event;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 运行时检测虚拟线程(Java 21+)。Android和旧版本JVM上没有虚拟线程,由调用者回退到线程池
+ */
+final class VirtualThreads {
+
+    //所有EventBus共用,每个任务一个虚拟线程,不需要设置线程数
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return 每个任务一个虚拟线程的执行器,不支持虚拟线程时返回null
+     */
+    static ExecutorService getExecutor() {
+        return EXECUTOR;
+    }
+
+    private static ExecutorService createExecutor() {
+        try {
+            //编译目标是Java 7,只能通过反射调用
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (Exception e) {
+            //NoSuchMethodException:不支持;Java 19、20没有开启预览时抛出UnsupportedOperationException
+            return null;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.kymjs.event;
+
+/**
+ * 环形缓冲区发送器的消费线程没有事件时如何等待,
+ * 见{@link EventBusBuilder#backgroundThreadRingBuffer(int, WaitStrategy)}
+ */
+public enum WaitStrategy {
+    /**
+     * 短暂自旋后挂起线程,由发送线程唤醒。不占用CPU,延迟包括唤醒线程的时间
+     */
+    BLOCKING,
+
+    /**
+     * 自旋一段时间后不断让出CPU。延迟更低,空闲时仍会占用CPU
+     */
+    YIELDING,
+
+    /**
+     * 一直自旋,延迟最低,空闲时占满一个CPU核心,只适合核心数充足且对延迟敏感的场景
+     */
+    BUSY_SPIN
+}
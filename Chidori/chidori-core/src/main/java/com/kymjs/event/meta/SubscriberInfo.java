@@ -0,0 +1,22 @@
+package com.kymjs.event.meta;
+
+/**
+ * 编译期生成的订阅者索引中的一个类,只包含这个类自己声明的响应方法,父类的响应方法单独查找
+ */
+public final class SubscriberInfo {
+    private final Class<?> subscriberClass;
+    private final SubscriberMethodInfo[] subscriberMethods;
+
+    public SubscriberInfo(Class<?> subscriberClass, SubscriberMethodInfo... subscriberMethods) {
+        this.subscriberClass = subscriberClass;
+        this.subscriberMethods = subscriberMethods;
+    }
+
+    public Class<?> getSubscriberClass() {
+        return subscriberClass;
+    }
+
+    public SubscriberMethodInfo[] getSubscriberMethods() {
+        return subscriberMethods;
+    }
+}
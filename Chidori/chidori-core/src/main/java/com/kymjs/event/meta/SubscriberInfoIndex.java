@@ -0,0 +1,15 @@
+package com.kymjs.event.meta;
+
+/**
+ * 订阅者索引,由chidori-processor在编译期生成,通过
+ * {@link com.kymjs.event.EventBusBuilder#addIndex(SubscriberInfoIndex)}使用。
+ * 索引中没有的类仍然通过反射查找响应方法。
+ */
+public interface SubscriberInfoIndex {
+
+    /**
+     * @param subscriberClass 订阅者类(或其父类)
+     * @return 这个类声明的响应方法, 索引中没有这个类时返回null
+     */
+    SubscriberInfo getSubscriberInfo(Class<?> subscriberClass);
+}
@@ -0,0 +1,52 @@
+package com.kymjs.event.meta;
+
+import com.kymjs.event.SubscriberInvoker;
+import com.kymjs.event.ThreadMode;
+
+/**
+ * 编译期生成的订阅者索引中的一个响应方法
+ */
+public final class SubscriberMethodInfo {
+    private final String methodName; //方法名
+    private final Class<?> eventType; //参数类型
+    private final ThreadMode threadMode; //工作在哪个线程
+    private final SubscriberInvoker invoker; //直接调用响应方法的调用器
+    private final boolean batch; //参数是List<eventType>
+
+    public SubscriberMethodInfo(String methodName, Class<?> eventType, ThreadMode threadMode,
+                                SubscriberInvoker invoker) {
+        this(methodName, eventType, threadMode, invoker, false);
+    }
+
+    /**
+     * @param batch 是否是onEventBackgroundThreadBatch(List)方法,eventType为List的元素类型
+     */
+    public SubscriberMethodInfo(String methodName, Class<?> eventType, ThreadMode threadMode,
+                                SubscriberInvoker invoker, boolean batch) {
+        this.methodName = methodName;
+        this.eventType = eventType;
+        this.threadMode = threadMode;
+        this.invoker = invoker;
+        this.batch = batch;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public Class<?> getEventType() {
+        return eventType;
+    }
+
+    public ThreadMode getThreadMode() {
+        return threadMode;
+    }
+
+    public SubscriberInvoker getInvoker() {
+        return invoker;
+    }
+
+    public boolean isBatch() {
+        return batch;
+    }
+}
@@ -0,0 +1,199 @@
+package com.kymjs.event;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Async发送器:限制了并发数的订阅不超过上限、多出来的事件不占用线程池,以及共用队列为空时的处理
+ */
+public class AsyncPosterTest {
+
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private ThreadPoolExecutor executor;
+
+    @After
+    public void tearDown() {
+        gate.countDown();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void laneNeverExceedsItsCap() throws Exception {
+        executor = (ThreadPoolExecutor) Executors.newCachedThreadPool();
+        EventBus eventBus = EventBus.builder().executorService(executor)
+                .maxAsyncConcurrency(Job.class, 2).build();
+        JobSubscriber first = new JobSubscriber(gate, 50);
+        JobSubscriber second = new JobSubscriber(gate, 50);
+        eventBus.register(first);
+        eventBus.register(second);
+        for (int i = 0; i < 50; i++) {
+            eventBus.post(new Job());
+        }
+
+        //每个订阅同时最多2个任务,其余的事件在订阅自己的队列中等待,不占用线程池的线程
+        assertTrue(first.started.tryAcquire(2, 5, TimeUnit.SECONDS));
+        assertTrue(second.started.tryAcquire(2, 5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(2, first.running.get());
+        assertEquals(2, second.running.get());
+        assertEquals(4, executor.getActiveCount());
+
+        gate.countDown();
+        assertTrue(first.done.await(10, TimeUnit.SECONDS));
+        assertTrue(second.done.await(10, TimeUnit.SECONDS));
+        assertEquals(2, first.maxRunning.get());
+        assertEquals(2, second.maxRunning.get());
+    }
+
+    @Test
+    public void saturatedLaneDoesNotBlockOtherSubscribers() throws Exception {
+        executor = (ThreadPoolExecutor) Executors.newCachedThreadPool();
+        EventBus eventBus = EventBus.builder().executorService(executor)
+                .maxAsyncConcurrency(Job.class, 1).build();
+        JobSubscriber busy = new JobSubscriber(gate, 20);
+        UncappedSubscriber other = new UncappedSubscriber(20);
+        eventBus.register(busy);
+        eventBus.register(other);
+        for (int i = 0; i < 20; i++) {
+            eventBus.post(new Job());
+            eventBus.post("other");
+        }
+
+        assertTrue(other.done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, busy.running.get());
+        gate.countDown();
+        assertTrue(busy.done.await(10, TimeUnit.SECONDS));
+        assertEquals(1, busy.maxRunning.get());
+    }
+
+    @Test
+    public void laneContinuesAfterSubscriberThrows() throws Exception {
+        //响应方法的异常抛出到线程池,不打印
+        executor = (ThreadPoolExecutor) Executors.newCachedThreadPool(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable);
+                thread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+                    @Override
+                    public void uncaughtException(Thread thread, Throwable e) {
+                    }
+                });
+                return thread;
+            }
+        });
+        EventBus eventBus = EventBus.builder().executorService(executor)
+                .maxAsyncConcurrency(Job.class, 1).throwSubscriberException(true)
+                .logSubscriberExceptions(false).build();
+        ThrowingSubscriber subscriber = new ThrowingSubscriber(10);
+        eventBus.register(subscriber);
+        for (int i = 0; i < 10; i++) {
+            eventBus.post(new Job());
+        }
+
+        //抛出异常的任务把剩下的事件交给新的任务
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, subscriber.maxRunning.get());
+    }
+
+    @Test
+    public void sharedQueueRequiresPendingPost() {
+        executor = (ThreadPoolExecutor) Executors.newCachedThreadPool();
+        EventBus eventBus = EventBus.builder().executorService(executor).build();
+        AsyncPoster poster = new AsyncPoster(eventBus);
+        try {
+            poster.run();
+            fail();
+        } catch (IllegalStateException expected) {
+            assertEquals("No pending post available", expected.getMessage());
+        }
+    }
+
+    @Test
+    public void evictableSharedQueueToleratesMissingPendingPost() {
+        executor = (ThreadPoolExecutor) Executors.newCachedThreadPool();
+        EventBus eventBus = EventBus.builder().executorService(executor)
+                .postQueueCapacity(ThreadMode.Async, 4, OverflowPolicy.DROP_OLDEST).build();
+        //DROP_OLDEST丢弃了任务对应的待发送对象
+        new AsyncPoster(eventBus).run();
+    }
+
+    public static class Job {
+    }
+
+    public static class JobSubscriber {
+        final Semaphore started = new Semaphore(0);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch done;
+        private final CountDownLatch gate;
+
+        JobSubscriber(CountDownLatch gate, int events) {
+            this.gate = gate;
+            done = new CountDownLatch(events);
+        }
+
+        public void onEventAsync(Job event) throws InterruptedException {
+            enter(running, maxRunning);
+            started.release();
+            try {
+                gate.await();
+            } finally {
+                running.decrementAndGet();
+                done.countDown();
+            }
+        }
+    }
+
+    public static class UncappedSubscriber {
+        final CountDownLatch done;
+
+        UncappedSubscriber(int events) {
+            done = new CountDownLatch(events);
+        }
+
+        public void onEventAsync(String event) {
+            done.countDown();
+        }
+    }
+
+    public static class ThrowingSubscriber {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch done;
+
+        ThrowingSubscriber(int events) {
+            done = new CountDownLatch(events);
+        }
+
+        public void onEventAsync(Job event) {
+            enter(running, maxRunning);
+            running.decrementAndGet();
+            done.countDown();
+            throw new IllegalStateException("expected");
+        }
+    }
+
+    private static void enter(AtomicInteger running, AtomicInteger maxRunning) {
+        int current = running.incrementAndGet();
+        while (true) {
+            int max = maxRunning.get();
+            if (current <= max || maxRunning.compareAndSet(max, current)) {
+                return;
+            }
+        }
+    }
+}
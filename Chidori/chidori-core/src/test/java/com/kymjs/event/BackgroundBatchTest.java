@@ -0,0 +1,186 @@
+package com.kymjs.event;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 后台线程的onEventBackgroundThreadBatch(List)方法:达到最大数量或等待超时时交付一批,
+ * 最长等待时间为0时队列取空就交付,取消注册的订阅者不再收到攒着的批次,后台线程被中断时交付全部批次
+ */
+public class BackgroundBatchTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Gate gate = new Gate();
+
+    @After
+    public void tearDown() {
+        gate.release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void deliversWhenBatchIsFull() throws Exception {
+        EventBus eventBus = EventBus.builder().executorService(executor)
+                .backgroundThreadBatch(3, 1, TimeUnit.HOURS).build();
+        BatchSubscriber subscriber = new BatchSubscriber();
+        eventBus.register(subscriber);
+        eventBus.register(gate);
+        hold(eventBus);
+        for (int i = 0; i < 7; i++) {
+            eventBus.post(i);
+        }
+        Marker marker = new Marker();
+        eventBus.register(marker);
+        eventBus.post(marker);
+        gate.release.countDown();
+
+        assertTrue(marker.handled.await(5, TimeUnit.SECONDS));
+        //最后一个事件要等满一批或者超时
+        assertEquals(Arrays.asList(Arrays.asList(0, 1, 2), Arrays.asList(3, 4, 5)),
+                subscriber.batches);
+    }
+
+    @Test
+    public void deliversAfterLinger() throws Exception {
+        long linger = TimeUnit.MILLISECONDS.toNanos(200);
+        EventBus eventBus = EventBus.builder().executorService(executor)
+                .backgroundThreadBatch(100, linger, TimeUnit.NANOSECONDS).build();
+        BatchSubscriber subscriber = new BatchSubscriber();
+        eventBus.register(subscriber);
+        long start = System.nanoTime();
+        eventBus.post(1);
+        eventBus.post(2);
+
+        assertTrue(subscriber.delivered.tryAcquire(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= linger);
+        assertEquals(Collections.singletonList(Arrays.asList(1, 2)), subscriber.batches);
+    }
+
+    @Test
+    public void deliversWhenQueueRunsDryWithoutLinger() throws Exception {
+        EventBus eventBus = EventBus.builder().executorService(executor).build();
+        BatchSubscriber subscriber = new BatchSubscriber();
+        eventBus.register(subscriber);
+        eventBus.register(gate);
+        hold(eventBus);
+        for (int i = 0; i < 5; i++) {
+            eventBus.post(i);
+        }
+        gate.release.countDown();
+        assertTrue(subscriber.delivered.tryAcquire(5, TimeUnit.SECONDS));
+        //队列中已有的事件合成一批
+        assertEquals(Collections.singletonList(Arrays.asList(0, 1, 2, 3, 4)),
+                subscriber.batches);
+
+        eventBus.post(5);
+        assertTrue(subscriber.delivered.tryAcquire(5, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList(5), subscriber.batches.get(1));
+    }
+
+    @Test
+    public void dropsPendingBatchOfUnregisteredSubscriber() throws Exception {
+        EventBus eventBus = EventBus.builder().executorService(executor)
+                .backgroundThreadBatch(100, 1, TimeUnit.HOURS).build();
+        BatchSubscriber unregistered = new BatchSubscriber();
+        OtherBatchSubscriber kept = new OtherBatchSubscriber();
+        eventBus.register(unregistered);
+        eventBus.register(kept);
+        eventBus.post(1);
+        eventBus.post("kept");
+        Marker marker = new Marker();
+        eventBus.register(marker);
+        eventBus.post(marker);
+        //标记事件响应时,前面的事件已经在各自的批次中
+        assertTrue(marker.handled.await(5, TimeUnit.SECONDS));
+
+        eventBus.unregister(unregistered);
+        executor.shutdownNow();
+        assertTrue(kept.delivered.tryAcquire(5, TimeUnit.SECONDS));
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList(Collections.singletonList("kept")),
+                kept.batches);
+        assertTrue(unregistered.batches.isEmpty());
+    }
+
+    @Test
+    public void deliversPendingBatchesWhenInterrupted() throws Exception {
+        EventBus eventBus = EventBus.builder().executorService(executor)
+                .backgroundThreadBatch(100, 1, TimeUnit.HOURS).build();
+        BatchSubscriber subscriber = new BatchSubscriber();
+        eventBus.register(subscriber);
+        for (int i = 0; i < 3; i++) {
+            eventBus.post(i);
+        }
+        Marker marker = new Marker();
+        eventBus.register(marker);
+        eventBus.post(marker);
+        assertTrue(marker.handled.await(5, TimeUnit.SECONDS));
+        assertFalse(subscriber.delivered.tryAcquire(50, TimeUnit.MILLISECONDS));
+
+        executor.shutdownNow();
+        assertTrue(subscriber.delivered.tryAcquire(5, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList(Arrays.asList(0, 1, 2)), subscriber.batches);
+    }
+
+    /**
+     * 让后台线程停在Gate的响应方法中,之后发送的事件都留在队列里
+     */
+    private void hold(EventBus eventBus) throws InterruptedException {
+        eventBus.post(gate);
+        assertTrue(gate.entered.await(5, TimeUnit.SECONDS));
+    }
+
+    public static class Gate {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        public void onEventBackgroundThread(Gate event) throws InterruptedException {
+            entered.countDown();
+            release.await();
+        }
+    }
+
+    public static class Marker {
+        final CountDownLatch handled = new CountDownLatch(1);
+
+        public void onEventBackgroundThread(Marker event) {
+            handled.countDown();
+        }
+    }
+
+    public static class BatchSubscriber {
+        final List<List<Integer>> batches = Collections.synchronizedList(new
+                ArrayList<List<Integer>>());
+        final Semaphore delivered = new Semaphore(0);
+
+        public void onEventBackgroundThreadBatch(List<Integer> events) {
+            batches.add(new ArrayList<Integer>(events));
+            delivered.release();
+        }
+    }
+
+    public static class OtherBatchSubscriber {
+        final List<List<String>> batches = Collections.synchronizedList(new
+                ArrayList<List<String>>());
+        final Semaphore delivered = new Semaphore(0);
+
+        public void onEventBackgroundThreadBatch(List<String> events) {
+            batches.add(new ArrayList<String>(events));
+            delivered.release();
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.kymjs.event;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * conflating的订阅只送达最新的未送达事件:占位事件只排队一次、只消费一次,并且只占用一个发送队列的位置
+ */
+public class ConflationTest {
+
+    private final CountDownLatch hold = new CountDownLatch(1);
+    private ExecutorService executor;
+
+    @After
+    public void tearDown() {
+        hold.countDown();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void deliversOnlyLatestEvent() throws Exception {
+        EventBus eventBus = heldBus(EventBus.builder().conflateEvents(ProgressSubscriber.class,
+                Progress.class));
+        ProgressSubscriber conflating = new ProgressSubscriber();
+        PlainSubscriber plain = new PlainSubscriber();
+        eventBus.register(conflating);
+        eventBus.register(plain);
+        for (int i = 0; i < 100; i++) {
+            eventBus.post(new Progress(i));
+        }
+        drain();
+
+        assertEquals(Collections.singletonList(99), conflating.received);
+        //其他订阅者不受影响
+        assertEquals(100, plain.received.size());
+        assertEquals(Integer.valueOf(99), plain.received.get(99));
+    }
+
+    @Test
+    public void conflatesForAllSubscribersOfEventType() throws Exception {
+        EventBus eventBus = heldBus(EventBus.builder().conflateEvents(Progress.class));
+        ProgressSubscriber first = new ProgressSubscriber();
+        PlainSubscriber second = new PlainSubscriber();
+        eventBus.register(first);
+        eventBus.register(second);
+        for (int i = 0; i < 100; i++) {
+            eventBus.post(new Progress(i));
+        }
+        drain();
+
+        assertEquals(Collections.singletonList(99), first.received);
+        assertEquals(Collections.singletonList(99), second.received);
+    }
+
+    /**
+     * 出队时先取走最新事件再调用响应方法,响应期间发送的事件排队一个新的占位事件,每个只送达一次
+     */
+    @Test
+    public void consumesEachConflatedSlotOnce() throws Exception {
+        executor = Executors.newSingleThreadExecutor();
+        EventBus eventBus = EventBus.builder().executorService(executor)
+                .backgroundThreadKeepAlive(0, TimeUnit.MILLISECONDS)
+                .conflateEvents(ReposterSubscriber.class, Progress.class).build();
+        ReposterSubscriber subscriber = new ReposterSubscriber(eventBus);
+        eventBus.register(subscriber);
+        eventBus.post(new Progress(0));
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        drain();
+
+        assertEquals(Arrays.asList(0, 3), subscriber.received);
+    }
+
+    @Test
+    public void occupiesOneQueuePosition() throws Exception {
+        EventBus eventBus = heldBus(EventBus.builder().conflateEvents(ProgressSubscriber.class,
+                Progress.class).postQueueCapacity(ThreadMode.BackgroundThread, 4,
+                OverflowPolicy.DROP_NEWEST));
+        ProgressSubscriber conflating = new ProgressSubscriber();
+        StringSubscriber strings = new StringSubscriber();
+        eventBus.register(conflating);
+        eventBus.register(strings);
+        for (int i = 0; i < 100; i++) {
+            eventBus.post(new Progress(i));
+        }
+        PostQueueStats stats = eventBus.getPostQueueStats(ThreadMode.BackgroundThread);
+        assertEquals(1, stats.size);
+        assertEquals(0, stats.dropped);
+
+        for (int i = 0; i < 4; i++) {
+            eventBus.post("s" + i);
+        }
+        stats = eventBus.getPostQueueStats(ThreadMode.BackgroundThread);
+        assertEquals(4, stats.size);
+        assertEquals(1, stats.dropped);
+        //队列已满,替换未送达的事件不需要新的位置
+        eventBus.post(new Progress(100));
+        assertEquals(1, eventBus.getPostQueueStats(ThreadMode.BackgroundThread).dropped);
+        drain();
+
+        stats = eventBus.getPostQueueStats(ThreadMode.BackgroundThread);
+        assertEquals(0, stats.size);
+        assertEquals(Collections.singletonList(100), conflating.received);
+        assertEquals(Arrays.asList("s0", "s1", "s2"), strings.received);
+    }
+
+    @Test
+    public void droppedPlaceholderDropsLatestEvent() throws Exception {
+        EventBus eventBus = heldBus(EventBus.builder().conflateEvents(ProgressSubscriber.class,
+                Progress.class).postQueueCapacity(ThreadMode.BackgroundThread, 2,
+                OverflowPolicy.DROP_OLDEST));
+        ProgressSubscriber conflating = new ProgressSubscriber();
+        StringSubscriber strings = new StringSubscriber();
+        eventBus.register(conflating);
+        eventBus.register(strings);
+        eventBus.post(new Progress(1));
+        eventBus.post("a");
+        //丢弃最早的占位事件,它的最新事件一起丢弃,之后的事件重新排队
+        eventBus.post("b");
+        eventBus.post(new Progress(2));
+        drain();
+
+        assertEquals(Collections.singletonList(2), conflating.received);
+        assertEquals(Collections.singletonList("b"), strings.received);
+        PostQueueStats stats = eventBus.getPostQueueStats(ThreadMode.BackgroundThread);
+        assertEquals(2, stats.dropped);
+        assertEquals(0, stats.size);
+    }
+
+    @Test
+    public void placeholderIgnoresTypeLimit() throws Exception {
+        EventBus eventBus = heldBus(EventBus.builder().conflateEvents(ProgressSubscriber.class,
+                Progress.class).postQueueCapacity(Progress.class, 1, OverflowPolicy.DROP_NEWEST));
+        ProgressSubscriber conflating = new ProgressSubscriber();
+        eventBus.register(conflating);
+        for (int i = 0; i < 100; i++) {
+            eventBus.post(new Progress(i));
+        }
+        drain();
+
+        assertEquals(Collections.singletonList(99), conflating.received);
+        PostQueueStats stats = eventBus.getPostQueueStats(Progress.class);
+        assertEquals(0, stats.size);
+        assertEquals(0, stats.dropped);
+    }
+
+    /**
+     * 唯一的后台线程先被占用,发送的事件只能排队
+     */
+    private EventBus heldBus(EventBusBuilder builder) {
+        executor = Executors.newSingleThreadExecutor();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    hold.await();
+                } catch (InterruptedException ignored) {
+                }
+            }
+        });
+        return builder.executorService(executor).backgroundThreadKeepAlive(0,
+                TimeUnit.MILLISECONDS).build();
+    }
+
+    /**
+     * 后台线程不等待新事件,执行完排队的事件就结束
+     */
+    private void drain() throws InterruptedException {
+        hold.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    public static class Progress {
+        final int value;
+
+        Progress(int value) {
+            this.value = value;
+        }
+    }
+
+    public static class ProgressSubscriber {
+        final List<Integer> received = Collections.synchronizedList(new ArrayList<Integer>());
+
+        public void onEventBackgroundThread(Progress event) {
+            received.add(event.value);
+        }
+    }
+
+    public static class PlainSubscriber {
+        final List<Integer> received = Collections.synchronizedList(new ArrayList<Integer>());
+
+        public void onEventBackgroundThread(Progress event) {
+            received.add(event.value);
+        }
+    }
+
+    public static class StringSubscriber {
+        final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+
+        public void onEventBackgroundThread(String event) {
+            received.add(event);
+        }
+    }
+
+    /**
+     * 响应0时再发送1到3,它们合并为一个新的占位事件
+     */
+    public static class ReposterSubscriber {
+        final List<Integer> received = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch done = new CountDownLatch(2);
+        private final EventBus eventBus;
+
+        ReposterSubscriber(EventBus eventBus) {
+            this.eventBus = eventBus;
+        }
+
+        public void onEventBackgroundThread(Progress event) {
+            received.add(event.value);
+            if (event.value == 0) {
+                for (int i = 1; i <= 3; i++) {
+                    eventBus.post(new Progress(i));
+                }
+            }
+            done.countDown();
+        }
+    }
+}
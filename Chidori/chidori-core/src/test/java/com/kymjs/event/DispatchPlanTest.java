@@ -0,0 +1,177 @@
+package com.kymjs.event;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 分发计划只在订阅了事件类型本身或它的父类、接口的订阅变化时失效
+ */
+public class DispatchPlanTest {
+
+    @Test
+    public void invalidatesPlansOfSubtypes() {
+        EventBus eventBus = EventBus.builder().logNoSubscriberMessages(false).build();
+        Recorder recorder = new Recorder();
+        eventBus.post(new Sub());
+        eventBus.post(new Other());
+        eventBus.post("unrelated");
+        Subscription[] unrelated = eventBus.getCachedDispatchPlan(String.class);
+        assertNotNull(unrelated);
+
+        //订阅接口:实现它的Sub和Other的计划失效,String的计划不受影响
+        MarkerSubscriber marker = new MarkerSubscriber(recorder);
+        eventBus.register(marker);
+        assertNull(eventBus.getCachedDispatchPlan(Sub.class));
+        assertNull(eventBus.getCachedDispatchPlan(Other.class));
+        assertSame(unrelated, eventBus.getCachedDispatchPlan(String.class));
+        eventBus.post(new Sub());
+        eventBus.post(new Other());
+        assertEquals(Arrays.asList("marker", "marker"), recorder.received);
+
+        //订阅Base:只有Sub的计划失效
+        BaseSubscriber base = new BaseSubscriber(recorder);
+        Subscription[] otherPlan = eventBus.getCachedDispatchPlan(Other.class);
+        eventBus.register(base);
+        assertNull(eventBus.getCachedDispatchPlan(Sub.class));
+        assertSame(otherPlan, eventBus.getCachedDispatchPlan(Other.class));
+        recorder.received.clear();
+        eventBus.post(new Sub());
+        assertEquals(2, recorder.received.size());
+
+        //解除注册同样只影响依赖的计划,之后重新生成的计划仍然被索引
+        eventBus.post(new Base());
+        eventBus.unregister(base);
+        assertNull(eventBus.getCachedDispatchPlan(Sub.class));
+        assertNull(eventBus.getCachedDispatchPlan(Base.class));
+        assertSame(otherPlan, eventBus.getCachedDispatchPlan(Other.class));
+        recorder.received.clear();
+        eventBus.post(new Sub());
+        eventBus.post(new Base());
+        assertEquals(Collections.singletonList("marker"), recorder.received);
+
+        eventBus.unregister(marker);
+        assertNull(eventBus.getCachedDispatchPlan(Other.class));
+        recorder.received.clear();
+        eventBus.post(new Sub());
+        eventBus.post(new Other());
+        assertEquals(0, recorder.received.size());
+    }
+
+    @Test
+    public void invalidatesExactTypeWithoutInheritance() {
+        EventBus eventBus = EventBus.builder().eventInheritance(false)
+                .logNoSubscriberMessages(false).build();
+        Recorder recorder = new Recorder();
+        eventBus.post(new Sub());
+        eventBus.post(new Base());
+        Subscription[] subPlan = eventBus.getCachedDispatchPlan(Sub.class);
+
+        eventBus.register(new BaseSubscriber(recorder));
+        assertNull(eventBus.getCachedDispatchPlan(Base.class));
+        assertSame(subPlan, eventBus.getCachedDispatchPlan(Sub.class));
+        eventBus.post(new Sub());
+        eventBus.post(new Base());
+        assertEquals(Collections.singletonList("base"), recorder.received);
+    }
+
+    @Test
+    public void hasSubscriberForEventChecksSupertypesWithoutCachingPlans() {
+        for (boolean eventInheritance : new boolean[]{true, false}) {
+            EventBus eventBus = EventBus.builder().eventInheritance(eventInheritance)
+                    .logNoSubscriberMessages(false).build();
+            BaseSubscriber base = new BaseSubscriber(new Recorder());
+            eventBus.register(base);
+            //无论是否开启事件继承,父类的订阅者都算作Sub的订阅者(与原来的行为一致)
+            assertTrue(eventBus.hasSubscriberForEvent(Sub.class));
+            assertTrue(eventBus.hasSubscriberForEvent(Base.class));
+            assertFalse(eventBus.hasSubscriberForEvent(Other.class));
+            assertNull(eventBus.getCachedDispatchPlan(Sub.class));
+            assertNull(eventBus.getCachedDispatchPlan(Other.class));
+
+            eventBus.unregister(base);
+            assertFalse(eventBus.hasSubscriberForEvent(Sub.class));
+        }
+    }
+
+    @Test
+    public void postAllSeesRegistrationsFromSubscriber() {
+        EventBus eventBus = EventBus.builder().logNoSubscriberMessages(false).build();
+        Recorder recorder = new Recorder();
+        eventBus.register(new RegisteringSubscriber(eventBus, new BaseSubscriber(recorder)));
+        List<Object> events = new ArrayList<Object>();
+        events.add(new Sub());
+        events.add(new Trigger());
+        events.add(new Sub());
+        eventBus.postAll(events);
+        //第二个Sub在注册之后分发,缓存的计划已经失效
+        assertEquals(Collections.singletonList("base"), recorder.received);
+    }
+
+    public interface Marker {
+    }
+
+    public static class Base {
+    }
+
+    public static class Sub extends Base implements Marker {
+    }
+
+    public static class Other implements Marker {
+    }
+
+    public static class Trigger {
+    }
+
+    static class Recorder {
+        final List<String> received = new ArrayList<String>();
+    }
+
+    public static class MarkerSubscriber {
+        private final Recorder recorder;
+
+        MarkerSubscriber(Recorder recorder) {
+            this.recorder = recorder;
+        }
+
+        public void onEvent(Marker event) {
+            recorder.received.add("marker");
+        }
+    }
+
+    public static class BaseSubscriber {
+        private final Recorder recorder;
+
+        BaseSubscriber(Recorder recorder) {
+            this.recorder = recorder;
+        }
+
+        public void onEvent(Base event) {
+            recorder.received.add("base");
+        }
+    }
+
+    public static class RegisteringSubscriber {
+        private final EventBus eventBus;
+        private final Object subscriber;
+
+        RegisteringSubscriber(EventBus eventBus, Object subscriber) {
+            this.eventBus = eventBus;
+            this.subscriber = subscriber;
+        }
+
+        public void onEvent(Trigger event) {
+            eventBus.register(subscriber);
+        }
+    }
+}
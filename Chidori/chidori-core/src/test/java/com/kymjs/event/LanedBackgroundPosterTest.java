@@ -0,0 +1,258 @@
+package com.kymjs.event;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 按订阅者分车道的后台发送器:同一个订阅者串行并且按顺序响应,慢的订阅者不阻塞其他车道,
+ * 一条车道连续响应LANE_QUANTUM个事件后让给其他车道
+ */
+public class LanedBackgroundPosterTest {
+
+    private static final int LANE_QUANTUM = 32;
+
+    private final CountDownLatch hold = new CountDownLatch(1);
+    private ExecutorService executor;
+
+    @After
+    public void tearDown() {
+        hold.countDown();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void keepsOrderOfEachSubscriber() throws Exception {
+        executor = Executors.newCachedThreadPool();
+        final EventBus eventBus = EventBus.builder().executorService(executor)
+                .backgroundThreadLanes(4).build();
+        final int posters = 4;
+        final int perPoster = 5000;
+        OrderedSubscriber[] subscribers = new OrderedSubscriber[8];
+        for (int i = 0; i < subscribers.length; i++) {
+            subscribers[i] = new OrderedSubscriber(posters, posters * perPoster * 2);
+            eventBus.register(subscribers[i]);
+        }
+        final CountDownLatch start = new CountDownLatch(1);
+        for (int p = 0; p < posters; p++) {
+            final int poster = p;
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perPoster; i++) {
+                        //两种事件类型共用订阅者的车道
+                        eventBus.post(new Step(poster, 2 * i));
+                        eventBus.post(new OtherStep(poster, 2 * i + 1));
+                    }
+                }
+            }.start();
+        }
+        start.countDown();
+
+        for (OrderedSubscriber subscriber : subscribers) {
+            assertTrue(subscriber.done.await(30, TimeUnit.SECONDS));
+            assertEquals(null, subscriber.failure);
+            assertEquals(1, subscriber.maxConcurrent);
+        }
+    }
+
+    @Test
+    public void keepsOrderOfPostAll() throws Exception {
+        executor = Executors.newCachedThreadPool();
+        EventBus eventBus = EventBus.builder().executorService(executor)
+                .backgroundThreadLanes(2).build();
+        OrderedSubscriber subscriber = new OrderedSubscriber(1, 1000);
+        eventBus.register(subscriber);
+        List<Object> events = new ArrayList<Object>();
+        for (int i = 0; i < 1000; i += 2) {
+            events.add(new Step(0, i));
+            events.add(new OtherStep(0, i + 1));
+        }
+        eventBus.postAll(events);
+
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        assertEquals(null, subscriber.failure);
+    }
+
+    @Test
+    public void slowSubscriberBlocksOnlyItsLane() throws Exception {
+        executor = Executors.newCachedThreadPool();
+        EventBus eventBus = EventBus.builder().executorService(executor)
+                .backgroundThreadLanes(2).build();
+        GatedSubscriber slow = new GatedSubscriber();
+        OrderedSubscriber fast = new OrderedSubscriber(1, 200);
+        eventBus.register(slow);
+        eventBus.register(fast);
+        for (int i = 0; i < 100; i++) {
+            eventBus.post(new Step(0, 2 * i));
+            eventBus.post(new OtherStep(0, 2 * i + 1));
+        }
+
+        assertTrue("fast subscriber waited for slow one", fast.done.await(10, TimeUnit.SECONDS));
+        assertEquals(1, slow.received.get());
+        hold.countDown();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (slow.received.get() < 100) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * 只有一个线程时,排满的车道轮流响应LANE_QUANTUM个事件
+     */
+    @Test
+    public void handsOffAfterQuantum() throws Exception {
+        executor = Executors.newSingleThreadExecutor();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    hold.await();
+                } catch (InterruptedException ignored) {
+                }
+            }
+        });
+        EventBus eventBus = EventBus.builder().executorService(executor)
+                .backgroundThreadLanes(1).build();
+        List<String> deliveries = Collections.synchronizedList(new ArrayList<String>());
+        StepRecorder first = new StepRecorder("first", deliveries);
+        OtherStepRecorder second = new OtherStepRecorder("second", deliveries);
+        eventBus.register(first);
+        eventBus.register(second);
+        int count = 3 * LANE_QUANTUM + 4;
+        for (int i = 0; i < count; i++) {
+            eventBus.post(new Step(0, i));
+        }
+        for (int i = 0; i < count; i++) {
+            eventBus.post(new OtherStep(0, i));
+        }
+        hold.countDown();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (deliveries.size() < 2 * count) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+
+        List<String> expected = new ArrayList<String>();
+        for (int start = 0; start < count; start += LANE_QUANTUM) {
+            int run = Math.min(LANE_QUANTUM, count - start);
+            expected.addAll(Collections.nCopies(run, "first"));
+            expected.addAll(Collections.nCopies(run, "second"));
+        }
+        assertEquals(expected, deliveries);
+    }
+
+    public static class Step {
+        final int poster;
+        final int sequence;
+
+        Step(int poster, int sequence) {
+            this.poster = poster;
+            this.sequence = sequence;
+        }
+    }
+
+    public static class OtherStep {
+        final int poster;
+        final int sequence;
+
+        OtherStep(int poster, int sequence) {
+            this.poster = poster;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * 检查每个发送线程的事件按顺序、串行送达
+     */
+    public static class OrderedSubscriber {
+        final CountDownLatch done;
+        volatile String failure;
+        volatile int maxConcurrent;
+        private final int[] expected;
+        private final AtomicInteger concurrent = new AtomicInteger();
+
+        OrderedSubscriber(int posters, int events) {
+            expected = new int[posters];
+            done = new CountDownLatch(events);
+        }
+
+        public void onEventBackgroundThread(Step event) {
+            check(event.poster, event.sequence);
+        }
+
+        public void onEventBackgroundThread(OtherStep event) {
+            check(event.poster, event.sequence);
+        }
+
+        private void check(int poster, int sequence) {
+            int running = concurrent.incrementAndGet();
+            if (running > maxConcurrent) {
+                maxConcurrent = running;
+            }
+            if (expected[poster] != sequence && failure == null) {
+                failure = "poster " + poster + " expected " + expected[poster] + " but got " +
+                        sequence;
+            }
+            expected[poster] = sequence + 1;
+            concurrent.decrementAndGet();
+            done.countDown();
+        }
+    }
+
+    public class GatedSubscriber {
+        final AtomicInteger received = new AtomicInteger();
+
+        public void onEventBackgroundThread(Step event) throws InterruptedException {
+            received.incrementAndGet();
+            hold.await();
+        }
+    }
+
+    public static class StepRecorder {
+        private final String name;
+        private final List<String> deliveries;
+
+        StepRecorder(String name, List<String> deliveries) {
+            this.name = name;
+            this.deliveries = deliveries;
+        }
+
+        public void onEventBackgroundThread(Step event) {
+            deliveries.add(name);
+        }
+    }
+
+    public static class OtherStepRecorder {
+        private final String name;
+        private final List<String> deliveries;
+
+        OtherStepRecorder(String name, List<String> deliveries) {
+            this.name = name;
+            this.deliveries = deliveries;
+        }
+
+        public void onEventBackgroundThread(OtherStep event) {
+            deliveries.add(name);
+        }
+    }
+}
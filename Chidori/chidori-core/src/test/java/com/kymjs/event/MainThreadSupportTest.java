@@ -0,0 +1,116 @@
+package com.kymjs.event;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 只实现isMainThread和post的主线程(例如Swing、JavaFX的线程):MainThread模式的响应方法在这个线程中按顺序执行
+ */
+public class MainThreadSupportTest {
+
+    private final ExecutorMainThreadSupport mainThread = new ExecutorMainThreadSupport();
+
+    @After
+    public void tearDown() {
+        mainThread.executor.shutdown();
+    }
+
+    @Test
+    public void deliversOnPostedThreadInOrder() throws Exception {
+        EventBus eventBus = EventBus.builder().mainThreadSupport(mainThread).build();
+        RecordingSubscriber subscriber = new RecordingSubscriber(mainThread, 1000);
+        eventBus.register(subscriber);
+        for (int i = 0; i < 1000; i++) {
+            eventBus.post(i);
+        }
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        assertNull(subscriber.failure, subscriber.failure);
+        List<Integer> expected = new ArrayList<Integer>();
+        for (int i = 0; i < 1000; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, subscriber.received);
+        assertTrue(mainThread.posted.get() > 0);
+    }
+
+    @Test
+    public void deliversDirectlyOnMainThread() throws Exception {
+        final EventBus eventBus = EventBus.builder().mainThreadSupport(mainThread).build();
+        final RecordingSubscriber subscriber = new RecordingSubscriber(mainThread, 1);
+        eventBus.register(subscriber);
+        final int postedBefore = mainThread.posted.get();
+        final List<Integer> afterPost = Collections.synchronizedList(new ArrayList<Integer>());
+        mainThread.executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                eventBus.post(1);
+                afterPost.addAll(subscriber.received);
+            }
+        }).get(5, TimeUnit.SECONDS);
+        //在主线程中发送时直接响应,不再提交任务
+        assertEquals(Collections.singletonList(1), afterPost);
+        assertEquals(postedBefore, mainThread.posted.get());
+    }
+
+    static final class ExecutorMainThreadSupport implements MainThreadSupport {
+        final ExecutorService executor;
+        private volatile Thread thread;
+        final AtomicInteger posted = new AtomicInteger();
+
+        ExecutorMainThreadSupport() {
+            executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    thread = new Thread(r, "ui");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        @Override
+        public boolean isMainThread() {
+            return Thread.currentThread() == thread;
+        }
+
+        @Override
+        public void post(Runnable runnable) {
+            posted.incrementAndGet();
+            executor.execute(runnable);
+        }
+    }
+
+    public static class RecordingSubscriber {
+        final List<Integer> received = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch done;
+        private final MainThreadSupport mainThread;
+        volatile String failure;
+
+        RecordingSubscriber(MainThreadSupport mainThread, int events) {
+            this.mainThread = mainThread;
+            done = new CountDownLatch(events);
+        }
+
+        public void onEventMainThread(Integer event) {
+            if (!mainThread.isMainThread()) {
+                failure = "delivered on " + Thread.currentThread();
+            }
+            received.add(event);
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.kymjs.event;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 生成的调用器直接调用public类的响应方法;订阅者类不可见或者不可访问时返回null,由反射调用;
+ * 响应方法抛出的异常与反射调用一样原样抛出,不包装
+ */
+public class MethodHandleInvokerFactoryTest {
+
+    private final MethodHandleInvokerFactory factory = new MethodHandleInvokerFactory();
+
+    @Test
+    public void invokesPublicMethod() throws Throwable {
+        assertTrue(MethodHandleInvokerFactory.isAvailable());
+        SubscriberInvoker invoker = factory.create(PublicSubscriber.class.getMethod("onEvent",
+                String.class));
+        assertNotNull(invoker);
+        PublicSubscriber subscriber = new PublicSubscriber();
+        invoker.invoke(subscriber, "event");
+        assertEquals("event", subscriber.received);
+    }
+
+    @Test
+    public void returnsNullForForeignClassLoader() throws Exception {
+        Class<?> foreign = new ForeignClassLoader().load(PublicSubscriber.class);
+        assertTrue(foreign != PublicSubscriber.class);
+        assertNull(factory.create(foreign.getMethod("onEvent", String.class)));
+    }
+
+    @Test
+    public void fallsBackToReflectionForNonPublicClass() throws Exception {
+        assertNull(factory.create(HiddenSubscriber.class.getMethod("onEvent", String.class)));
+        assertNull(factory.create(PublicSubscriber.class.getMethod("onEvent", HiddenEvent
+                .class)));
+
+        EventBus eventBus = EventBus.builder().subscriberInvokerFactory(factory).build();
+        HiddenSubscriber hidden = new HiddenSubscriber();
+        eventBus.register(hidden);
+        eventBus.register(new PublicSubscriber());
+        Subscription[] subscriptions = eventBus.getSubscriptionsByEventType(String.class);
+        for (Subscription subscription : subscriptions) {
+            boolean reflective = subscription.subscriberMethod.invoker instanceof
+                    ReflectiveInvoker;
+            assertEquals(subscription.getSubscriber() == hidden, reflective);
+        }
+        eventBus.post("event");
+        assertEquals("event", hidden.received);
+    }
+
+    @Test
+    public void throwsSubscriberExceptionUnwrapped() throws Exception {
+        Method method = FailingSubscriber.class.getMethod("onEvent", String.class);
+        SubscriberInvoker generated = factory.create(method);
+        assertNotNull(generated);
+        SubscriberInvoker reflective = new ReflectiveInvoker(method);
+        for (SubscriberInvoker invoker : new SubscriberInvoker[]{generated, reflective}) {
+            FailingSubscriber subscriber = new FailingSubscriber();
+            try {
+                invoker.invoke(subscriber, "event");
+                fail("Expected IOException");
+            } catch (Throwable e) {
+                assertSame(subscriber.failure, e);
+            }
+        }
+    }
+
+    public static class PublicSubscriber {
+        volatile String received;
+
+        public void onEvent(String event) {
+            received = event;
+        }
+
+        public void onEvent(HiddenEvent event) {
+        }
+    }
+
+    private static class HiddenEvent {
+    }
+
+    private static class HiddenSubscriber {
+        volatile String received;
+
+        public void onEvent(String event) {
+            received = event;
+        }
+    }
+
+    public static class FailingSubscriber {
+        final IOException failure = new IOException("failed");
+
+        public void onEvent(String event) throws IOException {
+            throw failure;
+        }
+    }
+
+    /**
+     * 重新定义同名的类,与本库的类加载器加载的类不是同一个
+     */
+    static final class ForeignClassLoader extends ClassLoader {
+        ForeignClassLoader() {
+            super(MethodHandleInvokerFactoryTest.class.getClassLoader());
+        }
+
+        Class<?> load(Class<?> clazz) throws IOException {
+            String resource = clazz.getName().replace('.', '/') + ".class";
+            InputStream in = getParent().getResourceAsStream(resource);
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                byte[] bytes = out.toByteArray();
+                return defineClass(clazz.getName(), bytes, 0, bytes.length);
+            } finally {
+                in.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.kymjs.event;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 待发送对象复用池:回收时清空引用,线程本地缓存和共享槽位之间的复用,并发取出和回收时不会重复交出同一个对象
+ */
+public class PendingPostPoolTest {
+
+    private final Subscription subscription = new Subscription(new Object(), null, 0);
+
+    @Test
+    public void releaseClearsReferences() {
+        PendingPostPool pool = new PendingPostPool(16);
+        PendingPost pendingPost = pool.obtain(subscription, "event");
+        pendingPost.next = new PendingPost("next", null);
+        pool.release(pendingPost);
+        assertNull(pendingPost.event);
+        assertNull(pendingPost.subscription);
+        assertNull(pendingPost.next);
+    }
+
+    @Test
+    public void releaseClearsReferencesWithoutPooling() {
+        PendingPostPool pool = new PendingPostPool(0);
+        PendingPost pendingPost = pool.obtain(subscription, "event");
+        pendingPost.next = new PendingPost("next", null);
+        pool.release(pendingPost);
+        assertNull(pendingPost.event);
+        assertNull(pendingPost.subscription);
+        assertNull(pendingPost.next);
+        assertNotSame(pendingPost, pool.obtain(subscription, "event"));
+        assertEquals(0, pool.getStats().hits);
+    }
+
+    @Test
+    public void reusesFromLocalCache() {
+        PendingPostPool pool = new PendingPostPool(16);
+        PendingPost first = pool.obtain(subscription, "first");
+        pool.release(first);
+
+        Subscription other = new Subscription(new Object(), null, 0);
+        PendingPost second = pool.obtain(other, "second");
+        assertSame(first, second);
+        assertEquals("second", second.event);
+        assertSame(other, second.subscription);
+        assertNull(second.next);
+        PendingPostPoolStats stats = pool.getStats();
+        assertEquals(1, stats.hits);
+        assertEquals(1, stats.misses);
+    }
+
+    /**
+     * 在一个线程中post、在另一个线程中响应:超出线程本地缓存的对象经过共享槽位交给其他线程
+     */
+    @Test
+    public void handsOverThroughSharedSlots() throws Exception {
+        final PendingPostPool pool = new PendingPostPool(64);
+        final List<PendingPost> released = new ArrayList<PendingPost>();
+        Thread consumer = new Thread() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 40; i++) {
+                    PendingPost pendingPost = pool.obtain(subscription, i);
+                    released.add(pendingPost);
+                }
+                for (PendingPost pendingPost : released) {
+                    pool.release(pendingPost);
+                }
+            }
+        };
+        consumer.start();
+        consumer.join();
+
+        Set<PendingPost> reused = Collections.newSetFromMap(new IdentityHashMap<PendingPost,
+                Boolean>());
+        for (int i = 0; i < 40; i++) {
+            PendingPost pendingPost = pool.obtain(subscription, "event");
+            assertNull(pendingPost.next);
+            reused.add(pendingPost);
+        }
+        reused.retainAll(released);
+        assertTrue("reused " + reused.size(), reused.size() > 0);
+        assertTrue(pool.getStats().hits >= reused.size());
+    }
+
+    @Test
+    public void neverHandsOutSameInstanceTwice() throws Exception {
+        final PendingPostPool pool = new PendingPostPool(32);
+        final Set<PendingPost> inUse = Collections.synchronizedSet(Collections.newSetFromMap(
+                new IdentityHashMap<PendingPost, Boolean>()));
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        final int threads = 4;
+        final int rounds = 100000;
+        //每个线程取出的对象一半自己回收,一半交给下一个线程回收
+        final List<BlockingQueue<PendingPost>> handOffs = new ArrayList<BlockingQueue<PendingPost>>();
+        for (int t = 0; t < threads; t++) {
+            handOffs.add(new ArrayBlockingQueue<PendingPost>(1024));
+        }
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<Thread>();
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            Thread worker = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    BlockingQueue<PendingPost> incoming = handOffs.get(id);
+                    BlockingQueue<PendingPost> outgoing = handOffs.get((id + 1) % threads);
+                    Object event = new Object();
+                    for (int i = 0; i < rounds && failure.get() == null; i++) {
+                        PendingPost pendingPost = pool.obtain(subscription, event);
+                        if (!inUse.add(pendingPost)) {
+                            failure.set("handed out twice: " + pendingPost);
+                        }
+                        if (pendingPost.event != event || pendingPost.next != null) {
+                            failure.set("not reset: " + pendingPost);
+                        }
+                        if ((i & 1) == 0 || !outgoing.offer(pendingPost)) {
+                            recycle(pool, inUse, pendingPost);
+                        }
+                        PendingPost received = incoming.poll();
+                        if (received != null) {
+                            recycle(pool, inUse, received);
+                        }
+                    }
+                    for (PendingPost received = incoming.poll(); received != null; received =
+                            incoming.poll()) {
+                        recycle(pool, inUse, received);
+                    }
+                }
+            };
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertNull(failure.get(), failure.get());
+        assertTrue(pool.getStats().hits > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeCapacity() {
+        new PendingPostPool(-1);
+    }
+
+    private static void recycle(PendingPostPool pool, Set<PendingPost> inUse, PendingPost
+            pendingPost) {
+        //先移除再回收,回收以后其他线程马上可能取到
+        inUse.remove(pendingPost);
+        pool.release(pendingPost);
+    }
+}
@@ -0,0 +1,272 @@
+package com.kymjs.event;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 无锁的待发送对象队列,以及发送器清除运行标记后重新检查队列的交接
+ */
+public class PendingPostQueueTest {
+
+    private ExecutorService executor;
+    private EventLoop eventLoop;
+
+    @After
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+        if (eventLoop != null) {
+            eventLoop.shutdown();
+        }
+    }
+
+    @Test
+    public void keepsOrderOfEachProducer() throws Exception {
+        final int producers = 8;
+        final int perProducer = 20000;
+        final PendingPostQueue queue = new PendingPostQueue();
+        final CountDownLatch start = new CountDownLatch(1);
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            new Thread() {
+                @Override
+                public void run() {
+                    awaitQuietly(start);
+                    for (int i = 0; i < perProducer; i++) {
+                        queue.enqueue(new PendingPost(new int[]{producer, i}, null));
+                    }
+                }
+            }.start();
+        }
+        start.countDown();
+
+        int[] expected = new int[producers];
+        int received = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (received < producers * perProducer) {
+            PendingPost pendingPost = queue.poll(TimeUnit.MILLISECONDS.toNanos(10));
+            if (pendingPost == null) {
+                assertTrue("producers stalled", System.nanoTime() < deadline);
+                continue;
+            }
+            int[] event = (int[]) pendingPost.event;
+            assertEquals("out of order for producer " + event[0], expected[event[0]], event[1]);
+            expected[event[0]]++;
+            received++;
+        }
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void drainsThenAcceptsChains() {
+        PendingPostQueue queue = new PendingPostQueue();
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+
+        for (int round = 0; round < 3; round++) {
+            PendingPost single = new PendingPost("single" + round, null);
+            queue.enqueue(single);
+            assertFalse(queue.isEmpty());
+            assertSame(single, queue.poll());
+            assertNull(queue.poll());
+            assertTrue(queue.isEmpty());
+
+            PendingPost[] chain = chain(4, "chain" + round);
+            queue.enqueueAll(chain[0], chain[chain.length - 1]);
+            PendingPost after = new PendingPost("after" + round, null);
+            queue.enqueue(after);
+            for (PendingPost expected : chain) {
+                assertSame(expected, queue.poll());
+            }
+            assertSame(after, queue.poll());
+            assertNull(queue.poll());
+            assertTrue(queue.isEmpty());
+        }
+    }
+
+    @Test
+    public void enqueueAllIgnoresStaleNextOfLast() {
+        PendingPostQueue queue = new PendingPostQueue();
+        PendingPost[] chain = chain(3, "chain");
+        //last.next仍然指向链中后面的对象,入队时必须截断
+        queue.enqueueAll(chain[0], chain[1]);
+        assertSame(chain[0], queue.poll());
+        assertSame(chain[1], queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void timedPollReturnsNullAfterTimeout() throws Exception {
+        PendingPostQueue queue = new PendingPostQueue();
+        long started = System.nanoTime();
+        assertNull(queue.poll(TimeUnit.MILLISECONDS.toNanos(50)));
+        assertTrue(System.nanoTime() - started >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void timedPollIsWokenByEnqueue() throws Exception {
+        final PendingPostQueue queue = new PendingPostQueue();
+        final PendingPost pendingPost = new PendingPost("event", null);
+        new Thread() {
+            @Override
+            public void run() {
+                sleepQuietly(100);
+                queue.enqueue(pendingPost);
+            }
+        }.start();
+        long started = System.nanoTime();
+        assertSame(pendingPost, queue.poll(TimeUnit.SECONDS.toNanos(10)));
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    public void timedPollIsWokenByEnqueueAll() throws Exception {
+        final PendingPostQueue queue = new PendingPostQueue();
+        final PendingPost[] chain = chain(2, "chain");
+        new Thread() {
+            @Override
+            public void run() {
+                sleepQuietly(100);
+                queue.enqueueAll(chain[0], chain[1]);
+            }
+        }.start();
+        long started = System.nanoTime();
+        assertSame(chain[0], queue.poll(TimeUnit.SECONDS.toNanos(10)));
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(5));
+        assertSame(chain[1], queue.poll());
+    }
+
+    @Test
+    public void timedPollThrowsWhenInterrupted() throws Exception {
+        final PendingPostQueue queue = new PendingPostQueue();
+        final Thread consumer = Thread.currentThread();
+        new Thread() {
+            @Override
+            public void run() {
+                sleepQuietly(100);
+                consumer.interrupt();
+            }
+        }.start();
+        try {
+            queue.poll(TimeUnit.SECONDS.toNanos(10));
+            fail();
+        } catch (InterruptedException expected) {
+        }
+    }
+
+    @Test
+    public void evictTakesOldest() {
+        PendingPostQueue queue = new PendingPostQueue(true);
+        PendingPost[] chain = chain(3, "chain");
+        queue.enqueueAll(chain[0], chain[2]);
+        assertSame(chain[0], queue.evict());
+        assertSame(chain[1], queue.poll());
+        assertSame(chain[2], queue.evict());
+        assertNull(queue.evict());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void evictRequiresEvictableQueue() {
+        new PendingPostQueue().evict();
+    }
+
+    /**
+     * 后台线程不等待新事件,队列一空就清除executorRunning结束任务;
+     * 与此同时入队的事件必须由重新检查的任务或者入队线程新提交的任务送达
+     */
+    @Test
+    public void backgroundPosterDoesNotLoseWakeUps() throws Exception {
+        executor = Executors.newCachedThreadPool();
+        EventBus eventBus = EventBus.builder().executorService(executor)
+                .backgroundThreadKeepAlive(0, TimeUnit.MILLISECONDS).build();
+        assertNoLostWakeUps(eventBus, new BackgroundSubscriber());
+    }
+
+    @Test
+    public void eventLoopPosterDoesNotLoseWakeUps() throws Exception {
+        eventLoop = new EventLoop("main");
+        EventBus eventBus = EventBus.builder().mainThreadSupport(eventLoop).build();
+        assertNoLostWakeUps(eventBus, new MainThreadSubscriber());
+    }
+
+    private static void assertNoLostWakeUps(final EventBus eventBus, CountingSubscriber
+            subscriber) throws InterruptedException {
+        eventBus.register(subscriber);
+        final int rounds = 2000;
+        final int posters = 2;
+        for (int round = 0; round < rounds; round++) {
+            final CountDownLatch start = new CountDownLatch(1);
+            for (int p = 0; p < posters; p++) {
+                new Thread() {
+                    @Override
+                    public void run() {
+                        awaitQuietly(start);
+                        eventBus.post("event");
+                    }
+                }.start();
+            }
+            start.countDown();
+            assertTrue("lost wake-up in round " + round,
+                    subscriber.delivered.tryAcquire(posters, 5, TimeUnit.SECONDS));
+        }
+    }
+
+    private static PendingPost[] chain(int length, String prefix) {
+        PendingPost[] chain = new PendingPost[length];
+        for (int i = 0; i < length; i++) {
+            chain[i] = new PendingPost(prefix + i, null);
+            if (i > 0) {
+                chain[i - 1].next = chain[i];
+            }
+        }
+        return chain;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static class CountingSubscriber {
+        final Semaphore delivered = new Semaphore(0);
+    }
+
+    public static class BackgroundSubscriber extends CountingSubscriber {
+        public void onEventBackgroundThread(String event) {
+            delivered.release();
+        }
+    }
+
+    public static class MainThreadSubscriber extends CountingSubscriber {
+        public void onEventMainThread(String event) {
+            delivered.release();
+        }
+    }
+}
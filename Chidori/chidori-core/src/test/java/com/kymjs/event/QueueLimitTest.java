@@ -0,0 +1,277 @@
+package com.kymjs.event;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 发送队列上限的四种策略,以及发送器的线程在响应方法中向已满的队列发送事件
+ */
+public class QueueLimitTest {
+
+    private static final int CAPACITY = 10;
+
+    private EventLoop eventLoop;
+    private ExecutorService executor;
+
+    @After
+    public void tearDown() {
+        if (eventLoop != null) {
+            eventLoop.shutdown();
+        }
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void dropNewestKeepsFirstEvents() throws Exception {
+        EventBus eventBus = mainThreadBus(OverflowPolicy.DROP_NEWEST);
+        GatedSubscriber subscriber = new GatedSubscriber();
+        eventBus.register(subscriber);
+        postRange(eventBus, 100);
+        subscriber.open();
+        awaitEmpty(eventBus, ThreadMode.MainThread);
+
+        PostQueueStats stats = eventBus.getPostQueueStats(ThreadMode.MainThread);
+        assertEquals(100, subscriber.received.size() + stats.dropped);
+        assertTrue(subscriber.received.size() <= CAPACITY + 1);
+        assertEquals(Integer.valueOf(0), subscriber.received.get(0));
+    }
+
+    @Test
+    public void dropOldestKeepsLatestEvents() throws Exception {
+        EventBus eventBus = mainThreadBus(OverflowPolicy.DROP_OLDEST);
+        GatedSubscriber subscriber = new GatedSubscriber();
+        eventBus.register(subscriber);
+        postRange(eventBus, 100);
+        subscriber.open();
+        awaitEmpty(eventBus, ThreadMode.MainThread);
+
+        PostQueueStats stats = eventBus.getPostQueueStats(ThreadMode.MainThread);
+        List<Integer> received = subscriber.received;
+        assertEquals(100, received.size() + stats.dropped);
+        assertEquals(Integer.valueOf(99), received.get(received.size() - 1));
+        assertTrue(received.contains(90));
+        assertFalse(received.contains(50));
+    }
+
+    @Test
+    public void failFastThrowsWhenFull() throws Exception {
+        EventBus eventBus = mainThreadBus(OverflowPolicy.FAIL_FAST);
+        GatedSubscriber subscriber = new GatedSubscriber();
+        eventBus.register(subscriber);
+        int thrown = 0;
+        for (int i = 0; i < 100; i++) {
+            try {
+                eventBus.post(i);
+            } catch (EventBusException expected) {
+                thrown++;
+            }
+        }
+        subscriber.open();
+        awaitEmpty(eventBus, ThreadMode.MainThread);
+
+        PostQueueStats stats = eventBus.getPostQueueStats(ThreadMode.MainThread);
+        assertTrue(thrown > 0);
+        assertEquals(thrown, stats.rejected);
+        assertEquals(100, thrown + subscriber.received.size());
+    }
+
+    @Test
+    public void blockWaitsForSpace() throws Exception {
+        final EventBus eventBus = mainThreadBus(OverflowPolicy.BLOCK);
+        GatedSubscriber subscriber = new GatedSubscriber();
+        eventBus.register(subscriber);
+        Thread poster = new Thread() {
+            @Override
+            public void run() {
+                postRange(eventBus, 100);
+            }
+        };
+        poster.start();
+        poster.join(200);
+        assertTrue("poster should wait while the queue is full", poster.isAlive());
+
+        subscriber.open();
+        poster.join(5000);
+        assertFalse(poster.isAlive());
+        awaitEmpty(eventBus, ThreadMode.MainThread);
+
+        PostQueueStats stats = eventBus.getPostQueueStats(ThreadMode.MainThread);
+        assertEquals(100, subscriber.received.size());
+        assertTrue(stats.blocked > 0);
+        assertEquals(0, stats.dropped);
+        assertEquals(0, stats.overflowed);
+    }
+
+    @Test
+    public void blockDoesNotWaitOnItsOwnQueue() throws Exception {
+        //普通JVM上所有线程都当作主线程,后台线程中发送的BackgroundThread事件也排队
+        executor = Executors.newCachedThreadPool();
+        EventBus eventBus = EventBus.builder().executorService(executor)
+                .postQueueCapacity(ThreadMode.BackgroundThread, 1, OverflowPolicy.BLOCK).build();
+        ReposterSubscriber subscriber = new ReposterSubscriber(eventBus, 5);
+        eventBus.register(subscriber);
+        eventBus.post(0);
+
+        assertTrue("background thread waited for itself",
+                subscriber.done.await(5, TimeUnit.SECONDS));
+        awaitEmpty(eventBus, ThreadMode.BackgroundThread);
+        PostQueueStats stats = eventBus.getPostQueueStats(ThreadMode.BackgroundThread);
+        assertTrue(stats.overflowed > 0);
+        assertEquals(0, stats.blocked);
+        assertEquals(Collections.nCopies(5, 1), subscriber.reposted);
+    }
+
+    @Test
+    public void blockDoesNotWaitOnItsOwnTypeLimit() throws Exception {
+        executor = Executors.newCachedThreadPool();
+        EventBus eventBus = EventBus.builder().executorService(executor)
+                .postQueueCapacity(Integer.class, 1, OverflowPolicy.BLOCK).build();
+        ReposterSubscriber subscriber = new ReposterSubscriber(eventBus, 5);
+        eventBus.register(subscriber);
+        eventBus.post(0);
+
+        assertTrue("background thread waited for itself",
+                subscriber.done.await(5, TimeUnit.SECONDS));
+        awaitEmpty(eventBus, Integer.class);
+        assertTrue(eventBus.getPostQueueStats(Integer.class).overflowed > 0);
+    }
+
+    @Test
+    public void typeLimitDropsNewest() throws Exception {
+        final CountDownLatch hold = new CountDownLatch(1);
+        executor = Executors.newSingleThreadExecutor();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    hold.await();
+                } catch (InterruptedException ignored) {
+                }
+            }
+        });
+        EventBus eventBus = EventBus.builder().executorService(executor)
+                .postQueueCapacity(CharSequence.class, 5, OverflowPolicy.DROP_NEWEST).build();
+        AsyncSubscriber subscriber = new AsyncSubscriber();
+        eventBus.register(subscriber);
+        for (int i = 0; i < 50; i++) {
+            eventBus.post("s" + i);
+        }
+        hold.countDown();
+        awaitEmpty(eventBus, CharSequence.class);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        PostQueueStats stats = eventBus.getPostQueueStats(CharSequence.class);
+        assertEquals(5, subscriber.received.size());
+        assertEquals(45, stats.dropped);
+        assertEquals(null, eventBus.getPostQueueStats(ThreadMode.Async));
+    }
+
+    @Test
+    public void rejectsUnsupportedLimits() {
+        try {
+            EventBus.builder().postQueueCapacity(ThreadMode.PostThread, 1, OverflowPolicy.BLOCK);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            EventBus.builder().postQueueCapacity(String.class, 1, OverflowPolicy.DROP_OLDEST);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private EventBus mainThreadBus(OverflowPolicy policy) {
+        eventLoop = new EventLoop("main");
+        return EventBus.builder().mainThreadSupport(eventLoop).logNoSubscriberMessages(false)
+                .postQueueCapacity(ThreadMode.MainThread, CAPACITY, policy).build();
+    }
+
+    private static void postRange(EventBus eventBus, int count) {
+        for (int i = 0; i < count; i++) {
+            eventBus.post(i);
+        }
+    }
+
+    private static void awaitEmpty(EventBus eventBus, ThreadMode threadMode) throws
+            InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (eventBus.getPostQueueStats(threadMode).size > 0) {
+            assertTrue("queue not drained", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static void awaitEmpty(EventBus eventBus, Class<?> eventType) throws
+            InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (eventBus.getPostQueueStats(eventType).size > 0) {
+            assertTrue("queue not drained", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    public static class GatedSubscriber {
+        final List<Integer> received = Collections.synchronizedList(new ArrayList<Integer>());
+        private final CountDownLatch gate = new CountDownLatch(1);
+
+        public void onEventMainThread(Integer event) throws InterruptedException {
+            gate.await();
+            received.add(event);
+        }
+
+        void open() {
+            gate.countDown();
+        }
+    }
+
+    /**
+     * 在后台线程中响应0时一次发送多个事件,超过队列的上限
+     */
+    public static class ReposterSubscriber {
+        final List<Integer> reposted = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch done;
+        private final EventBus eventBus;
+        private final int count;
+
+        ReposterSubscriber(EventBus eventBus, int count) {
+            this.eventBus = eventBus;
+            this.count = count;
+            done = new CountDownLatch(count);
+        }
+
+        public void onEventBackgroundThread(Integer event) {
+            if (event == 0) {
+                for (int i = 0; i < count; i++) {
+                    eventBus.post(1);
+                }
+            } else {
+                reposted.add(event);
+                done.countDown();
+            }
+        }
+    }
+
+    public static class AsyncSubscriber {
+        final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+
+        public void onEventAsync(String event) {
+            received.add(event);
+        }
+    }
+}
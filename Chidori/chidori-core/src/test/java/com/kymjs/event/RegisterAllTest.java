@@ -0,0 +1,203 @@
+package com.kymjs.event;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 批量注册、解除注册:整批要么全部注册要么全部不注册,每个事件类型只替换一次订阅者数组
+ */
+public class RegisterAllTest {
+
+    @Test
+    public void duplicateInBatchRegistersNothing() {
+        EventBus eventBus = EventBus.builder().logNoSubscriberMessages(false).build();
+        List<String> received = new ArrayList<String>();
+        Recorder first = new Recorder("first", received);
+        Recorder second = new Recorder("second", received);
+        try {
+            eventBus.registerAll(Arrays.asList(first, second, first));
+            fail("Expected EventBusException");
+        } catch (EventBusException expected) {
+        }
+        assertFalse(eventBus.isRegistered(first));
+        assertFalse(eventBus.isRegistered(second));
+        assertNull(eventBus.getSubscriptionsByEventType(String.class));
+        assertEquals(0, eventBus.getRegisteredSubscriberCount());
+        eventBus.post("event");
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void alreadyRegisteredSubscriberRollsBackBatch() {
+        EventBus eventBus = EventBus.builder().logNoSubscriberMessages(false).build();
+        List<String> received = new ArrayList<String>();
+        Recorder registered = new Recorder("registered", received);
+        Recorder fresh = new Recorder("fresh", received);
+        eventBus.register(registered);
+        try {
+            eventBus.registerAll(Arrays.asList(fresh, registered));
+            fail("Expected EventBusException");
+        } catch (EventBusException expected) {
+        }
+        assertFalse(eventBus.isRegistered(fresh));
+        assertTrue(eventBus.isRegistered(registered));
+        assertEquals(1, eventBus.getSubscriptionsByEventType(String.class).length);
+        eventBus.post("event");
+        assertEquals(Collections.singletonList("registered"), received);
+    }
+
+    @Test
+    public void batchMergesByPriorityInRegistrationOrder() {
+        EventBus eventBus = EventBus.builder().build();
+        List<String> received = new ArrayList<String>();
+        eventBus.register(new Recorder("high", received), 10);
+        eventBus.register(new Recorder("low", received), 0);
+        eventBus.register(new Recorder("middle", received), 5);
+        eventBus.registerAll(Arrays.asList(new Recorder("a", received), new Recorder("b",
+                received), new Recorder("c", received)), 5);
+        eventBus.post("event");
+        //优先级相同时排在已有的订阅之后,同一批内保持传入的顺序
+        assertEquals(Arrays.asList("high", "middle", "a", "b", "c", "low"), received);
+    }
+
+    @Test
+    public void batchReplacesEachTypeOnce() throws Exception {
+        final EventBus eventBus = EventBus.builder().build();
+        List<String> received = new ArrayList<String>();
+        eventBus.register(new Recorder("existing", received));
+        eventBus.post("event");
+        Subscription[] before = eventBus.getSubscriptionsByEventType(String.class);
+        int version = eventBus.getDispatchPlanVersion();
+
+        final List<Object> batch = new ArrayList<Object>();
+        for (int i = 0; i < 200; i++) {
+            batch.add(new Recorder("batch" + i, received));
+        }
+        //读者只会看到注册前或注册后的完整数组
+        final AtomicBoolean stop = new AtomicBoolean();
+        final List<Integer> partial = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch reading = new CountDownLatch(1);
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                reading.countDown();
+                while (!stop.get()) {
+                    int length = eventBus.getSubscriptionsByEventType(String.class).length;
+                    if (length != 1 && length != 201) {
+                        partial.add(length);
+                    }
+                }
+            }
+        });
+        reader.start();
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+        eventBus.registerAll(batch);
+        stop.set(true);
+        reader.join(5000);
+
+        assertTrue(partial.toString(), partial.isEmpty());
+        Subscription[] after = eventBus.getSubscriptionsByEventType(String.class);
+        assertEquals(201, after.length);
+        assertTrue(before[0] == after[0]);
+        //整批只让分发计划失效一次
+        assertEquals(version + 1, eventBus.getDispatchPlanVersion());
+
+        eventBus.post("event");
+        eventBus.unregisterAll(batch);
+        assertEquals(version + 2, eventBus.getDispatchPlanVersion());
+        assertEquals(1, eventBus.getSubscriptionsByEventType(String.class).length);
+    }
+
+    @Test
+    public void registerStickyAllReplaysToEverySubscriber() {
+        EventBus eventBus = EventBus.builder().build();
+        List<String> received = new ArrayList<String>();
+        eventBus.postSticky("sticky");
+        eventBus.postSticky(7);
+        eventBus.registerStickyAll(Arrays.asList(new Recorder("first", received), new
+                Recorder("second", received), new NumberRecorder("number", received)));
+        //开启事件继承时订阅Number的订阅者也收到Integer粘性事件
+        assertEquals(Arrays.asList("first", "second", "number"), received);
+
+        received.clear();
+        eventBus.registerAll(Collections.singletonList(new Recorder("plain", received)));
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void unregisterAllSkipsSubscribersNeverRegistered() {
+        final List<String> warnings = new ArrayList<String>();
+        EventBus eventBus = EventBus.builder().logger(new Logger() {
+            @Override
+            public void log(Level level, String msg) {
+                if (level == Level.WARNING) {
+                    warnings.add(msg);
+                }
+            }
+
+            @Override
+            public void log(Level level, String msg, Throwable th) {
+                log(level, msg);
+            }
+        }).logNoSubscriberMessages(false).build();
+        List<String> received = new ArrayList<String>();
+        Recorder registered = new Recorder("registered", received);
+        Recorder kept = new Recorder("kept", received);
+        eventBus.registerAll(Arrays.asList(registered, kept));
+
+        eventBus.unregisterAll(Arrays.asList(new Recorder("never", received), registered,
+                new NumberRecorder("never", received)));
+        assertEquals(2, warnings.size());
+        assertFalse(eventBus.isRegistered(registered));
+        assertTrue(eventBus.isRegistered(kept));
+        assertNull(eventBus.getSubscriptionsByEventType(Number.class));
+        Subscription[] subscriptions = eventBus.getSubscriptionsByEventType(String.class);
+        assertNotNull(subscriptions);
+        assertEquals(1, subscriptions.length);
+        eventBus.post("event");
+        assertEquals(Collections.singletonList("kept"), received);
+    }
+
+    public static class Recorder {
+        private final String name;
+        private final List<String> received;
+
+        Recorder(String name, List<String> received) {
+            this.name = name;
+            this.received = received;
+        }
+
+        public void onEvent(String event) {
+            received.add(name);
+        }
+    }
+
+    public static class NumberRecorder {
+        private final String name;
+        private final List<String> received;
+
+        NumberRecorder(String name, List<String> received) {
+            this.name = name;
+            this.received = received;
+        }
+
+        public void onEvent(Number event) {
+            received.add(name);
+        }
+    }
+}
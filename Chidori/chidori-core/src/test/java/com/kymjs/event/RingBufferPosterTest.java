@@ -0,0 +1,251 @@
+package com.kymjs.event;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 环形缓冲区发送器:缓冲区已满时按BackgroundThread的OverflowPolicy处理(默认等待),
+ * 消费线程自己发送的事件不占用缓冲区,仍然由它按顺序响应
+ */
+public class RingBufferPosterTest {
+
+    private static final int CAPACITY = 4;
+
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private ExecutorService executor;
+
+    @After
+    public void tearDown() {
+        gate.countDown();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void deliversInOrder() throws Exception {
+        for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+            executor = Executors.newCachedThreadPool();
+            EventBus eventBus = ringBus(waitStrategy);
+            RecordingSubscriber subscriber = new RecordingSubscriber(null, 1000);
+            eventBus.register(subscriber);
+            for (int i = 0; i < 1000; i++) {
+                eventBus.post(i);
+            }
+            assertTrue(waitStrategy.name(), subscriber.done.await(10, TimeUnit.SECONDS));
+            assertEquals(range(0, 1000), subscriber.received);
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void publisherWaitsWhileRingIsFull() throws Exception {
+        executor = Executors.newCachedThreadPool();
+        final EventBus eventBus = ringBus(WaitStrategy.BLOCKING);
+        RecordingSubscriber subscriber = new RecordingSubscriber(gate, 2 * CAPACITY + 1);
+        eventBus.register(subscriber);
+        //消费线程取出0以后在响应方法中等待,之后的CAPACITY个事件占满缓冲区
+        eventBus.post(0);
+        assertTrue(subscriber.started.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= CAPACITY; i++) {
+            eventBus.post(i);
+        }
+        Thread publisher = new Thread() {
+            @Override
+            public void run() {
+                for (int i = CAPACITY + 1; i <= 2 * CAPACITY; i++) {
+                    eventBus.post(i);
+                }
+            }
+        };
+        publisher.start();
+        publisher.join(200);
+        assertTrue("publisher should wait while the ring is full", publisher.isAlive());
+        assertEquals(Collections.singletonList(0), subscriber.received);
+        //没有设置上限时按BLOCK等待,统计缓冲区的槽位
+        PostQueueStats stats = eventBus.getPostQueueStats(ThreadMode.BackgroundThread);
+        assertEquals(CAPACITY, stats.capacity);
+        assertEquals(OverflowPolicy.BLOCK, stats.policy);
+        assertEquals(1, stats.blocked);
+
+        gate.countDown();
+        publisher.join(5000);
+        assertFalse(publisher.isAlive());
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        assertEquals(range(0, 2 * CAPACITY + 1), subscriber.received);
+        //都经过缓冲区,由同一个消费线程响应
+        assertEquals(1, new HashSet<Thread>(subscriber.threads).size());
+    }
+
+    @Test
+    public void consumerRepostsInOrderOnItsOwnThread() throws Exception {
+        executor = Executors.newCachedThreadPool();
+        EventBus eventBus = ringBus(WaitStrategy.BLOCKING);
+        int reposted = 3 * CAPACITY;
+        ReposterSubscriber subscriber = new ReposterSubscriber(eventBus, gate, 100, reposted);
+        eventBus.register(subscriber);
+        eventBus.post(0);
+        assertTrue(subscriber.started.await(5, TimeUnit.SECONDS));
+        //消费线程在响应0时等待,其他线程发送的事件占满缓冲区
+        for (int i = 1; i <= CAPACITY; i++) {
+            eventBus.post(i);
+        }
+        gate.countDown();
+
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        //消费线程自己发送的事件排在发送时已经认领的事件之后,都由消费线程按顺序响应
+        List<Integer> expected = range(1, CAPACITY + 1);
+        expected.addAll(range(100, 100 + reposted));
+        synchronized (subscriber) {
+            assertEquals(expected, subscriber.received);
+            assertEquals(Collections.singleton(subscriber.consumer), new HashSet<Thread>(
+                    subscriber.threads));
+        }
+    }
+
+    @Test
+    public void fullRingAppliesDropNewest() throws Exception {
+        executor = Executors.newCachedThreadPool();
+        EventBus eventBus = EventBus.builder().executorService(executor)
+                .backgroundThreadRingBuffer(CAPACITY, WaitStrategy.BLOCKING)
+                .postQueueCapacity(ThreadMode.BackgroundThread, 1024, OverflowPolicy.DROP_NEWEST)
+                .build();
+        RecordingSubscriber subscriber = new RecordingSubscriber(gate, CAPACITY + 1);
+        eventBus.register(subscriber);
+        fillRing(eventBus, subscriber);
+        eventBus.post(CAPACITY + 1);
+        eventBus.post(CAPACITY + 2);
+        PostQueueStats stats = eventBus.getPostQueueStats(ThreadMode.BackgroundThread);
+        assertEquals(CAPACITY, stats.capacity);
+        assertEquals(2, stats.dropped);
+
+        gate.countDown();
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(range(0, CAPACITY + 1), subscriber.received);
+    }
+
+    @Test
+    public void fullRingAppliesFailFast() throws Exception {
+        executor = Executors.newCachedThreadPool();
+        EventBus eventBus = EventBus.builder().executorService(executor)
+                .backgroundThreadRingBuffer(CAPACITY, WaitStrategy.BLOCKING)
+                .postQueueCapacity(ThreadMode.BackgroundThread, CAPACITY, OverflowPolicy.FAIL_FAST)
+                .build();
+        RecordingSubscriber subscriber = new RecordingSubscriber(gate, CAPACITY + 1);
+        eventBus.register(subscriber);
+        fillRing(eventBus, subscriber);
+        try {
+            eventBus.post(CAPACITY + 1);
+            fail("Full ring should reject the event");
+        } catch (EventBusException expected) {
+        }
+        assertEquals(1, eventBus.getPostQueueStats(ThreadMode.BackgroundThread).rejected);
+        gate.countDown();
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        assertEquals(range(0, CAPACITY + 1), subscriber.received);
+    }
+
+    /**
+     * 消费线程在响应0时等待,之后的CAPACITY个事件占满缓冲区
+     */
+    private static void fillRing(EventBus eventBus, RecordingSubscriber subscriber) throws
+            InterruptedException {
+        eventBus.post(0);
+        assertTrue(subscriber.started.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= CAPACITY; i++) {
+            eventBus.post(i);
+        }
+    }
+
+    private EventBus ringBus(WaitStrategy waitStrategy) {
+        return EventBus.builder().executorService(executor)
+                .backgroundThreadRingBuffer(CAPACITY, waitStrategy)
+                .backgroundThreadKeepAlive(10, TimeUnit.MILLISECONDS).build();
+    }
+
+    private static List<Integer> range(int from, int to) {
+        List<Integer> range = new ArrayList<Integer>();
+        for (int i = from; i < to; i++) {
+            range.add(i);
+        }
+        return range;
+    }
+
+    public static class RecordingSubscriber {
+        final List<Integer> received = Collections.synchronizedList(new ArrayList<Integer>());
+        final List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch done;
+        private final CountDownLatch gate;
+
+        RecordingSubscriber(CountDownLatch gate, int events) {
+            this.gate = gate;
+            done = new CountDownLatch(events);
+        }
+
+        public void onEventBackgroundThread(Integer event) throws InterruptedException {
+            received.add(event);
+            threads.add(Thread.currentThread());
+            started.countDown();
+            if (gate != null && event == 0) {
+                gate.await();
+            }
+            done.countDown();
+        }
+    }
+
+    /**
+     * 在消费线程中响应0时等待gate,之后一次发送多个事件,超过缓冲区的容量
+     */
+    public static class ReposterSubscriber {
+        final List<Integer> received = new ArrayList<Integer>();
+        final List<Thread> threads = new ArrayList<Thread>();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch done;
+        volatile Thread consumer;
+        private final EventBus eventBus;
+        private final CountDownLatch gate;
+        private final int first;
+        private final int count;
+
+        ReposterSubscriber(EventBus eventBus, CountDownLatch gate, int first, int count) {
+            this.eventBus = eventBus;
+            this.gate = gate;
+            this.first = first;
+            this.count = count;
+            done = new CountDownLatch(CAPACITY + count);
+        }
+
+        public void onEventBackgroundThread(Integer event) throws InterruptedException {
+            if (event == 0) {
+                consumer = Thread.currentThread();
+                started.countDown();
+                gate.await();
+                for (int i = first; i < first + count; i++) {
+                    eventBus.post(i);
+                }
+                return;
+            }
+            synchronized (this) {
+                received.add(event);
+                threads.add(Thread.currentThread());
+            }
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.kymjs.event;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 粘性事件文件:重启后恢复、写入中断和内容损坏、整理,以及第一次读取时才解码
+ */
+public class StickyEventJournalTest {
+
+    private static final int FILE_HEADER_SIZE = 8;
+
+    private final Logger logger = new Logger.JavaLogger("StickyEventJournalTest");
+    private final CountingCodec codec = new CountingCodec();
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("sticky", ".journal");
+        assertTrue(file.delete());
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+        new File(file.getPath() + ".tmp").delete();
+    }
+
+    @Test
+    public void restoresLatestEventOfEachType() throws Exception {
+        StickyEventJournal journal = open();
+        journal.put(new Location("first"), 1000);
+        journal.put(new Status(1), 2000);
+        journal.put(new Location("second"), 3000);
+        journal.put(new Progress(50), 4000);
+        journal.remove(Progress.class);
+        journal.flush();
+
+        List<StickyEventJournal.Record> records = open().takeRecords();
+        assertEquals(2, records.size());
+        StickyEventJournal.Record location = find(records, Location.class);
+        assertEquals(3000, location.time);
+        assertEquals(new Location("second"), decode(location));
+        assertEquals(new Status(1), decode(find(records, Status.class)));
+    }
+
+    @Test
+    public void decodesOnFirstRead() throws Exception {
+        StickyEventJournal journal = open();
+        journal.put(new Location("home"), System.currentTimeMillis());
+        journal.put(new Status(7), System.currentTimeMillis());
+        journal.flush();
+
+        codec.decodes.set(0);
+        EventBusBuilder builder = EventBus.builder().persistStickyEvents(file, codec);
+        StickyEventStore store = new StickyEventStore(builder, logger);
+        assertEquals(0, codec.decodes.get());
+        assertEquals(2, store.getStats().count);
+
+        assertEquals(new Status(7), store.get(Status.class));
+        assertEquals(1, codec.decodes.get());
+        assertEquals(new Status(7), store.get(Status.class));
+        assertEquals(1, codec.decodes.get());
+    }
+
+    @Test
+    public void ignoresTornLastRecord() throws Exception {
+        StickyEventJournal journal = open();
+        journal.put(new Location("kept"), 1000);
+        journal.put(new Status(2), 2000);
+        journal.flush();
+        //进程在写入长度之前被杀死:最后一条记录的长度仍然是0
+        int second = FILE_HEADER_SIZE + readInt(FILE_HEADER_SIZE);
+        writeInt(second, 0);
+
+        journal = open();
+        List<StickyEventJournal.Record> records = journal.takeRecords();
+        assertEquals(1, records.size());
+        assertEquals(new Location("kept"), decode(records.get(0)));
+
+        //之后的记录覆盖中断的记录
+        journal.put(new Progress(3), 3000);
+        journal.flush();
+        records = open().takeRecords();
+        assertEquals(2, records.size());
+        assertNotNull(find(records, Location.class));
+        assertEquals(new Progress(3), decode(find(records, Progress.class)));
+    }
+
+    @Test
+    public void stopsAtRecordWithInvalidLength() throws Exception {
+        StickyEventJournal journal = open();
+        journal.put(new Location("kept"), 1000);
+        journal.put(new Status(2), 2000);
+        journal.flush();
+        int second = FILE_HEADER_SIZE + readInt(FILE_HEADER_SIZE);
+        writeInt(second, Integer.MAX_VALUE);
+
+        List<StickyEventJournal.Record> records = open().takeRecords();
+        assertEquals(1, records.size());
+        assertEquals(Location.class, records.get(0).eventType);
+    }
+
+    @Test
+    public void dropsEventWithBadChecksum() throws Exception {
+        StickyEventJournal journal = open();
+        journal.put(new Location("corrupted"), System.currentTimeMillis());
+        journal.put(new Status(4), System.currentTimeMillis());
+        journal.flush();
+        //翻转第一条记录payload的最后一个字节
+        int last = FILE_HEADER_SIZE + readInt(FILE_HEADER_SIZE) - 1;
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.seek(last);
+        int value = raf.read();
+        raf.seek(last);
+        raf.write(value ^ 0xff);
+        raf.close();
+
+        List<StickyEventJournal.Record> records = open().takeRecords();
+        try {
+            decode(find(records, Location.class));
+            fail();
+        } catch (IOException expected) {
+        }
+
+        EventBusBuilder builder = EventBus.builder().persistStickyEvents(file, codec);
+        StickyEventStore store = new StickyEventStore(builder, logger);
+        assertNull(store.get(Location.class));
+        assertEquals(new Status(4), store.get(Status.class));
+        assertEquals(1, store.getStats().count);
+    }
+
+    @Test
+    public void compactsWhenMostRecordsAreStale() throws Exception {
+        StickyEventJournal journal = open();
+        for (int i = 0; i < 100; i++) {
+            journal.put(new Payload(i, 4096), i);
+        }
+        journal.put(new Status(9), 200);
+        journal.flush();
+
+        //写入了400KB以上,整理后文件只需要容纳最近写入的记录
+        assertTrue(file.length() <= 256 * 1024);
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+        List<StickyEventJournal.Record> records = open().takeRecords();
+        assertEquals(2, records.size());
+        assertEquals(99, ((Payload) decode(find(records, Payload.class))).id);
+        assertEquals(new Status(9), decode(find(records, Status.class)));
+    }
+
+    @Test
+    public void keepsUndecodedRecordsAcrossRemapAndCompaction() throws Exception {
+        StickyEventJournal journal = open();
+        journal.put(new Location("before restart"), 1000);
+        journal.flush();
+
+        journal = open();
+        List<StickyEventJournal.Record> records = journal.takeRecords();
+        //文件变大需要重新映射,之后整理换成新文件,两次都释放之前的映射
+        for (int i = 0; i < 100; i++) {
+            journal.put(new Payload(i, 4096), i);
+        }
+        journal.flush();
+        assertEquals(new Location("before restart"), decode(find(records, Location.class)));
+
+        records = open().takeRecords();
+        assertEquals(2, records.size());
+        assertEquals(new Location("before restart"), decode(find(records, Location.class)));
+    }
+
+    @Test
+    public void clearDropsAllRecords() throws Exception {
+        StickyEventJournal journal = open();
+        journal.put(new Location("gone"), 1000);
+        journal.clear();
+        journal.put(new Status(5), 2000);
+        journal.flush();
+
+        List<StickyEventJournal.Record> records = open().takeRecords();
+        assertEquals(1, records.size());
+        assertEquals(Status.class, records.get(0).eventType);
+    }
+
+    @Test
+    public void recreatesForeignFile() throws Exception {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.writeUTF("not a journal");
+        raf.close();
+
+        StickyEventJournal journal = open();
+        assertNotNull(journal);
+        assertTrue(journal.takeRecords().isEmpty());
+    }
+
+    private StickyEventJournal open() {
+        return StickyEventJournal.open(file, codec, logger);
+    }
+
+    private Object decode(StickyEventJournal.Record record) throws IOException {
+        return open().decode(record);
+    }
+
+    private static StickyEventJournal.Record find(List<StickyEventJournal.Record> records,
+                                                  Class<?> eventType) {
+        for (StickyEventJournal.Record record : records) {
+            if (record.eventType == eventType) {
+                return record;
+            }
+        }
+        throw new AssertionError("No record for " + eventType);
+    }
+
+    private int readInt(long position) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            raf.seek(position);
+            return raf.readInt();
+        } finally {
+            raf.close();
+        }
+    }
+
+    private void writeInt(long position, int value) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.seek(position);
+            raf.writeInt(value);
+        } finally {
+            raf.close();
+        }
+    }
+
+    static class CountingCodec extends SerializableStickyEventCodec {
+        final AtomicInteger decodes = new AtomicInteger();
+
+        @Override
+        public Object decode(Class<?> eventType, byte[] data) throws IOException {
+            decodes.incrementAndGet();
+            return super.decode(eventType, data);
+        }
+    }
+
+    public static class Location implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final String name;
+
+        Location(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Location && ((Location) o).name.equals(name);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+    }
+
+    public static class Status implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final int code;
+
+        Status(int code) {
+            this.code = code;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Status && ((Status) o).code == code;
+        }
+
+        @Override
+        public int hashCode() {
+            return code;
+        }
+    }
+
+    public static class Progress implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final int percent;
+
+        Progress(int percent) {
+            this.percent = percent;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Progress && ((Progress) o).percent == percent;
+        }
+
+        @Override
+        public int hashCode() {
+            return percent;
+        }
+    }
+
+    public static class Payload implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final int id;
+        final byte[] data;
+
+        Payload(int id, int size) {
+            this.id = id;
+            data = new byte[size];
+        }
+    }
+}
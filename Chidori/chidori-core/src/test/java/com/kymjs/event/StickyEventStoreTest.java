@@ -0,0 +1,248 @@
+package com.kymjs.event;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 粘性事件的存活时间、按访问顺序淘汰,以及移除后父类和接口的索引
+ */
+public class StickyEventStoreTest {
+
+    private final Logger logger = new Logger.JavaLogger("StickyEventStoreTest");
+
+    @Test
+    public void expiresAfterTtl() throws Exception {
+        StickyEventStore store = store(EventBus.builder().stickyEventTtl(Base.class, 50,
+                TimeUnit.MILLISECONDS));
+        store.put(new Base());
+        store.put(new Sub());
+        store.put("no ttl");
+        assertNotNull(store.get(Base.class));
+        assertNotNull(store.get(Sub.class));
+
+        Thread.sleep(80);
+        assertNull(store.get(Base.class));
+        //子类使用父类的存活时间,没有被读取的在下一次put时清理
+        store.put(1);
+        StickyEventStats stats = store.getStats();
+        assertEquals(2, stats.count);
+        assertEquals(2, stats.expirations);
+        assertNull(store.get(Sub.class));
+        assertEquals("no ttl", store.get(String.class));
+        assertEquals(0, store.getStickyTypes(Base.class).length);
+    }
+
+    @Test
+    public void expiresInDeadlineOrderAcrossTtls() throws Exception {
+        StickyEventStore store = store(EventBus.builder()
+                .stickyEventTtl(Base.class, 40, TimeUnit.MILLISECONDS)
+                .stickyEventTtl(String.class, 10, TimeUnit.SECONDS));
+        store.put("long");
+        store.put(new Base());
+        Thread.sleep(60);
+        store.put(new Other());
+        assertEquals(2, store.getStats().count);
+        assertEquals(1, store.getStats().expirations);
+        assertEquals("long", store.get(String.class));
+    }
+
+    @Test
+    public void replacingResetsTtl() throws Exception {
+        StickyEventStore store = store(EventBus.builder().stickyEventTtl(Base.class, 80,
+                TimeUnit.MILLISECONDS));
+        store.put(new Base());
+        Thread.sleep(50);
+        Base latest = new Base();
+        store.put(latest);
+        Thread.sleep(50);
+        store.put(1);
+        assertEquals(latest, store.get(Base.class));
+        assertEquals(0, store.getStats().expirations);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        StickyEventStore store = store(EventBus.builder().maxStickyEvents(3));
+        store.put("a");
+        store.put(1);
+        store.put(1L);
+        assertEquals("a", store.get(String.class));
+
+        store.put(new Base());
+        assertNull(store.peek(Integer.class));
+        assertEquals(1, store.getStats().evictions);
+
+        //读取顺序:String、Long在Base之前
+        assertNotNull(store.peek(Long.class));
+        assertNotNull(store.peek(String.class));
+        store.put(new Other());
+        assertNull(store.peek(Base.class));
+        store.put(new Sub());
+        assertNull(store.peek(Long.class));
+        assertEquals(3, store.getStats().count);
+        assertEquals(3, store.getStats().evictions);
+    }
+
+    /**
+     * 设置了数量限制时读取也不加锁,访问顺序在淘汰时调整
+     */
+    @Test(timeout = 5000)
+    public void readsDoNotTakeTheLock() throws Exception {
+        final StickyEventStore store = store(EventBus.builder().maxStickyEvents(2));
+        store.put("a");
+        store.put(1);
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                synchronized (store) {
+                    locked.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        };
+        writer.start();
+        try {
+            locked.await();
+            assertEquals("a", store.get(String.class));
+            assertEquals("a", store.peek(String.class));
+        } finally {
+            release.countDown();
+            writer.join();
+        }
+        //读取过的String比Integer晚淘汰
+        store.put(1L);
+        assertNull(store.peek(Integer.class));
+        assertEquals("a", store.peek(String.class));
+    }
+
+    @Test
+    public void replacingCountsAsAccess() {
+        StickyEventStore store = store(EventBus.builder().maxStickyEvents(2));
+        store.put("a");
+        store.put(1);
+        store.put("b");
+        store.put(1L);
+        assertNull(store.peek(Integer.class));
+        assertEquals("b", store.peek(String.class));
+    }
+
+    @Test
+    public void evictsBySizeButKeepsJustPut() {
+        StickyEventStore store = store(EventBus.builder().maxStickyEventBytes(100)
+                .stickyEventSizeEstimator(new StickyEventSizeEstimator() {
+                    @Override
+                    public long sizeOf(Object event) {
+                        return event instanceof String ? ((String) event).length() : 40;
+                    }
+                }));
+        store.put(1);
+        store.put(new Base());
+        store.put(1L);
+        assertNull(store.peek(Integer.class));
+        assertEquals(80, store.getStats().estimatedBytes);
+
+        char[] large = new char[150];
+        Arrays.fill(large, 'x');
+        store.put(new String(large));
+        assertEquals(1, store.getStats().count);
+        assertEquals(150, store.getStats().estimatedBytes);
+        assertNotNull(store.peek(String.class));
+    }
+
+    @Test
+    public void evictionCleansSupertypeIndex() {
+        StickyEventStore store = store(EventBus.builder().maxStickyEvents(1));
+        store.put(new Sub());
+        assertArrayEquals(new Class<?>[]{Sub.class}, store.getStickyTypes(Base.class));
+        assertArrayEquals(new Class<?>[]{Sub.class}, store.getStickyTypes(Marker.class));
+
+        store.put(new Other());
+        assertEquals(0, store.getStickyTypes(Base.class).length);
+        assertEquals(0, store.getStickyTypes(Sub.class).length);
+        assertArrayEquals(new Class<?>[]{Other.class}, store.getStickyTypes(Marker.class));
+        assertEquals(1, store.getStats().evictions);
+    }
+
+    @Test
+    public void indexKeepsAllSubtypes() {
+        StickyEventStore store = store(EventBus.builder());
+        store.put(new Base());
+        store.put(new Sub());
+        store.put(new Other());
+        assertEquals(new HashSet<Class<?>>(Arrays.<Class<?>>asList(Base.class, Sub.class)),
+                new HashSet<Class<?>>(Arrays.asList(store.getStickyTypes(Base.class))));
+        assertEquals(new HashSet<Class<?>>(Arrays.<Class<?>>asList(Sub.class, Other.class)),
+                new HashSet<Class<?>>(Arrays.asList(store.getStickyTypes(Marker.class))));
+
+        store.remove(Sub.class);
+        assertArrayEquals(new Class<?>[]{Base.class}, store.getStickyTypes(Base.class));
+        assertArrayEquals(new Class<?>[]{Other.class}, store.getStickyTypes(Marker.class));
+
+        store.clear();
+        assertEquals(0, store.getStickyTypes(Object.class).length);
+        assertEquals(0, store.getStats().count);
+    }
+
+    @Test
+    public void manyEventsStayWithinLimit() {
+        StickyEventStore store = store(EventBus.builder().maxStickyEvents(16)
+                .stickyEventTtl(Object.class, 1, TimeUnit.HOURS));
+        for (int i = 0; i < 10000; i++) {
+            store.put(new Numbered(i));
+            if (i % 2 == 0) {
+                store.remove(Numbered.class);
+            }
+        }
+        assertEquals(1, store.getStats().count);
+        assertEquals(new Numbered(9999), store.peek(Numbered.class));
+    }
+
+    private StickyEventStore store(EventBusBuilder builder) {
+        return new StickyEventStore(builder, logger);
+    }
+
+    public interface Marker {
+    }
+
+    public static class Base {
+    }
+
+    public static class Sub extends Base implements Marker {
+    }
+
+    public static class Other implements Marker {
+    }
+
+    public static class Numbered {
+        final int value;
+
+        Numbered(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Numbered && ((Numbered) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return value;
+        }
+    }
+}
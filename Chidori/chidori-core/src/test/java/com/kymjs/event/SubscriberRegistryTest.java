@@ -0,0 +1,222 @@
+package com.kymjs.event;
+
+import org.junit.Test;
+
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 按对象身份比较的开放寻址注册表:删除留下的墓碑、扩容和缩容,以及扩容时不加锁的读取
+ */
+public class SubscriberRegistryTest {
+
+    private static final Class<?>[] STRING_TYPES = {String.class};
+    private static final Class<?>[] INTEGER_TYPES = {Integer.class, Integer.class};
+
+    @Test
+    public void comparesByIdentity() {
+        SubscriberRegistry registry = new SubscriberRegistry();
+        EqualSubscriber first = new EqualSubscriber();
+        EqualSubscriber second = new EqualSubscriber();
+        registry.put(first, STRING_TYPES);
+        assertFalse(registry.contains(second));
+
+        registry.put(second, INTEGER_TYPES);
+        assertSame(STRING_TYPES, registry.get(first));
+        assertSame(INTEGER_TYPES, registry.get(second));
+        assertSame(STRING_TYPES, registry.remove(first));
+        assertFalse(registry.contains(first));
+        assertTrue(registry.contains(second));
+    }
+
+    @Test
+    public void neverCallsHashCodeOrEquals() {
+        SubscriberRegistry registry = new SubscriberRegistry();
+        List<HostileSubscriber> subscribers = new ArrayList<HostileSubscriber>();
+        for (int i = 0; i < 100; i++) {
+            HostileSubscriber subscriber = new HostileSubscriber();
+            subscribers.add(subscriber);
+            registry.put(subscriber, STRING_TYPES);
+        }
+        for (HostileSubscriber subscriber : subscribers) {
+            assertSame(STRING_TYPES, registry.remove(subscriber));
+        }
+    }
+
+    @Test
+    public void reRegistersAfterUnregister() {
+        SubscriberRegistry registry = new SubscriberRegistry();
+        Object subscriber = new Object();
+        registry.put(subscriber, STRING_TYPES);
+        assertSame(STRING_TYPES, registry.remove(subscriber));
+        assertNull(registry.get(subscriber));
+        assertNull(registry.remove(subscriber));
+
+        registry.put(subscriber, INTEGER_TYPES);
+        assertSame(INTEGER_TYPES, registry.get(subscriber));
+        //再次put替换value,不会多出一个槽位
+        registry.put(subscriber, STRING_TYPES);
+        assertSame(STRING_TYPES, registry.remove(subscriber));
+        assertNull(registry.get(subscriber));
+    }
+
+    @Test
+    public void findsEntriesPastTombstones() {
+        SubscriberRegistry registry = new SubscriberRegistry();
+        Object[] subscribers = newSubscribers(1000);
+        for (int round = 0; round < 3; round++) {
+            for (Object subscriber : subscribers) {
+                registry.put(subscriber, STRING_TYPES);
+            }
+            //删除一半,留下的墓碑不能挡住后面探测到的元素
+            for (int i = 0; i < subscribers.length; i += 2) {
+                assertSame(STRING_TYPES, registry.remove(subscribers[i]));
+            }
+            for (int i = 0; i < subscribers.length; i++) {
+                assertTrue(registry.contains(subscribers[i]) == (i % 2 == 1));
+            }
+            //墓碑的槽位可以重新使用
+            for (int i = 0; i < subscribers.length; i += 2) {
+                registry.put(subscribers[i], INTEGER_TYPES);
+            }
+            for (int i = 0; i < subscribers.length; i++) {
+                assertSame(i % 2 == 0 ? INTEGER_TYPES : STRING_TYPES, registry.get(subscribers[i]));
+            }
+            for (Object subscriber : subscribers) {
+                assertTrue(registry.remove(subscriber) != null);
+            }
+            for (Object subscriber : subscribers) {
+                assertFalse(registry.contains(subscriber));
+            }
+        }
+    }
+
+    @Test
+    public void churnDoesNotExhaustFreeSlots() {
+        SubscriberRegistry registry = new SubscriberRegistry();
+        Object[] stable = newSubscribers(5);
+        for (Object subscriber : stable) {
+            registry.put(subscriber, STRING_TYPES);
+        }
+        //每次注册都是新对象,留下大量墓碑,必须重新散列而不是占满所有槽位
+        for (int i = 0; i < 100000; i++) {
+            Object subscriber = new Object();
+            registry.put(subscriber, INTEGER_TYPES);
+            assertSame(INTEGER_TYPES, registry.remove(subscriber));
+        }
+        for (Object subscriber : stable) {
+            assertSame(STRING_TYPES, registry.get(subscriber));
+        }
+    }
+
+    @Test
+    public void readersSeeStableEntriesWhileResizing() throws Exception {
+        final SubscriberRegistry registry = new SubscriberRegistry();
+        final Object[] stable = newSubscribers(50);
+        for (Object subscriber : stable) {
+            registry.put(subscriber, STRING_TYPES);
+        }
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        final CountDownLatch readersStarted = new CountDownLatch(2);
+        List<Thread> readers = new ArrayList<Thread>();
+        for (int r = 0; r < 2; r++) {
+            Thread reader = new Thread() {
+                @Override
+                public void run() {
+                    readersStarted.countDown();
+                    while (!done.get()) {
+                        for (Object subscriber : stable) {
+                            if (registry.get(subscriber) != STRING_TYPES) {
+                                failure.set("lost " + subscriber);
+                                return;
+                            }
+                        }
+                    }
+                }
+            };
+            reader.start();
+            readers.add(reader);
+        }
+        readersStarted.await();
+
+        //只有一个写入线程,相当于持有EventBus锁;反复扩容到上万个槽位再缩回来
+        for (int round = 0; round < 5; round++) {
+            Object[] transientSubscribers = newSubscribers(10000);
+            for (Object subscriber : transientSubscribers) {
+                registry.put(subscriber, INTEGER_TYPES);
+            }
+            for (Object subscriber : transientSubscribers) {
+                registry.remove(subscriber);
+            }
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertNull(failure.get(), failure.get());
+    }
+
+    @Test
+    public void weakReferencesMatchTheirReferent() {
+        SubscriberRegistry registry = new SubscriberRegistry();
+        ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+        Object subscriber = new Object();
+        SubscriberReference reference = new SubscriberReference(subscriber, queue);
+        registry.put(reference, STRING_TYPES);
+        assertSame(STRING_TYPES, registry.get(subscriber));
+        registry.put(subscriber, INTEGER_TYPES);
+        assertSame(INTEGER_TYPES, registry.get(subscriber));
+
+        //订阅者被回收以后只能通过引用找到
+        reference.clear();
+        assertFalse(registry.contains(subscriber));
+        assertArrayEquals(INTEGER_TYPES, registry.removeReference(reference));
+        assertNull(registry.removeReference(reference));
+    }
+
+    private static Object[] newSubscribers(int count) {
+        Object[] subscribers = new Object[count];
+        for (int i = 0; i < count; i++) {
+            subscribers[i] = new Object();
+        }
+        return subscribers;
+    }
+
+    /**
+     * 所有实例都equals,hashCode相同
+     */
+    static class EqualSubscriber {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof EqualSubscriber;
+        }
+
+        @Override
+        public int hashCode() {
+            return 1;
+        }
+    }
+
+    static class HostileSubscriber {
+        @Override
+        public boolean equals(Object o) {
+            throw new AssertionError("equals() called");
+        }
+
+        @Override
+        public int hashCode() {
+            throw new AssertionError("hashCode() called");
+        }
+    }
+}
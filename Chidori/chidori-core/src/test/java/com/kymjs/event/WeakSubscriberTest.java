@@ -0,0 +1,228 @@
+package com.kymjs.event;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 弱引用模式:订阅者被回收以后,它的订阅从事件类型索引、注册表和分发计划中移除,
+ * 已经排队的事件也不会再分发
+ */
+public class WeakSubscriberTest {
+
+    private static final AtomicInteger collectedInvocations = new AtomicInteger();
+
+    private ExecutorService executor;
+
+    @After
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void expungesCollectedSubscriberOnRegister() throws Exception {
+        EventBus eventBus = EventBus.builder().weakSubscribers(true).build();
+        CollectedSubscriber subscriber = new CollectedSubscriber();
+        eventBus.register(subscriber);
+        assertTrue(eventBus.hasSubscriberForEvent(String.class));
+        eventBus.post("event");
+        assertEquals(1, collectedInvocations.getAndSet(0));
+        assertNotNull(eventBus.getCachedDispatchPlan(String.class));
+        Subscription subscription = eventBus.getSubscriptionsByEventType(String.class)[0];
+
+        WeakReference<Object> probe = new WeakReference<Object>(subscriber);
+        subscriber = null;
+        awaitCollected(probe);
+        awaitExpunged(eventBus, 0);
+
+        assertFalse(subscription.active);
+        assertNull(eventBus.getSubscriptionsByEventType(String.class));
+        assertNull(eventBus.getSubscriptionsByEventType(Integer.class));
+        assertNull(eventBus.getCachedDispatchPlan(String.class));
+        assertFalse(eventBus.hasSubscriberForEvent(String.class));
+        assertFalse(eventBus.hasSubscriberForEvent(Integer.class));
+    }
+
+    @Test
+    public void keepsOtherSubscribersOfSameType() throws Exception {
+        EventBus eventBus = EventBus.builder().weakSubscribers(true).build();
+        CountingSubscriber survivor = new CountingSubscriber();
+        CollectedSubscriber subscriber = new CollectedSubscriber();
+        eventBus.register(survivor);
+        eventBus.register(subscriber);
+        assertEquals(2, eventBus.getSubscriptionsByEventType(String.class).length);
+
+        WeakReference<Object> probe = new WeakReference<Object>(subscriber);
+        subscriber = null;
+        awaitCollected(probe);
+        awaitExpunged(eventBus, 1);
+
+        Subscription[] subscriptions = eventBus.getSubscriptionsByEventType(String.class);
+        assertEquals(1, subscriptions.length);
+        assertTrue(subscriptions[0].getSubscriber() == survivor);
+        assertTrue(eventBus.isRegistered(survivor));
+        eventBus.post("event");
+        assertEquals(1, survivor.received.get());
+        assertEquals(0, collectedInvocations.get());
+    }
+
+    @Test
+    public void dropsQueuedEventsOfCollectedSubscriber() throws Exception {
+        executor = Executors.newSingleThreadExecutor();
+        EventBus eventBus = EventBus.builder().weakSubscribers(true).executorService(executor)
+                .build();
+        //后台线程被占用,事件只能排队
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        CollectedSubscriber subscriber = new CollectedSubscriber();
+        BackgroundMarker marker = new BackgroundMarker();
+        eventBus.register(subscriber);
+        eventBus.register(marker);
+        for (int i = 0; i < 10; i++) {
+            eventBus.post(i);
+        }
+        eventBus.post(1L);
+
+        WeakReference<Object> probe = new WeakReference<Object>(subscriber);
+        subscriber = null;
+        awaitCollected(probe);
+        release.countDown();
+        assertTrue(marker.delivered.await(5, TimeUnit.SECONDS));
+
+        //没有注册或解除注册,由分发时遇到的已回收订阅者触发移除
+        assertEquals(0, collectedInvocations.get());
+        assertEquals(1, eventBus.getRegisteredSubscriberCount());
+        assertNull(eventBus.getSubscriptionsByEventType(Integer.class));
+        assertFalse(eventBus.hasSubscriberForEvent(Integer.class));
+    }
+
+    @Test
+    public void expungesInBoundedBatches() throws Exception {
+        EventBus eventBus = EventBus.builder().weakSubscribers(true).build();
+        CountingSubscriber survivor = new CountingSubscriber();
+        eventBus.register(survivor);
+        List<WeakReference<Object>> probes = registerCollectable(eventBus, 100);
+        assertEquals(101, eventBus.getRegisteredSubscriberCount());
+        for (WeakReference<Object> probe : probes) {
+            awaitCollected(probe);
+        }
+
+        //每次最多移除32个
+        CountingSubscriber trigger = new CountingSubscriber();
+        int previous = eventBus.getRegisteredSubscriberCount();
+        for (int i = 0; i < 200 && previous > 1; i++) {
+            int count = triggerExpunge(eventBus, trigger);
+            assertTrue("expunged " + (previous - count), previous - count <= 32);
+            previous = count;
+            if (count > 1) {
+                Thread.sleep(10);
+            }
+        }
+        assertEquals(1, previous);
+        if (eventBus.isRegistered(trigger)) {
+            eventBus.unregister(trigger);
+        }
+        assertEquals(1, eventBus.getSubscriptionsByEventType(String.class).length);
+        eventBus.post("event");
+        assertEquals(1, survivor.received.get());
+        assertEquals(0, collectedInvocations.get());
+    }
+
+    private static List<WeakReference<Object>> registerCollectable(EventBus eventBus, int count) {
+        List<WeakReference<Object>> probes = new ArrayList<WeakReference<Object>>(count);
+        for (int i = 0; i < count; i++) {
+            CollectedSubscriber subscriber = new CollectedSubscriber();
+            eventBus.register(subscriber);
+            probes.add(new WeakReference<Object>(subscriber));
+        }
+        return probes;
+    }
+
+    private static void awaitCollected(WeakReference<?> probe) throws InterruptedException {
+        for (int i = 0; i < 100 && probe.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull("subscriber was not collected", probe.get());
+    }
+
+    /**
+     * 引用进入ReferenceQueue可能晚于probe被清除,反复注册另一个订阅者触发移除
+     */
+    private static void awaitExpunged(EventBus eventBus, int expected) throws
+            InterruptedException {
+        CountingSubscriber trigger = new CountingSubscriber();
+        for (int i = 0; i < 100 && triggerExpunge(eventBus, trigger) > expected; i++) {
+            Thread.sleep(10);
+        }
+        if (eventBus.isRegistered(trigger)) {
+            eventBus.unregister(trigger);
+        }
+        assertEquals(expected, eventBus.getRegisteredSubscriberCount());
+    }
+
+    /**
+     * 注册或解除注册trigger,各触发一次移除
+     *
+     * @return 不算trigger的订阅者数量
+     */
+    private static int triggerExpunge(EventBus eventBus, Object trigger) {
+        if (eventBus.isRegistered(trigger)) {
+            eventBus.unregister(trigger);
+            return eventBus.getRegisteredSubscriberCount();
+        }
+        eventBus.register(trigger);
+        return eventBus.getRegisteredSubscriberCount() - 1;
+    }
+
+    public static class CollectedSubscriber {
+        public void onEvent(String event) {
+            collectedInvocations.incrementAndGet();
+        }
+
+        public void onEventBackgroundThread(Integer event) {
+            collectedInvocations.incrementAndGet();
+        }
+    }
+
+    public static class CountingSubscriber {
+        final AtomicInteger received = new AtomicInteger();
+
+        public void onEvent(String event) {
+            received.incrementAndGet();
+        }
+    }
+
+    public static class BackgroundMarker {
+        final CountDownLatch delivered = new CountDownLatch(1);
+
+        public void onEventBackgroundThread(Long event) {
+            delivered.countDown();
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.kymjs.event.processor;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * 编译期扫描所有以onEvent开头的响应方法,生成订阅者索引(com.kymjs.event.meta.SubscriberInfoIndex)。
+ * 索引记录每个订阅者类声明的响应方法、事件类型和ThreadMode,并为每个响应方法生成直接调用的调用器,
+ * 注册和分发事件时都不再需要反射。
+ * <p>
+ * 通过处理器参数chidoriIndex指定生成的类名,例如:
+ * <pre>
+ * javaCompileOptions {
+ *     annotationProcessorOptions {
+ *         arguments = [chidoriIndex: 'com.example.MyEventBusIndex']
+ *     }
+ * }
+ * </pre>
+ * 无法在生成的代码中直接访问的类(非public且不在索引所在的包中、匿名类、局部类),以及包含拼写错误的
+ * onEvent方法的类不会写入索引,运行时仍然通过反射查找,行为与不使用索引时一致。
+ * 索引在第一个找到订阅者的轮次中生成,其他处理器在之后的轮次中生成的订阅者无法写入索引,编译报错。
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions(ChidoriIndexProcessor.OPTION_INDEX)
+public class ChidoriIndexProcessor extends AbstractProcessor {
+    public static final String OPTION_INDEX = "chidoriIndex";
+
+    private static final String ON_EVENT_METHOD_NAME = "onEvent";
+    private static final String[] THREAD_MODE_SUFFIXES = {"", "MainThread",
+            "BackgroundThread", "Async", "BackgroundThreadBatch"};
+    private static final String[] THREAD_MODES = {"PostThread", "MainThread",
+            "BackgroundThread", "Async", "BackgroundThread"};
+    private static final int BATCH_INDEX = 4; //参数为List<eventType>,一次响应一批
+
+    //key:订阅者类(或其父类),value:这个类自己声明的响应方法
+    private final Map<TypeElement, List<ExecutableElement>> methodsByClass = new
+            LinkedHashMap<TypeElement, List<ExecutableElement>>();
+    private boolean indexWritten;
+    private boolean missingOptionNoted;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment env) {
+        Messager messager = processingEnv.getMessager();
+        String index = processingEnv.getOptions().get(OPTION_INDEX);
+        List<TypeElement> found = new ArrayList<TypeElement>();
+        for (Element element : env.getRootElements()) {
+            collectSubscribers(element, index, found);
+        }
+        if (indexWritten) {
+            // 索引只能写一次(在最后一轮创建的文件javac会警告不再处理),之后的轮次中其他处理器生成的订阅者
+            // 不会写入索引,报错而不是悄悄改用反射
+            for (TypeElement clazz : found) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "Subscriber " + clazz + " was " +
+                        "generated after the subscriber index " + index + " was written; " +
+                        "generate it in an earlier round or compile it separately", clazz);
+            }
+            return false;
+        }
+        if (methodsByClass.isEmpty()) {
+            return false;
+        }
+        if (index == null) {
+            if (!missingOptionNoted) {
+                missingOptionNoted = true;
+                messager.printMessage(Diagnostic.Kind.NOTE, "No option " + OPTION_INDEX +
+                        " passed to annotation processor, subscriber index not generated");
+            }
+            return false;
+        }
+        try {
+            writeIndex(index);
+            indexWritten = true;
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Could not write subscriber index " +
+                    index + ": " + e);
+        }
+        // 不声明处理了任何注解,不影响其他处理器
+        return false;
+    }
+
+    /**
+     * 递归查找element及其内部类,如果某个类(或其父类)声明了响应方法,就把这个类和它的父类都写入索引
+     *
+     * @param found 本轮的源文件中新写入索引的类(不包括编译路径中的父类)
+     */
+    private void collectSubscribers(Element element, String index, List<TypeElement> found) {
+        if (!(element instanceof TypeElement)) {
+            return;
+        }
+        TypeElement type = (TypeElement) element;
+        if (type.getKind() == ElementKind.CLASS && hasSubscriberMethods(type)) {
+            TypeElement clazz = type;
+            while (clazz != null && !isSystemClass(clazz) && !methodsByClass.containsKey(clazz)) {
+                List<ExecutableElement> methods = findSubscriberMethods(clazz, index);
+                if (methods != null) {
+                    methodsByClass.put(clazz, methods);
+                    if (clazz == type) {
+                        found.add(type);
+                    }
+                }
+                clazz = getSuperclass(clazz);
+            }
+        }
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            collectSubscribers(nested, index, found);
+        }
+    }
+
+    private boolean hasSubscriberMethods(TypeElement type) {
+        TypeElement clazz = type;
+        while (clazz != null && !isSystemClass(clazz)) {
+            for (ExecutableElement method : ElementFilter.methodsIn(clazz.getEnclosedElements())) {
+                if (isCandidate(method)) {
+                    return true;
+                }
+            }
+            clazz = getSuperclass(clazz);
+        }
+        return false;
+    }
+
+    /**
+     * 与运行时SubscriberMethodFinder的规则一致:public、非static、非abstract、只有一个参数
+     */
+    private boolean isCandidate(ExecutableElement method) {
+        Set<Modifier> modifiers = method.getModifiers();
+        return method.getSimpleName().toString().startsWith(ON_EVENT_METHOD_NAME)
+                && modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.STATIC)
+                && !modifiers.contains(Modifier.ABSTRACT) && method.getParameters().size() == 1;
+    }
+
+    /**
+     * @return clazz声明的响应方法, 如果这个类不能写入索引(交给运行时反射)返回null
+     */
+    private List<ExecutableElement> findSubscriberMethods(TypeElement clazz, String index) {
+        if (!isAccessible(clazz, index)) {
+            return null;
+        }
+        List<ExecutableElement> methods = new ArrayList<ExecutableElement>();
+        for (ExecutableElement method : ElementFilter.methodsIn(clazz.getEnclosedElements())) {
+            if (!isCandidate(method)) {
+                continue;
+            }
+            TypeMirror eventType = eventType(method);
+            if (threadModeIndex(method) < 0 || eventType == null || !isAccessible(eventType,
+                    index)) {
+                // 拼写错误或参数类型不可访问,保留运行时的校验和反射
+                return null;
+            }
+            methods.add(method);
+        }
+        return methods;
+    }
+
+    private int threadModeIndex(ExecutableElement method) {
+        String suffix = method.getSimpleName().toString().substring(ON_EVENT_METHOD_NAME
+                .length());
+        for (int i = 0; i < THREAD_MODE_SUFFIXES.length; i++) {
+            if (THREAD_MODE_SUFFIXES[i].equals(suffix)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return 批量方法为List的元素类型,元素是类型变量时与运行时一致取擦除后的类型;
+     * 参数不是List<EventType>时给出警告并返回null(交给运行时报错)
+     */
+    private TypeMirror eventType(ExecutableElement method) {
+        VariableElement parameter = method.getParameters().get(0);
+        if (threadModeIndex(method) != BATCH_INDEX) {
+            return processingEnv.getTypeUtils().erasure(parameter.asType());
+        }
+        TypeMirror type = parameter.asType();
+        if (type.getKind() == TypeKind.DECLARED && ((TypeElement) ((DeclaredType) type)
+                .asElement()).getQualifiedName().contentEquals("java.util.List")) {
+            List<? extends TypeMirror> typeArguments = ((DeclaredType) type).getTypeArguments();
+            if (typeArguments.size() == 1 && (typeArguments.get(0).getKind() == TypeKind.DECLARED
+                    || typeArguments.get(0).getKind() == TypeKind.TYPEVAR)) {
+                return processingEnv.getTypeUtils().erasure(typeArguments.get(0));
+            }
+        }
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Batch method must " +
+                "take a List<EventType> parameter, registering it will fail", method);
+        return null;
+    }
+
+    private boolean isAccessible(TypeMirror type, String index) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return isAccessible(((ArrayType) type).getComponentType(), index);
+        }
+        // 基本类型的参数永远收不到事件(事件都是装箱后的类型),交给反射保持原有行为
+        return type.getKind() == TypeKind.DECLARED && isAccessible((TypeElement) ((DeclaredType)
+                type).asElement(), index);
+    }
+
+    /**
+     * 生成的索引类能否直接引用这个类
+     */
+    private boolean isAccessible(TypeElement type, String index) {
+        String indexPackage = index == null ? "" : packageOf(index);
+        Element element = type;
+        while (element instanceof TypeElement) {
+            TypeElement typeElement = (TypeElement) element;
+            NestingKind nestingKind = typeElement.getNestingKind();
+            if (nestingKind != NestingKind.TOP_LEVEL && nestingKind != NestingKind.MEMBER) {
+                return false;
+            }
+            Set<Modifier> modifiers = typeElement.getModifiers();
+            if (!modifiers.contains(Modifier.PUBLIC)) {
+                if (modifiers.contains(Modifier.PRIVATE) || !indexPackage.equals(processingEnv
+                        .getElementUtils().getPackageOf(typeElement).getQualifiedName()
+                        .toString())) {
+                    return false;
+                }
+            }
+            element = typeElement.getEnclosingElement();
+        }
+        return element instanceof PackageElement;
+    }
+
+    private TypeElement getSuperclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        return (TypeElement) ((DeclaredType) superclass).asElement();
+    }
+
+    /**
+     * 与运行时一致,跳过系统类
+     */
+    private boolean isSystemClass(TypeElement type) {
+        String name = type.getQualifiedName().toString();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("android.");
+    }
+
+    private static String packageOf(String className) {
+        int period = className.lastIndexOf('.');
+        return period > 0 ? className.substring(0, period) : "";
+    }
+
+    private void writeIndex(String index) throws IOException {
+        String indexPackage = packageOf(index);
+        String indexName = index.substring(index.lastIndexOf('.') + 1);
+        JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(index,
+                methodsByClass.keySet().toArray(new Element[methodsByClass.size()]));
+        Writer writer = new BufferedWriter(sourceFile.openWriter());
+        try {
+            if (!indexPackage.isEmpty()) {
+                writer.write("package " + indexPackage + ";\n\n");
+            }
+            writer.write("import com.kymjs.event.SubscriberInvoker;\n");
+            writer.write("import com.kymjs.event.ThreadMode;\n");
+            writer.write("import com.kymjs.event.meta.SubscriberInfo;\n");
+            writer.write("import com.kymjs.event.meta.SubscriberInfoIndex;\n");
+            writer.write("import com.kymjs.event.meta.SubscriberMethodInfo;\n\n");
+            writer.write("import java.util.HashMap;\n");
+            writer.write("import java.util.Map;\n\n");
+            writer.write("/**\n * This class is generated by chidori-processor, do not edit.\n */\n");
+            writer.write("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+            writer.write("public class " + indexName + " implements SubscriberInfoIndex {\n");
+            writer.write("    private static final Map<Class<?>, SubscriberInfo> SUBSCRIBER_INDEX;\n\n");
+            writer.write("    static {\n");
+            writer.write("        SUBSCRIBER_INDEX = new HashMap<Class<?>, SubscriberInfo>();\n\n");
+            for (Map.Entry<TypeElement, List<ExecutableElement>> entry : methodsByClass
+                    .entrySet()) {
+                writeSubscriberInfo(writer, entry.getKey(), entry.getValue());
+            }
+            writer.write("    }\n\n");
+            writer.write("    private static void putIndex(SubscriberInfo info) {\n");
+            writer.write("        SUBSCRIBER_INDEX.put(info.getSubscriberClass(), info);\n");
+            writer.write("    }\n\n");
+            writer.write("    @Override\n");
+            writer.write("    public SubscriberInfo getSubscriberInfo(Class<?> subscriberClass) {\n");
+            writer.write("        return SUBSCRIBER_INDEX.get(subscriberClass);\n");
+            writer.write("    }\n");
+            writer.write("}\n");
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void writeSubscriberInfo(Writer writer, TypeElement clazz, List<ExecutableElement>
+            methods) throws IOException {
+        String subscriberType = processingEnv.getTypeUtils().erasure(clazz.asType()).toString();
+        writer.write("        putIndex(new SubscriberInfo(" + subscriberType + ".class");
+        for (ExecutableElement method : methods) {
+            String methodName = method.getSimpleName().toString();
+            String eventType = eventType(method).toString();
+            boolean batch = threadModeIndex(method) == BATCH_INDEX;
+            writer.write(",\n                new SubscriberMethodInfo(\"" + methodName + "\", " +
+                    eventType + ".class, ThreadMode." + THREAD_MODES[threadModeIndex(method)] +
+                    ",\n");
+            writer.write("                        new SubscriberInvoker() {\n");
+            writer.write("                            @Override\n");
+            writer.write("                            public void invoke(Object subscriber, " +
+                    "Object event) throws Throwable {\n");
+            writer.write("                                ((" + subscriberType + ") subscriber)." +
+                    methodName + "((" + (batch ? "java.util.List" : eventType) + ") event);\n");
+            writer.write("                            }\n");
+            writer.write(batch ? "                        }, true)" : "                        })");
+        }
+        writer.write("));\n\n");
+    }
+}
@@ -0,0 +1,372 @@
+package com.kymjs.event;
+
+import com.google.common.io.ByteStreams;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import com.kymjs.event.meta.SubscriberInfoIndex;
+import com.kymjs.event.processor.ChidoriIndexProcessor;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
+import javax.tools.JavaFileObject;
+
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 编译期生成的订阅者索引与运行时反射查找的结果一致:不能写入索引的类交给反射,写入索引的类方法名、
+ * 事件类型、ThreadMode都相同。
+ * <p>
+ * 放在com.kymjs.event包中,直接用SubscriberMethodFinder对比两种查找方式。
+ */
+public class SubscriberIndexTest {
+
+    private static Compilation compilation;
+    private static ClassLoader classLoader;
+    private static SubscriberInfoIndex index;
+
+    @BeforeClass
+    public static void compile() throws Exception {
+        compilation = javac().withProcessors(new ChidoriIndexProcessor())
+                .withOptions("-A" + ChidoriIndexProcessor.OPTION_INDEX + "=test.TestIndex")
+                .compile(
+                        JavaFileObjects.forSourceLines("test.PublicSubscriber",
+                                "package test;",
+                                "import java.util.List;",
+                                "public class PublicSubscriber {",
+                                "    public void onEvent(String event) {}",
+                                "    public void onEventMainThread(Integer event) {}",
+                                "    public void onEventBackgroundThread(Long event) {}",
+                                "    public void onEventAsync(Object event) {}",
+                                "    public void onEventBackgroundThreadBatch(List<String> e) {}",
+                                "    void onEventMainThread(Double event) {}",
+                                "    public static void onEvent(Double event) {}",
+                                "    public void onEvent(String a, String b) {}",
+                                "}"),
+                        JavaFileObjects.forSourceLines("test.PackageSubscriber",
+                                "package test;",
+                                "class PackageSubscriber extends PublicSubscriber {",
+                                "    public void onEvent(PackageEvent event) {}",
+                                "    @Override public void onEvent(String event) {}",
+                                "}",
+                                "class PackageEvent {}"),
+                        JavaFileObjects.forSourceLines("other.OtherPackageSubscriber",
+                                "package other;",
+                                "class OtherPackageSubscriber extends test.PublicSubscriber {",
+                                "    public void onEvent(Character event) {}",
+                                "}"),
+                        JavaFileObjects.forSourceLines("other.OtherPackageEventSubscriber",
+                                "package other;",
+                                "public class OtherPackageEventSubscriber {",
+                                "    public void onEvent(OtherEvent event) {}",
+                                "}",
+                                "class OtherEvent {}"),
+                        JavaFileObjects.forSourceLines("test.Outer",
+                                "package test;",
+                                "public class Outer {",
+                                "    public static class Nested {",
+                                "        public void onEvent(String event) {}",
+                                "    }",
+                                "    public class Inner {",
+                                "        public void onEventAsync(String event) {}",
+                                "    }",
+                                "    private static class PrivateNested {",
+                                "        public void onEvent(String event) {}",
+                                "    }",
+                                "    public static Object anonymous() {",
+                                "        return new Object() {",
+                                "            public void onEvent(String event) {}",
+                                "        };",
+                                "    }",
+                                "    public static Object local() {",
+                                "        class Local {",
+                                "            public void onEventMainThread(String event) {}",
+                                "        }",
+                                "        return new Local();",
+                                "    }",
+                                "}"),
+                        JavaFileObjects.forSourceLines("test.TypoSubscriber",
+                                "package test;",
+                                "public class TypoSubscriber {",
+                                "    public void onEvent(String event) {}",
+                                "    public void onEventMainThred(String event) {}",
+                                "}"),
+                        JavaFileObjects.forSourceLines("test.GenericSubscriber",
+                                "package test;",
+                                "import java.util.ArrayList;",
+                                "import java.util.List;",
+                                "public class GenericSubscriber<T extends Number, S> {",
+                                "    public final List<Object> received = new ArrayList<Object>();",
+                                "    public void onEvent(T event) { received.add(event); }",
+                                "    public void onEventAsync(S event) {}",
+                                "    public void onEventBackgroundThreadBatch(List<T> events) {",
+                                "        received.add(events);",
+                                "    }",
+                                "    public static class Nested<E extends Comparable<E>> {",
+                                "        public void onEventBackgroundThreadBatch(List<E> e) {}",
+                                "    }",
+                                "}"),
+                        JavaFileObjects.forSourceLines("test.IntegerSubscriber",
+                                "package test;",
+                                "public class IntegerSubscriber extends "
+                                        + "GenericSubscriber<Integer, String> {",
+                                "    public void onEvent(Integer event) {}",
+                                "}"),
+                        JavaFileObjects.forSourceLines("test.WildcardBatchSubscriber",
+                                "package test;",
+                                "import java.util.List;",
+                                "public class WildcardBatchSubscriber {",
+                                "    public void onEventBackgroundThreadBatch(",
+                                "            List<? extends Number> events) {}",
+                                "}"));
+        assertThat(compilation).succeeded();
+        assertThat(compilation).generatedSourceFile("test.TestIndex");
+        classLoader = new CompiledClassLoader(compilation);
+        index = (SubscriberInfoIndex) classLoader.loadClass("test.TestIndex")
+                .getDeclaredConstructor().newInstance();
+    }
+
+    @Test
+    public void indexesAccessibleClasses() throws Exception {
+        assertIndexed("test.PublicSubscriber");
+        assertIndexed("test.PackageSubscriber");
+        assertIndexed("test.Outer$Nested");
+        assertIndexed("test.Outer$Inner");
+    }
+
+    /**
+     * 索引所在包之外的包内可见类、私有内部类、匿名类、局部类都交给反射
+     */
+    @Test
+    public void inaccessibleClassesFallBackToReflection() throws Exception {
+        assertNotIndexed("other.OtherPackageSubscriber");
+        assertNotIndexed("other.OtherPackageEventSubscriber");
+        assertNotIndexed("test.Outer$PrivateNested");
+        assertNotIndexed("test.Outer$1");
+        assertNotIndexed("test.Outer$1Local");
+        //父类仍然使用索引
+        assertNotNull(index.getSubscriberInfo(classLoader.loadClass("test.PublicSubscriber")));
+    }
+
+    @Test
+    public void misspelledMethodFallsBackToReflection() throws Exception {
+        Class<?> clazz = classLoader.loadClass("test.TypoSubscriber");
+        assertNull(index.getSubscriberInfo(clazz));
+        for (SubscriberMethodFinder finder : Arrays.asList(finder(true, null), finder(false,
+                null))) {
+            try {
+                finder.findSubscriberMethods(clazz);
+                fail("Typo should be reported");
+            } catch (EventBusException expected) {
+            }
+        }
+        List<Class<?>> skip = Collections.<Class<?>>singletonList(clazz);
+        assertEquals(describe(finder(true, skip).findSubscriberMethods(clazz)),
+                describe(finder(false, skip).findSubscriberMethods(clazz)));
+    }
+
+    /**
+     * 泛型订阅者按擦除后的类型写入索引,批量方法的List&lt;T&gt;与onEvent(T)一样取T的上界
+     */
+    @Test
+    public void indexesGenericSubscribersByErasure() throws Throwable {
+        assertIndexed("test.GenericSubscriber");
+        assertIndexed("test.GenericSubscriber$Nested");
+        assertIndexed("test.IntegerSubscriber");
+        Class<?> clazz = classLoader.loadClass("test.GenericSubscriber");
+        List<String> methods = describe(finder(false, null).findSubscriberMethods(clazz));
+        assertTrue(methods.toString(), methods.contains(
+                "onEventBackgroundThreadBatch(java.lang.Number) BackgroundThread batch"));
+        assertTrue(methods.toString(), methods.contains("onEvent(java.lang.Number) PostThread"));
+        assertTrue(methods.toString(), methods.contains("onEventAsync(java.lang.Object) Async"));
+        assertTrue(describe(finder(false, null).findSubscriberMethods(classLoader.loadClass(
+                "test.GenericSubscriber$Nested"))).contains(
+                "onEventBackgroundThreadBatch(java.lang.Comparable) BackgroundThread batch"));
+
+        //生成的调用器直接调用响应方法
+        Object subscriber = clazz.getDeclaredConstructor().newInstance();
+        List<Integer> batch = Arrays.asList(1, 2);
+        for (SubscriberMethod method : finder(false, null).findSubscriberMethods(clazz)) {
+            assertNull(method.method);
+            if (method.eventType == Number.class) {
+                method.invoker.invoke(subscriber, method.batch ? batch : 3);
+            }
+        }
+        List<?> received = (List<?>) clazz.getField("received").get(subscriber);
+        assertEquals(2, received.size());
+        assertTrue(received.toString(), received.contains(3) && received.contains(batch));
+    }
+
+    @Test
+    public void wildcardBatchIsReportedAndFallsBack() throws Exception {
+        assertThat(compilation).hadWarningContaining("Batch method must take a List<EventType>");
+        Class<?> clazz = classLoader.loadClass("test.WildcardBatchSubscriber");
+        assertNull(index.getSubscriberInfo(clazz));
+        try {
+            finder(false, null).findSubscriberMethods(clazz);
+            fail("Wildcard batch parameter should be reported");
+        } catch (EventBusException expected) {
+        }
+    }
+
+    /**
+     * 索引已经写入之后,其他处理器生成的订阅者无法写入索引,编译报错
+     */
+    @Test
+    public void reportsSubscribersGeneratedAfterIndex() {
+        Compilation compilation = javac().withProcessors(new ChidoriIndexProcessor(), new
+                GeneratingProcessor()).withOptions("-A" + ChidoriIndexProcessor.OPTION_INDEX +
+                "=test.TestIndex").compile(JavaFileObjects.forSourceLines("test.Subscriber",
+                "package test;",
+                "public class Subscriber {",
+                "    public void onEvent(String event) {}",
+                "}"));
+        assertThat(compilation).failed();
+        assertThat(compilation).hadErrorContaining("Subscriber test.GeneratedSubscriber was " +
+                "generated after the subscriber index test.TestIndex was written");
+        assertThat(compilation).hadErrorCount(1);
+    }
+
+    private static void assertIndexed(String className) throws Exception {
+        Class<?> clazz = classLoader.loadClass(className);
+        assertNotNull(className, index.getSubscriberInfo(clazz));
+        assertSameAsReflection(clazz);
+    }
+
+    private static void assertNotIndexed(String className) throws Exception {
+        Class<?> clazz = classLoader.loadClass(className);
+        assertNull(className, index.getSubscriberInfo(clazz));
+        assertSameAsReflection(clazz);
+    }
+
+    private static void assertSameAsReflection(Class<?> clazz) {
+        List<String> expected = describe(finder(true, null).findSubscriberMethods(clazz));
+        List<String> actual = describe(finder(false, null).findSubscriberMethods(clazz));
+        assertFalse(expected.isEmpty());
+        assertEquals(clazz.getName(), expected, actual);
+    }
+
+    private static SubscriberMethodFinder finder(boolean ignoreGeneratedIndex, List<Class<?>>
+            skipMethodVerification) {
+        return new SubscriberMethodFinder(skipMethodVerification, Collections.singletonList(
+                index), ignoreGeneratedIndex, null, new Logger() {
+            @Override
+            public void log(Level level, String msg) {
+            }
+
+            @Override
+            public void log(Level level, String msg, Throwable th) {
+            }
+        });
+    }
+
+    /**
+     * 索引中的方法没有Method对象,按方法名、事件类型、ThreadMode对比,与声明顺序无关
+     */
+    private static List<String> describe(List<SubscriberMethod> methods) {
+        List<String> descriptions = new ArrayList<String>();
+        for (SubscriberMethod method : methods) {
+            String methodString = method.methodString;
+            if (method.method != null) {
+                methodString = method.method.getDeclaringClass().getName() + "#" + method.method
+                        .getName() + "(" + method.eventType.getName();
+            }
+            descriptions.add(methodString.substring(methodString.indexOf('#') + 1) + ") " +
+                    method.threadMode + (method.batch ? " batch" : ""));
+        }
+        Collections.sort(descriptions);
+        return descriptions;
+    }
+
+    /**
+     * 在第一轮生成一个订阅者,它在第二轮才被编译
+     */
+    @SupportedAnnotationTypes("*")
+    static class GeneratingProcessor extends AbstractProcessor {
+        private boolean generated;
+
+        @Override
+        public SourceVersion getSupportedSourceVersion() {
+            return SourceVersion.latestSupported();
+        }
+
+        @Override
+        public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment env) {
+            if (generated) {
+                return false;
+            }
+            generated = true;
+            try {
+                Writer writer = processingEnv.getFiler().createSourceFile(
+                        "test.GeneratedSubscriber").openWriter();
+                try {
+                    writer.write("package test;\n\npublic class GeneratedSubscriber {\n" +
+                            "    public void onEvent(Integer event) {}\n}\n");
+                } finally {
+                    writer.close();
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 加载编译生成的class,运行时的类(com.kymjs.event)仍由测试的ClassLoader加载
+     */
+    private static class CompiledClassLoader extends ClassLoader {
+        private final Map<String, byte[]> classes = new HashMap<String, byte[]>();
+
+        CompiledClassLoader(Compilation compilation) throws IOException {
+            super(SubscriberIndexTest.class.getClassLoader());
+            for (JavaFileObject file : compilation.generatedFiles()) {
+                if (file.getKind() != JavaFileObject.Kind.CLASS) {
+                    continue;
+                }
+                String path = file.toUri().getPath();
+                String name = path.substring(path.indexOf("CLASS_OUTPUT/") + "CLASS_OUTPUT/"
+                        .length(), path.length() - ".class".length()).replace('/', '.');
+                InputStream in = file.openInputStream();
+                try {
+                    classes.put(name, ByteStreams.toByteArray(in));
+                } finally {
+                    in.close();
+                }
+            }
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] bytes = classes.get(name);
+            if (bytes == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -15,3 +15,6 @@
 #-keepclassmembers class fqcn.of.javascript.interface.for.webview {
 #   public *;
 #}
+
+# chidori-core通过类名加载Android平台
+-keep class com.kymjs.event.AndroidPlatform { <init>(); }
@@ -0,0 +1,102 @@
+package com.kymjs.event;
+
+import android.os.Looper;
+import android.os.Parcelable;
+import android.util.Log;
+
+import com.kymjs.event.remote.Chidori;
+
+import java.util.logging.Level;
+
+/**
+ * Android平台:主线程是主线程的Looper,日志输出到android.util.Log,响应方法通过反射调用
+ * (Android不支持运行时生成调用器,需要避免反射时使用chidori-processor生成的索引)。
+ * 由核心模块的Platform通过类名加载。
+ */
+final class AndroidPlatform extends Platform {
+
+    private final MainThreadSupport mainThreadSupport;
+    private final Logger logger = new AndroidLogger(EventBus.TAG);
+
+    AndroidPlatform() {
+        // Android的本地单元测试(unitTests.returnDefaultValues)中没有主线程的Looper,所有线程都当作主线程
+        Looper mainLooper = Looper.getMainLooper();
+        mainThreadSupport = mainLooper != null ? new LooperMainThreadSupport(mainLooper) : null;
+    }
+
+    @Override
+    MainThreadSupport getMainThreadSupport() {
+        return mainThreadSupport;
+    }
+
+    @Override
+    Logger getLogger() {
+        return logger;
+    }
+
+    @Override
+    SubscriberInvokerFactory getSubscriberInvokerFactory() {
+        return null;
+    }
+
+    @Override
+    void connectRemote(Class<?>[] servers) {
+        Chidori.getDefault().connect(servers);
+    }
+
+    @Override
+    void postRemote(String remotePkg, Object event) {
+        Chidori chidori = Chidori.getDefault();
+        if (event instanceof Parcelable) {
+            chidori.postRemote(remotePkg, (Parcelable) event);
+        } else if (event instanceof String) {
+            chidori.postRemote(remotePkg, (String) event);
+        } else if (event instanceof Integer) {
+            chidori.postRemote(remotePkg, (int) (Integer) event);
+        } else if (event instanceof Double) {
+            chidori.postRemote(remotePkg, (double) (Double) event);
+        } else if (event instanceof Long) {
+            chidori.postRemote(remotePkg, (long) (Long) event);
+        } else if (event instanceof Character) {
+            chidori.postRemote(remotePkg, (char) (Character) event);
+        } else {
+            throw new EventBusException("Event must be Parcelable to be posted to another " +
+                    "process: " + (event == null ? null : event.getClass()));
+        }
+    }
+
+    static final class AndroidLogger implements Logger {
+        private final String tag;
+
+        AndroidLogger(String tag) {
+            this.tag = tag;
+        }
+
+        @Override
+        public void log(Level level, String msg) {
+            if (level != Level.OFF) {
+                Log.println(mapLevel(level), tag, msg);
+            }
+        }
+
+        @Override
+        public void log(Level level, String msg, Throwable th) {
+            if (level != Level.OFF) {
+                Log.println(mapLevel(level), tag, msg + "\n" + Log.getStackTraceString(th));
+            }
+        }
+
+        private static int mapLevel(Level level) {
+            int value = level.intValue();
+            if (value < Level.CONFIG.intValue()) {
+                return Log.DEBUG;
+            } else if (value < Level.WARNING.intValue()) {
+                return Log.INFO;
+            } else if (value < Level.SEVERE.intValue()) {
+                return Log.WARN;
+            } else {
+                return Log.ERROR;
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.kymjs.event;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.Choreographer;
+
+/**
+ * 通过Choreographer跟踪屏幕的刷新:最近一帧的开始时间和刷新间隔,用于计算主线程分发事件的时间预算。
+ * 刷新间隔取连续几帧间隔的最小值(掉帧时间隔是刷新间隔的整数倍),有事件要分发时每秒最多重新测量一次,
+ * 所以屏幕在60Hz和90Hz、120Hz之间切换时预算也会跟着变化。
+ * <p>
+ * 只在所属Looper的线程中使用。
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+final class FrameTracker implements Choreographer.FrameCallback {
+
+    static final long DEFAULT_FRAME_INTERVAL_NANOS = 1000000000L / 60;
+    private static final int SAMPLES = 3; //每次测量连续几帧的间隔
+    private static final long REMEASURE_INTERVAL_NANOS = 1000000000L;
+
+    private final Choreographer choreographer = Choreographer.getInstance();
+    private final Runnable onFrame;
+
+    private long lastFrameTimeNanos; //最近一帧的开始时间(System.nanoTime()),0表示未知
+    private long frameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
+    private long measuredAtNanos;
+    private boolean callbackPosted;
+    private boolean resumePending; //下一帧开始时是否调用onFrame
+    private int samplesLeft; //大于0时正在测量
+    private boolean haveSample; //测量中上一帧的时间是否有效
+    private long minDeltaNanos;
+
+    /**
+     * @param onFrame 调用{@link #resumeAfterNextFrame()}后在下一帧开始时执行
+     */
+    FrameTracker(Runnable onFrame) {
+        this.onFrame = onFrame;
+    }
+
+    long getFrameIntervalNanos() {
+        return frameIntervalNanos;
+    }
+
+    /**
+     * 当前到下一帧开始还有多少纳秒;还不知道帧的时间时返回一个刷新间隔。
+     * 需要时开始重新测量刷新间隔。
+     */
+    long nanosUntilNextFrame(long now) {
+        if (samplesLeft == 0 && (measuredAtNanos == 0 || now - measuredAtNanos >
+                REMEASURE_INTERVAL_NANOS)) {
+            samplesLeft = SAMPLES + 1;
+            haveSample = false;
+            minDeltaNanos = Long.MAX_VALUE;
+            postCallback();
+        }
+        if (lastFrameTimeNanos == 0) {
+            return frameIntervalNanos;
+        }
+        long sinceFrame = now - lastFrameTimeNanos;
+        if (sinceFrame < 0) {
+            return frameIntervalNanos;
+        }
+        return frameIntervalNanos - sinceFrame % frameIntervalNanos;
+    }
+
+    /**
+     * 下一帧开始时执行onFrame,让这一帧的输入、动画和绘制先执行
+     */
+    void resumeAfterNextFrame() {
+        resumePending = true;
+        postCallback();
+    }
+
+    void cancelResume() {
+        resumePending = false;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        callbackPosted = false;
+        if (samplesLeft > 0) {
+            if (haveSample) {
+                long delta = frameTimeNanos - lastFrameTimeNanos;
+                if (delta > 0 && delta < minDeltaNanos) {
+                    minDeltaNanos = delta;
+                }
+            }
+            haveSample = true;
+            if (--samplesLeft > 0) {
+                postCallback();
+            } else {
+                if (minDeltaNanos != Long.MAX_VALUE) {
+                    frameIntervalNanos = minDeltaNanos;
+                }
+                measuredAtNanos = frameTimeNanos;
+            }
+        }
+        lastFrameTimeNanos = frameTimeNanos;
+        if (resumePending) {
+            resumePending = false;
+            onFrame.run();
+        }
+    }
+
+    private void postCallback() {
+        if (!callbackPosted) {
+            callbackPosted = true;
+            choreographer.postFrameCallback(this);
+        }
+    }
+}
@@ -15,23 +15,46 @@
  */
 package com.kymjs.event;
 
+import android.annotation.TargetApi;
+import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
-import android.os.SystemClock;
 
-final class HandlerPoster extends Handler {
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 在主线程(Looper的线程)中分发事件。
+ * <p>
+ * 每轮分发的时间预算根据屏幕刷新间隔和到下一帧开始还剩的时间计算(留出八分之一个刷新间隔的余量,
+ * 最多半个刷新间隔),预算用完后等下一帧开始再继续,不会拖延下一帧的绘制;90Hz、120Hz屏幕上预算相应变小。
+ * API 16以下没有Choreographer,预算固定为半个60Hz的刷新间隔,用完后立即发送下一条消息。
+ * <p>
+ * API 22及以上可以使用异步消息,不会被View绘制前插入的同步屏障推迟。
+ */
+final class HandlerPoster extends Handler implements MainThreadPoster, Runnable {
+
+    private static final int WHAT_DRAIN = 1;
+    private static final long MIN_BUDGET_NANOS = 500000; //至少分发0.5ms,保证一直有进展
+    //等待下一帧时最多等多久,屏幕关闭时可能没有帧回调
+    private static final long FRAME_TIMEOUT_MILLIS = 100;
 
     private final PendingPostQueue queue;
-    private final int maxMillisInsideHandleMessage;
     private final EventBus eventBus;
-    private boolean handlerActive; //用于标识当前queue中是否有正在发送对象的任务
+    private final boolean asyncMessages;
+    //用于标识当前queue中是否有正在发送对象的任务,入队时CAS抢到标记的线程负责发送消息
+    private final AtomicBoolean handlerActive = new AtomicBoolean();
+    private final DrainStats stats = new DrainStats();
+    private final boolean frameAware = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN;
+    private FrameTracker frameTracker; //在Looper线程中创建和使用
+    private volatile long frameIntervalNanos;
 
-    HandlerPoster(EventBus eventBus, Looper looper, int maxMillisInsideHandleMessage) {
+    HandlerPoster(EventBus eventBus, Looper looper, boolean asyncMessages) {
         super(looper);
         this.eventBus = eventBus;
-        this.maxMillisInsideHandleMessage = maxMillisInsideHandleMessage;
-        queue = new PendingPostQueue();
+        this.asyncMessages = asyncMessages && Build.VERSION.SDK_INT >= Build.VERSION_CODES
+                .LOLLIPOP_MR1;
+        queue = eventBus.newPendingPostQueue(ThreadMode.MainThread);
     }
 
     /**
@@ -40,51 +63,129 @@ final class HandlerPoster extends Handler {
      * @param subscription 订阅者
      * @param event        订阅事件
      */
-    void enqueue(Subscription subscription, Object event) {
-        PendingPost pendingPost = PendingPost.obtainPendingPost(subscription, event);
-        synchronized (this) {
-            queue.enqueue(pendingPost);
-            if (!handlerActive) {
-                handlerActive = true;
-                if (!sendMessage(obtainMessage())) {
-                    throw new EventBusException("Could not send handler message");
-                }
+    @Override
+    public void enqueue(Subscription subscription, Object event) {
+        PendingPost pendingPost = eventBus.getPendingPostPool().obtain(subscription, event);
+        queue.enqueue(pendingPost);
+        startDrain();
+    }
+
+    @Override
+    public void enqueueAll(PendingPost first, PendingPost last, int count) {
+        queue.enqueueAll(first, last);
+        startDrain();
+    }
+
+    /**
+     * 入队后调用,CAS抢到标记的线程负责发送消息
+     */
+    private void startDrain() {
+        if (handlerActive.compareAndSet(false, true)) {
+            if (!sendMessage(obtainDrainMessage())) {
+                handlerActive.set(false);
+                throw new EventBusException("Could not send handler message");
             }
         }
     }
 
     @Override
     public void handleMessage(Message msg) {
-        boolean rescheduled = false;
+        boolean ownsActive = true; //本次handleMessage是否持有handlerActive标记
+        long started = System.nanoTime();
+        long deadline = nanosUntilNextFrame(started);
+        long budget = Math.min(frameIntervalNanos / 2, Math.max(MIN_BUDGET_NANOS, deadline -
+                frameIntervalNanos / 8));
+        int delivered = 0;
         try {
-            long started = SystemClock.uptimeMillis();
             while (true) {
                 PendingPost pendingPost = queue.poll();
                 if (pendingPost == null) {
-                    synchronized (this) {
-                        // 双重校验,类似单例中的实现
-                        pendingPost = queue.poll();
-                        if (pendingPost == null) {
-                            handlerActive = false;
-                            return;
-                        }
+                    // 双重校验:先清除标记再检查一次队列,清除之前入队的对象由这里继续发送,
+                    // 清除之后入队的对象由入队线程重新发送消息
+                    handlerActive.set(false);
+                    ownsActive = false;
+                    if (queue.isEmpty() || !handlerActive.compareAndSet(false, true)) {
+                        stats.record(budget, deadline, System.nanoTime() - started, delivered,
+                                false);
+                        return;
                     }
+                    ownsActive = true;
+                    continue;
                 }
                 //如果订阅者没有取消注册,则分发消息
                 eventBus.invokeSubscriber(pendingPost);
-                
-                //如果在一定时间内仍然没有发完队列中所有的待发送者,则退出
-                long timeInMethod = SystemClock.uptimeMillis() - started;
-                if (timeInMethod >= maxMillisInsideHandleMessage) {
-                    if (!sendMessage(obtainMessage())) {
-                        throw new EventBusException("Could not send handler message");
-                    }
-                    rescheduled = true;
+                delivered++;
+
+                //预算用完时还没有发完队列中所有的待发送者,则让出主线程
+                long elapsed = System.nanoTime() - started;
+                if (elapsed >= budget) {
+                    stats.record(budget, deadline, elapsed, delivered, true);
+                    scheduleNextDrain();
+                    //标记交给之后的消息
+                    ownsActive = false;
                     return;
                 }
             }
         } finally {
-            handlerActive = rescheduled;
+            if (ownsActive) {
+                handlerActive.set(false);
+            }
+        }
+    }
+
+    /**
+     * 下一帧开始时由{@link FrameTracker}调用
+     */
+    @Override
+    public void run() {
+        removeMessages(WHAT_DRAIN);
+        if (!sendMessage(obtainDrainMessage())) {
+            handlerActive.set(false);
+        }
+    }
+
+    @Override
+    public MainThreadPosterStats getStats() {
+        return stats.snapshot(frameAware ? frameIntervalNanos : 0, asyncMessages);
+    }
+
+    /**
+     * 同时更新刷新间隔
+     *
+     * @return 到下一帧开始还有多少纳秒,作为这一轮分发的截止时间
+     */
+    private long nanosUntilNextFrame(long now) {
+        if (!frameAware) {
+            frameIntervalNanos = FrameTracker.DEFAULT_FRAME_INTERVAL_NANOS;
+            return FrameTracker.DEFAULT_FRAME_INTERVAL_NANOS;
+        }
+        if (frameTracker == null) {
+            frameTracker = new FrameTracker(this);
+        }
+        frameTracker.cancelResume();
+        long untilNextFrame = frameTracker.nanosUntilNextFrame(now);
+        frameIntervalNanos = frameTracker.getFrameIntervalNanos();
+        return untilNextFrame;
+    }
+
+    private void scheduleNextDrain() {
+        if (frameTracker != null) {
+            frameTracker.resumeAfterNextFrame();
+            //没有等到帧回调时也要继续
+            if (!sendMessageDelayed(obtainDrainMessage(), FRAME_TIMEOUT_MILLIS)) {
+                throw new EventBusException("Could not send handler message");
+            }
+        } else if (!sendMessage(obtainDrainMessage())) {
+            throw new EventBusException("Could not send handler message");
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP_MR1)
+    private Message obtainDrainMessage() {
+        Message message = obtainMessage(WHAT_DRAIN);
+        if (asyncMessages) {
+            message.setAsynchronous(true);
         }
+        return message;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,45 @@
+package com.kymjs.event;
+
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * 以一个Looper的线程作为主线程,默认是Android的主线程。
+ * 可以通过{@link EventBusBuilder#mainThreadSupport(MainThreadSupport)}设置,例如关闭异步消息。
+ */
+public final class LooperMainThreadSupport implements MainThreadSupport, MainThreadPosterFactory {
+    private final Looper looper;
+    private final boolean asyncMessages;
+    private final Handler handler;
+
+    public LooperMainThreadSupport(Looper looper) {
+        this(looper, true);
+    }
+
+    /**
+     * @param asyncMessages 是否使用异步消息(API 22及以上),异步消息不会被View绘制前插入的同步屏障阻塞,
+     *                      但与同一线程中其他Handler的同步消息之间不再保证顺序
+     */
+    public LooperMainThreadSupport(Looper looper, boolean asyncMessages) {
+        this.looper = looper;
+        this.asyncMessages = asyncMessages;
+        handler = new Handler(looper);
+    }
+
+    @Override
+    public boolean isMainThread() {
+        return looper == Looper.myLooper();
+    }
+
+    @Override
+    public void post(Runnable runnable) {
+        if (!handler.post(runnable)) {
+            throw new EventBusException("Could not post to looper " + looper);
+        }
+    }
+
+    @Override
+    public MainThreadPoster createPoster(EventBus eventBus) {
+        return new HandlerPoster(eventBus, looper, asyncMessages);
+    }
+}
@@ -0,0 +1,48 @@
+package com.kymjs.event;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import java.io.IOException;
+
+/**
+ * 使用Parcel保存实现了{@link Parcelable}的粘性事件,事件类型需要有public static的CREATOR。
+ * <p>
+ * Parcel.marshall()的格式不保证在不同系统版本之间兼容,系统升级后解码失败的粘性事件会被丢弃。
+ */
+public class ParcelableStickyEventCodec implements StickyEventCodec {
+
+    @Override
+    public boolean canEncode(Class<?> eventType) {
+        return Parcelable.class.isAssignableFrom(eventType);
+    }
+
+    @Override
+    public byte[] encode(Object event) throws IOException {
+        Parcel parcel = Parcel.obtain();
+        try {
+            ((Parcelable) event).writeToParcel(parcel, 0);
+            return parcel.marshall();
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    @Override
+    public Object decode(Class<?> eventType, byte[] data) throws IOException {
+        Parcelable.Creator<?> creator;
+        try {
+            creator = (Parcelable.Creator<?>) eventType.getField("CREATOR").get(null);
+        } catch (Exception e) {
+            throw new IOException("No CREATOR in " + eventType.getName() + ": " + e);
+        }
+        Parcel parcel = Parcel.obtain();
+        try {
+            parcel.unmarshall(data, 0, data.length);
+            parcel.setDataPosition(0);
+            return creator.createFromParcel(parcel);
+        } finally {
+            parcel.recycle();
+        }
+    }
+}
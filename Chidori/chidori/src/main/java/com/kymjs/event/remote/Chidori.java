@@ -0,0 +1,78 @@
+package com.kymjs.event.remote;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Parcelable;
+
+/**
+ * 跨进程发送事件。事件由接收者进程中的ChidoriServer交给它的EventBus.getDefault()。
+ */
+public class Chidori {
+
+    private static volatile Chidori defaultInstance;
+
+    private Class<?>[] serverClazz;
+
+    public static Chidori getDefault() {
+        if (defaultInstance == null) {
+            synchronized (Chidori.class) {
+                if (defaultInstance == null) {
+                    defaultInstance = new Chidori();
+                }
+            }
+        }
+        return defaultInstance;
+    }
+
+    /**
+     * 接收者所在进程不是应用的主进程时,指定与接收者在同一个进程中的ChidoriServer,只对下一次发送有效
+     */
+    public void connect(Class<?>... clazz) {
+        serverClazz = clazz;
+    }
+
+    public void postRemote(String remotePkg, Parcelable event) {
+        Bundle bundle = new Bundle();
+        bundle.putParcelable(ChidoriClient.CHIDORI_EVENT, event);
+        send(remotePkg, bundle);
+    }
+
+    public void postRemote(String remotePkg, int event) {
+        Bundle bundle = new Bundle();
+        bundle.putInt(ChidoriClient.CHIDORI_EVENT, event);
+        send(remotePkg, bundle);
+    }
+
+    public void postRemote(String remotePkg, double event) {
+        Bundle bundle = new Bundle();
+        bundle.putDouble(ChidoriClient.CHIDORI_EVENT, event);
+        send(remotePkg, bundle);
+    }
+
+    public void postRemote(String remotePkg, long event) {
+        Bundle bundle = new Bundle();
+        bundle.putLong(ChidoriClient.CHIDORI_EVENT, event);
+        send(remotePkg, bundle);
+    }
+
+    public void postRemote(String remotePkg, char event) {
+        Bundle bundle = new Bundle();
+        bundle.putChar(ChidoriClient.CHIDORI_EVENT, event);
+        send(remotePkg, bundle);
+    }
+
+    public void postRemote(String remotePkg, String event) {
+        Bundle bundle = new Bundle();
+        bundle.putString(ChidoriClient.CHIDORI_EVENT, event);
+        send(remotePkg, bundle);
+    }
+
+    private void send(String remotePkg, Bundle bundle) {
+        Intent sendEventIntent = new Intent(ChidoriClient.CHIDORI_ACTION);
+        sendEventIntent.putExtra(ChidoriClient.CHIDORI_FILTER, remotePkg);
+        sendEventIntent.putExtra(ChidoriClient.CHIDORI_SERVER, serverClazz);
+        sendEventIntent.putExtra(ChidoriClient.CHIDORI_WRAPPER_DATA, bundle);
+        ApplicationHolder.getAppContext().sendBroadcast(sendEventIntent);
+        serverClazz = null;
+    }
+}
@@ -10,6 +10,7 @@ import android.widget.Button;
 import android.widget.TextView;
 
 import com.kymjs.event.EventBus;
+import com.kymjs.event.remote.Chidori;
 
 public class MainActivity extends AppCompatActivity {
 
@@ -33,11 +34,11 @@ public class MainActivity extends AppCompatActivity {
             @Override
             public void onClick(View v) {
                 //发送给非主进程时必须先连接服务端
-                EventBus.getDefault().connect(RemoteProcessService.class);
+                Chidori.getDefault().connect(RemoteProcessService.class);
                 //其实还可以指定多个
-                //EventBus.getDefault().connect(RemoteProcessService.class，ChidoriServer.class);
+                //Chidori.getDefault().connect(RemoteProcessService.class，ChidoriServer.class);
                 int r = random();
-                EventBus.getDefault().postRemote("com.kymjs.demo", "hello" + r);
+                Chidori.getDefault().postRemote("com.kymjs.demo", "hello" + r);
                 button2.setText("发送消息：" + "hello" + r);
 
             }
@@ -48,7 +49,7 @@ public class MainActivity extends AppCompatActivity {
             @Override
             public void onClick(View v) {
                 int r = random();
-                EventBus.getDefault().postRemote("com.kymjs.sample", "hello" + r);
+                Chidori.getDefault().postRemote("com.kymjs.sample", "hello" + r);
                 button3.setText("发送消息：" + "hello" + r);
             }
         });
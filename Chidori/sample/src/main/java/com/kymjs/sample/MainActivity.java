@@ -9,6 +9,7 @@ import android.view.View;
 import android.widget.TextView;
 
 import com.kymjs.event.EventBus;
+import com.kymjs.event.remote.Chidori;
 
 /**
  * Created by ZhangTao on 5/9/17.
@@ -31,7 +32,7 @@ public class MainActivity extends AppCompatActivity {
         findViewById(R.id.button3).setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                EventBus.getDefault().postRemote("com.kymjs.demo", "hello");
+                Chidori.getDefault().postRemote("com.kymjs.demo", "hello");
             }
         });
         mTextView = (TextView) findViewById(R.id.text);